@@ -277,6 +277,7 @@ sortStyle
 
 repeatRange
     : duration                                                                                                          # durationLoop
+    | 'for' {_input.LT(1).getText().equalsIgnoreCase("each")}? ID forEachChunkType ID 'in' expression                   # forEachLoop
     | count                                                                                                             # countLoop
     | 'with' ID '=' range                                                                                               # withLoop
     | 'forever'                                                                                                         # infiniteLoop
@@ -295,6 +296,13 @@ count
     | expression
     ;
 
+forEachChunkType
+    : line                                                                                                              # forEachLines
+    | item                                                                                                              # forEachItems
+    | word                                                                                                              # forEachWords
+    | character                                                                                                         # forEachChars
+    ;
+
 range
     : expression 'down' 'to' expression                                                                                 # rangeDownTo
     | expression 'to' expression                                                                                        # rangeUpTo
@@ -7,6 +7,8 @@ import com.defano.hypertalk.ast.expressions.operators.UnaryOperator;
 import com.defano.hypertalk.ast.expressions.operators.UnaryOperatorExp;
 import com.defano.wyldcard.parts.model.PartModel;
 import com.defano.wyldcard.runtime.HyperCardProperties;
+import com.defano.wyldcard.runtime.symbol.SymbolReference;
+import com.defano.wyldcard.runtime.symbol.SymbolSlots;
 import com.defano.hypertalk.ast.expressions.*;
 import com.defano.hypertalk.ast.expressions.containers.*;
 import com.defano.hypertalk.ast.expressions.functions.*;
@@ -42,9 +44,15 @@ import org.antlr.v4.runtime.tree.TerminalNode;
  *
  * Each method in this class corresponds to a "label" in the grammar (i.e., the symbol to the right of the '#'). As you
  * add production rules to the grammar you must implement the corresponding visitor method to produce an AST node.
+ *
+ * While visiting a handler or function, each variable reference is resolved to a slot in that handler's
+ * {@link SymbolSlots} so that locals can be accessed by index at runtime.
  */
 public class HyperTalkTreeVisitor extends HyperTalkBaseVisitor<Object> {
 
+    // Slot layout of the handler or function currently being visited; null when not visiting a handler
+    private SymbolSlots handlerSymbols;
+
     @Override
     public Object visitHandlerScript(HyperTalkParser.HandlerScriptContext ctx) {
         Script script = (Script) visit(ctx.script());
@@ -658,34 +666,62 @@ public class HyperTalkTreeVisitor extends HyperTalkBaseVisitor<Object> {
 
     @Override
     public Object visitNoArgHandler(HyperTalkParser.NoArgHandlerContext ctx) {
+        SymbolSlots symbols = beginHandlerSymbols(new ParameterList());
         StatementList statements = ctx.statementList() == null ? new StatementList() : (StatementList) visit(ctx.statementList());
         String onId = ctx.handlerName().size() > 0 ? (String) visit(ctx.handlerName(0)) : null;
         String endId = ctx.handlerName().size() > 1 ? (String) visit(ctx.handlerName(1)) : null;
-        return new NamedBlock(ctx, onId, endId, statements);
+        handlerSymbols = null;
+        return new NamedBlock(ctx, onId, endId, new ParameterList(), statements, symbols);
     }
 
     @Override
     public Object visitArgHandler(HyperTalkParser.ArgHandlerContext ctx) {
+        ParameterList parameters = (ParameterList) visit(ctx.parameterList());
+        SymbolSlots symbols = beginHandlerSymbols(parameters);
         StatementList statements = ctx.statementList() == null ? new StatementList() : (StatementList) visit(ctx.statementList());
         String onId = ctx.handlerName().size() > 0 ? (String) visit(ctx.handlerName(0)) : null;
         String endId = ctx.handlerName().size() > 1 ? (String) visit(ctx.handlerName(1)) : null;
-        return new NamedBlock(ctx, onId, endId, (ParameterList) visit(ctx.parameterList()), statements);
+        handlerSymbols = null;
+        return new NamedBlock(ctx, onId, endId, parameters, statements, symbols);
     }
 
     @Override
     public Object visitNoArgFunction(HyperTalkParser.NoArgFunctionContext ctx) {
+        SymbolSlots symbols = beginHandlerSymbols(new ParameterList());
         StatementList statements = ctx.statementList() == null ? new StatementList() : (StatementList) visit(ctx.statementList());
         String onId = ctx.ID().size() > 0 ? (String) visit(ctx.ID(0)) : null;
         String endId = ctx.ID().size() > 1 ? (String) visit(ctx.ID(1)) : null;
-        return new UserFunction(ctx, onId, endId, new ParameterList(), statements);
+        handlerSymbols = null;
+        return new UserFunction(ctx, onId, endId, new ParameterList(), statements, symbols);
     }
 
     @Override
     public Object visitArgFunction(HyperTalkParser.ArgFunctionContext ctx) {
+        ParameterList parameters = (ParameterList) visit(ctx.parameterList());
+        SymbolSlots symbols = beginHandlerSymbols(parameters);
         StatementList statements = ctx.statementList() == null ? new StatementList() : (StatementList) visit(ctx.statementList());
         String onId = ctx.ID().size() > 0 ? (String) visit(ctx.ID(0)) : null;
         String endId = ctx.ID().size() > 1 ? (String) visit(ctx.ID(1)) : null;
-        return new UserFunction(ctx, onId, endId, (ParameterList) visit(ctx.parameterList()), statements);
+        handlerSymbols = null;
+        return new UserFunction(ctx, onId, endId, parameters, statements, symbols);
+    }
+
+    /**
+     * Begins resolving variable references for a new handler or function, assigning the first slots to the block's
+     * parameters (in order) and then to the implicit 'it' variable.
+     *
+     * @param parameters The parameters of the handler or function being visited
+     * @return The slot layout that variable references in the block will be resolved against.
+     */
+    private SymbolSlots beginHandlerSymbols(ParameterList parameters) {
+        handlerSymbols = new SymbolSlots();
+
+        for (String thisParameter : parameters.list) {
+            handlerSymbols.resolve(thisParameter);
+        }
+        handlerSymbols.resolve("it");
+
+        return handlerSymbols;
     }
 
     @Override
@@ -1193,7 +1229,32 @@ public class HyperTalkTreeVisitor extends HyperTalkBaseVisitor<Object> {
 
     @Override
     public Object visitWithLoop(HyperTalkParser.WithLoopContext ctx) {
-        return new RepeatWith((String) visit(ctx.ID()), (RepeatRange) visit(ctx.range()));
+        return new RepeatWith(new SymbolReference((String) visit(ctx.ID()), handlerSymbols), (RepeatRange) visit(ctx.range()));
+    }
+
+    @Override
+    public Object visitForEachLoop(HyperTalkParser.ForEachLoopContext ctx) {
+        return new RepeatForEach((ChunkType) visit(ctx.forEachChunkType()), new SymbolReference((String) visit(ctx.ID(1)), handlerSymbols), (Expression) visit(ctx.expression()));
+    }
+
+    @Override
+    public Object visitForEachLines(HyperTalkParser.ForEachLinesContext ctx) {
+        return ChunkType.LINE;
+    }
+
+    @Override
+    public Object visitForEachItems(HyperTalkParser.ForEachItemsContext ctx) {
+        return ChunkType.ITEM;
+    }
+
+    @Override
+    public Object visitForEachWords(HyperTalkParser.ForEachWordsContext ctx) {
+        return ChunkType.WORD;
+    }
+
+    @Override
+    public Object visitForEachChars(HyperTalkParser.ForEachCharsContext ctx) {
+        return ChunkType.CHAR;
     }
 
     @Override
@@ -1293,7 +1354,7 @@ public class HyperTalkTreeVisitor extends HyperTalkBaseVisitor<Object> {
 
     @Override
     public Object visitVariableDest(HyperTalkParser.VariableDestContext ctx) {
-        return new VariableExp(ctx, (String) visit(ctx.ID()));
+        return new VariableExp(ctx, new SymbolReference((String) visit(ctx.ID()), handlerSymbols));
     }
 
     @Override
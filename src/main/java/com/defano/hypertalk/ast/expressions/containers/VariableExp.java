@@ -4,13 +4,14 @@ import com.defano.wyldcard.runtime.context.ExecutionContext;
 import com.defano.hypertalk.ast.model.Preposition;
 import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.exception.HtException;
+import com.defano.wyldcard.runtime.symbol.SymbolReference;
 import org.antlr.v4.runtime.ParserRuleContext;
 
 public class VariableExp extends ContainerExp {
 
-    private final String symbol;
+    private final SymbolReference symbol;
 
-    public VariableExp(ParserRuleContext context, String symbol) {
+    public VariableExp(ParserRuleContext context, SymbolReference symbol) {
         super(context);
         this.symbol = symbol;
     }
@@ -4,6 +4,7 @@ import com.defano.hypertalk.ast.expressions.Expression;
 import com.defano.hypertalk.ast.model.LengthAdjective;
 import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.utils.DateUtils;
+import com.defano.wyldcard.runtime.ConditionMonitor;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import org.antlr.v4.runtime.ParserRuleContext;
 
@@ -20,6 +21,7 @@ public class DateFunc extends Expression {
 
     @Override
     public Value onEvaluate(ExecutionContext context) {
+        ConditionMonitor.getInstance().markTimeDependent();
         return DateUtils.valueOf(new Date(), lengthAdjective);
     }
 
@@ -76,7 +76,7 @@ public class NumberOfFunc extends Expression {
 
     private LayeredPartFinder getScopedLayeredPart(ExecutionContext context) throws HtException {
         if (expression == null) {
-            return context.getCurrentCard().getCardModel();
+            return context.getCurrentCardModel();
         } else {
             BackgroundModel bkgnd = expression.partFactor(context, BackgroundModel.class);
             if (bkgnd != null) {
@@ -4,6 +4,7 @@ import com.defano.hypertalk.ast.expressions.Expression;
 import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.exception.HtSemanticException;
+import com.defano.wyldcard.runtime.ConditionMonitor;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import org.antlr.v4.runtime.ParserRuleContext;
 
@@ -17,6 +18,7 @@ public class RandomFunc extends ArgListFunction {
 
     @Override
     public Value onEvaluate(ExecutionContext context) throws HtException {
+        ConditionMonitor.getInstance().markTimeDependent();
 
         // Get the single argument passed to the function
         Value evaluatedArgument = super.evaluateSingleArgumentList(context);
@@ -2,6 +2,7 @@ package com.defano.hypertalk.ast.expressions.functions;
 
 import com.defano.hypertalk.ast.expressions.Expression;
 import com.defano.hypertalk.ast.model.Value;
+import com.defano.wyldcard.runtime.ConditionMonitor;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import org.antlr.v4.runtime.ParserRuleContext;
 
@@ -13,6 +14,7 @@ public class SecondsFunc extends Expression {
 
     @Override
     public Value onEvaluate(ExecutionContext context) {
+        ConditionMonitor.getInstance().markTimeDependent();
         return new Value(System.currentTimeMillis() / 1000);
     }
 }
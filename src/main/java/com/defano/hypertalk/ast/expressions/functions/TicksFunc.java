@@ -2,6 +2,7 @@ package com.defano.hypertalk.ast.expressions.functions;
 
 import com.defano.hypertalk.ast.expressions.Expression;
 import com.defano.hypertalk.ast.model.Value;
+import com.defano.wyldcard.runtime.ConditionMonitor;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import org.antlr.v4.runtime.ParserRuleContext;
 
@@ -15,6 +16,8 @@ public class TicksFunc extends Expression {
 
     @Override
     public Value onEvaluate(ExecutionContext context) {
+        ConditionMonitor.getInstance().markTimeDependent();
+
         long jvmStartTimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
 
         // Ticks are 1/60th of a second...
@@ -5,6 +5,7 @@ import com.defano.hypertalk.ast.model.LengthAdjective;
 import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.ast.expressions.Expression;
 import com.defano.hypertalk.exception.HtSemanticException;
+import com.defano.wyldcard.runtime.ConditionMonitor;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import org.antlr.v4.runtime.ParserRuleContext;
 
@@ -21,6 +22,7 @@ public class TimeFunc extends Expression {
 
     @Override
     public Value onEvaluate(ExecutionContext context) throws HtSemanticException {
+        ConditionMonitor.getInstance().markTimeDependent();
         switch (lengthAdjective) {
             case LONG:
                 return new Value(ConvertibleDateFormat.LONG_TIME.dateFormat.format(new Date()));
@@ -0,0 +1,56 @@
+package com.defano.hypertalk.ast.model;
+
+/**
+ * An append-only text buffer shared by a succession of {@link Value}s, each produced by appending text to the one
+ * before it (i.e., 'put x after y' executed in a loop).
+ * <p>
+ * Each value sharing the buffer represents a prefix of its contents; text is only ever added after the end of the
+ * buffer, so appending never changes an existing value. When text is appended to the value that spans the entire
+ * buffer, the buffer grows in place; appending to any other (shorter) value requires a new buffer.
+ */
+class AppendBuffer {
+
+    private final StringBuilder text;
+
+    /**
+     * Creates a buffer containing the concatenation of the given strings.
+     *
+     * @param prefix The initial contents of the buffer
+     * @param suffix Text following the initial contents
+     */
+    AppendBuffer(String prefix, String suffix) {
+        text = new StringBuilder(Math.max(16, (prefix.length() + suffix.length()) * 2));
+        text.append(prefix).append(suffix);
+    }
+
+    /**
+     * Appends text to the buffer, provided the buffer currently ends at the given length (that is, the value
+     * requesting the append spans the entire buffer).
+     *
+     * @param length The length of the value to which text is being appended
+     * @param suffix The text to append
+     * @return True if the text was appended; false if the buffer has grown beyond the given length.
+     */
+    synchronized boolean append(int length, String suffix) {
+        if (text.length() != length) {
+            return false;
+        }
+
+        text.append(suffix);
+        return true;
+    }
+
+    /**
+     * Gets the first length characters of this buffer.
+     *
+     * @param length The number of characters to return
+     * @return The requested prefix of the buffer's contents
+     */
+    synchronized String substring(int length) {
+        return text.substring(0, length);
+    }
+
+    synchronized int length() {
+        return text.length();
+    }
+}
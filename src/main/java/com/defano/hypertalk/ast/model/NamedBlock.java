@@ -5,6 +5,7 @@ import com.defano.hypertalk.ast.statements.StatementList;
 import com.defano.hypertalk.ast.statements.commands.PassCmd;
 import com.defano.hypertalk.exception.HtSyntaxException;
 import com.defano.hypertalk.exception.HtUncheckedSemanticException;
+import com.defano.wyldcard.runtime.symbol.SymbolSlots;
 import org.antlr.v4.runtime.ParserRuleContext;
 
 import java.util.Collection;
@@ -14,6 +15,7 @@ public class NamedBlock {
     public final String name;
     public final StatementList statements;
     public final ParameterList parameters;
+    public final SymbolSlots symbols;
 
     private boolean isEmptyPassBlock;
 
@@ -45,6 +47,20 @@ public class NamedBlock {
     }
 
     public NamedBlock (ParserRuleContext context, String onName, String endName, ParameterList parameters, StatementList body) {
+        this(context, onName, endName, parameters, body, new SymbolSlots());
+    }
+
+    /**
+     * Creates a NamedBlock whose local variables and parameters have been resolved to slots.
+     *
+     * @param context    The parser context
+     * @param onName     The name appearing in the 'on' clause
+     * @param endName    The name appearing in the 'end' clause
+     * @param parameters The parameter list
+     * @param body       The statements in the block
+     * @param symbols    The slot layout of local variables referenced in the block (see {@link SymbolSlots})
+     */
+    public NamedBlock (ParserRuleContext context, String onName, String endName, ParameterList parameters, StatementList body, SymbolSlots symbols) {
         if (onName == null) {
             throw new HtUncheckedSemanticException(new HtSyntaxException("Missing 'on' clause in handler definition.", context.getStart()));
         }
@@ -60,6 +76,7 @@ public class NamedBlock {
         this.name = onName;
         this.statements = body;
         this.parameters = parameters;
+        this.symbols = symbols;
     }
 
     public boolean isEmptyPassBlock() {
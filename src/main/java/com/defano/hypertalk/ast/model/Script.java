@@ -8,20 +8,46 @@ import java.util.*;
 
 public class Script {
 
-    private final Map<BlockName, NamedBlock> handlers = new HashMap<>();
-    private final Map<BlockName, Integer> handlerStartingLine = new HashMap<>();
-    private final Map<BlockName, Integer> handlerEndingLine = new HashMap<>();
-    private final Map<BlockName, UserFunction> functions = new HashMap<>();
+    private final Map<BlockName, NamedBlock> handlers;
+    private final Map<BlockName, Integer> handlerStartingLine;
+    private final Map<BlockName, Integer> handlerEndingLine;
+    private final Map<BlockName, UserFunction> functions;
     private StatementList statements = null;
-    private Collection<Integer> appliedBreakpoints = new ArrayList<>();
+
+    // Breakpoints are specific to this instance; the handlers and statements may be shared with other copies
+    private volatile Set<Integer> breakpoints = Collections.emptySet();
     
     public Script () {
+        this.handlers = new HashMap<>();
+        this.handlerStartingLine = new HashMap<>();
+        this.handlerEndingLine = new HashMap<>();
+        this.functions = new HashMap<>();
     }
 
     public Script(ParserRuleContext context, Statement statement) {
+        this();
         insertStatement(context, statement);
     }
 
+    private Script(Script script) {
+        this.handlers = script.handlers;
+        this.handlerStartingLine = script.handlerStartingLine;
+        this.handlerEndingLine = script.handlerEndingLine;
+        this.functions = script.functions;
+        this.statements = script.statements;
+    }
+
+    /**
+     * Produces a copy of this script that shares this script's abstract syntax tree, but has its own (initially
+     * empty) set of breakpoints. Compiled scripts are not modified once parsing completes, so the same tree can safely
+     * be shared by every part whose script text is identical.
+     *
+     * @return A copy of this script without breakpoints.
+     */
+    public Script copyOf() {
+        return new Script(this);
+    }
+
     public void defineHandler (NamedBlock handler, int startingLine, int endingLine) {
         BlockName name = new BlockName(handler.name);
 
@@ -96,23 +122,29 @@ public class Script {
         return statements;
     }
 
+    /**
+     * Replaces the set of breakpoints applied to this script.
+     *
+     * @param breakpointLines The zero-based line numbers (as reported by the script editor) on which execution should
+     *                        pause.
+     */
     public void applyBreakpoints(Collection<Integer> breakpointLines) {
-
-        // Clear previously-applied breakpoints
-        for (int oldBreakpoint : appliedBreakpoints) {
-            for (Statement found : findStatementsOnLine(oldBreakpoint + 1)) {
-                found.setBreakpoint(false);
-            }
-        }
-
-        // Apply the new set
+        Set<Integer> applied = new HashSet<>();
         for (int line : breakpointLines) {
-            for (Statement found : findStatementsOnLine(line + 1)) {
-                found.setBreakpoint(true);
-            }
+            applied.add(line + 1);
         }
 
-        this.appliedBreakpoints = breakpointLines;
+        this.breakpoints = applied;
+    }
+
+    /**
+     * Determines if a breakpoint has been applied to the given line of this script.
+     *
+     * @param line The line number, counting from 1 (as reported by the statement's parser token).
+     * @return True if statements starting on this line should pause execution.
+     */
+    public boolean hasBreakpoint(int line) {
+        return breakpoints.contains(line);
     }
 
     public Collection<Statement> findStatementsOnLine(int line) {
@@ -1,6 +1,7 @@
 package com.defano.hypertalk.ast.model;
 
 import com.defano.hypertalk.ast.statements.StatementList;
+import com.defano.wyldcard.runtime.symbol.SymbolSlots;
 import org.antlr.v4.runtime.ParserRuleContext;
 
 public class UserFunction extends NamedBlock {
@@ -8,4 +9,8 @@ public class UserFunction extends NamedBlock {
     public UserFunction (ParserRuleContext context, String onName, String endName, ParameterList parameters, StatementList statements) {
         super(context, onName, endName, parameters, statements);
     }
+
+    public UserFunction (ParserRuleContext context, String onName, String endName, ParameterList parameters, StatementList statements, SymbolSlots symbols) {
+        super(context, onName, endName, parameters, statements, symbols);
+    }
 }
@@ -3,7 +3,9 @@ package com.defano.hypertalk.ast.model;
 import com.defano.hypertalk.comparator.StyledComparable;
 import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.exception.HtSemanticException;
+import com.defano.hypertalk.utils.ChunkIndex;
 import com.defano.hypertalk.utils.ChunkUtils;
+import com.defano.hypertalk.utils.Range;
 import com.defano.hypertalk.utils.DateUtils;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 
@@ -11,26 +13,52 @@ import java.awt.*;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.regex.Matcher;
 
 /**
- * Representation of a value in HyperTalk; all values are stored internally as Strings and converted to integers, floats
- * or booleans as requested at runtime.
+ * Representation of a value in HyperTalk. Values are strings which are converted to integers, floats or booleans as
+ * requested at runtime.
+ * <p>
+ * A value created from a number or boolean keeps that primitive and renders its string form only when the string is
+ * required (i.e., {@link #stringValue()}, concatenation or chunking). Thus, arithmetic performed on the result of
+ * arithmetic (like incrementing a loop counter) never formats or parses a number. Likewise, a value created from a
+ * string remembers the result of interpreting it as a number or boolean.
  * <p>
  * The value held within a Value object is immutable.
  */
 public class Value implements StyledComparable<Value> {
 
-    private final String value;
+    // Flags indicating which primitive interpretations of this value are known to be valid (or invalid)
+    private final static int LONG = 1;
+    private final static int NOT_LONG = 2;
+    private final static int DOUBLE = 4;
+    private final static int NOT_DOUBLE = 8;
+    private final static int BOOLEAN = 16;
+    private final static int NOT_BOOLEAN = 32;
+
+    // String form of this value; null until rendered when this value was created from a primitive or by appending
+    private String value;
+
+    // When this value was produced by appending text to another value, the buffer holding its text and its length
+    private AppendBuffer buffer;
+    private int bufferLength;
 
     // A flag to indicate value represents a quoted literal (useful when disambiguating 'card button 1' from 'card
     // button "1"'. The latter refers to a card button _named_ "1"; the former refers to card button number 1)
     private boolean isQuotedLiteral;
 
-    // Cache for known value types (all are effectively final)
-    private Long longValue;
-    private Double floatValue;
-    private Boolean booleanValue;
+    // Cache for known value types (all are effectively final); valid only when the corresponding flag is set in 'known'.
+    // Literal values are shared by scripts executing on different threads: 'known' is volatile and is written only
+    // after the primitive it vouches for (see setKnown), so a thread that sees a flag also sees the parsed primitive.
+    private volatile int known;
+    private long longValue;
+    private double floatValue;
+    private boolean booleanValue;
+
+    // Lazily-built indices of the chunks in this value's string form (see getChunkIndex)
+    private ChunkIndex charIndex;
+    private ChunkIndex wordIndex;
+    private ChunkIndex lineIndex;
+    private ChunkIndex itemIndex;
 
     public Value() {
         this("");
@@ -45,26 +73,41 @@ public class Value implements StyledComparable<Value> {
     }
 
     public Value(Object v) {
-        this(v == null ? "" : String.valueOf(v));
-
         if (v instanceof Value) {
-            this.isQuotedLiteral = ((Value) v).isQuotedLiteral;
+            Value copy = (Value) v;
+            int copyKnown = copy.known;
+            this.value = copy.value;
+            this.buffer = copy.buffer;
+            this.bufferLength = copy.bufferLength;
+            this.isQuotedLiteral = copy.isQuotedLiteral;
+            this.longValue = copy.longValue;
+            this.floatValue = copy.floatValue;
+            this.booleanValue = copy.booleanValue;
+            this.charIndex = copy.charIndex;
+            this.wordIndex = copy.wordIndex;
+            this.lineIndex = copy.lineIndex;
+            this.itemIndex = copy.itemIndex;
+            this.known = copyKnown;
+        } else {
+            setString(v == null ? "" : String.valueOf(v));
         }
     }
 
     public Value(long v) {
-        this(String.valueOf(v));
         longValue = v;
+        floatValue = v;
+        known = LONG | DOUBLE | NOT_BOOLEAN;
     }
 
     public Value(double f) {
-        this(String.valueOf(f));
+        // The string form of a double (e.g., "1.0") is never interpreted as an integer
         floatValue = f;
+        known = DOUBLE | NOT_LONG | NOT_BOOLEAN;
     }
 
     public Value(boolean v) {
-        this(String.valueOf(v));
         booleanValue = v;
+        known = BOOLEAN | NOT_LONG | NOT_DOUBLE;
     }
 
     public Value(int x, int y) {
@@ -80,13 +123,22 @@ public class Value implements StyledComparable<Value> {
     }
 
     public Value(String value) {
+        setString(value);
+    }
+
+    private Value(AppendBuffer buffer, int bufferLength) {
+        this.buffer = buffer;
+        this.bufferLength = bufferLength;
+    }
+
+    private void setString(String value) {
         this.value = value == null ? "" : value;
 
         // Special case: empty string is a valid int and float
         if (value == null || value.trim().equals("")) {
             longValue = 0L;
             floatValue = 0.0;
-            booleanValue = null;
+            setKnown(LONG | DOUBLE | NOT_BOOLEAN);
         }
     }
 
@@ -173,14 +225,36 @@ public class Value implements StyledComparable<Value> {
             case BEFORE:
                 return new Value(mutator.toString() + mutable.toString());
             case INTO:
-                return new Value(mutator.toString());
+                // Values are immutable; reuse the mutator (and its primitive form) unless it must shed its literal flag
+                return mutator.isQuotedLiteral ? new Value(mutator.toString()) : mutator;
             case AFTER:
-                return new Value(mutable.toString() + mutator.toString());
+                return mutable.append(mutator.toString());
             default:
                 throw new RuntimeException("Bug! Unhandled preposition.");
         }
     }
 
+    /**
+     * Produces a value consisting of this value followed by the given text.
+     * <p>
+     * The resulting value shares a growable buffer with this one rather than copying this value's text. Repeatedly
+     * appending to the result of the previous append (as when 'put ... after' accumulates output in a variable) thus
+     * grows the buffer in place; the text is copied into a String only when the value is read as a whole.
+     *
+     * @param suffix The text to append
+     * @return The concatenated value
+     */
+    private Value append(String suffix) {
+        AppendBuffer appendable = buffer;
+
+        if (appendable != null && appendable.append(bufferLength, suffix)) {
+            return new Value(appendable, bufferLength + suffix.length());
+        }
+
+        appendable = new AppendBuffer(stringValue(), suffix);
+        return new Value(appendable, appendable.length());
+    }
+
     /**
      * Determines if this value represents an integer (whole number). All integers are numbers, but not all numbers are
      * integers.
@@ -188,7 +262,10 @@ public class Value implements StyledComparable<Value> {
      * @return True if the value represents a whole number
      */
     public boolean isInteger() {
-        return longValue != null || parseLong() != null;
+        if ((known & (LONG | NOT_LONG)) == 0) {
+            parseLong();
+        }
+        return (known & LONG) != 0;
     }
 
     /**
@@ -204,7 +281,10 @@ public class Value implements StyledComparable<Value> {
      * @return True if this value is either 'true' or 'false'.
      */
     public boolean isBoolean() {
-        return booleanValue != null || parseBoolean() != null;
+        if ((known & (BOOLEAN | NOT_BOOLEAN)) == 0) {
+            parseBoolean();
+        }
+        return (known & BOOLEAN) != 0;
     }
 
     /**
@@ -212,7 +292,10 @@ public class Value implements StyledComparable<Value> {
      * @return True if this value is a number.
      */
     public boolean isNumber() {
-        return floatValue != null || parseFloat() != null;
+        if ((known & (DOUBLE | NOT_DOUBLE)) == 0) {
+            parseFloat();
+        }
+        return (known & DOUBLE) != 0;
     }
 
     /**
@@ -255,52 +338,95 @@ public class Value implements StyledComparable<Value> {
                 new Value(listValue.get(3)).isInteger();
     }
 
-    private Long parseLong() {
+    private void parseLong() {
+        // Rendering the string form of an appended value may reveal that it's blank (and, therefore, zero)
+        String value = stringValue();
+        if ((known & LONG) != 0) {
+            return;
+        }
+
         try {
             longValue = Long.parseLong(value.trim());
+            setKnown(LONG);
         } catch (NumberFormatException e) {
-            longValue = null;
+            setKnown(NOT_LONG);
         }
-
-        return longValue;
     }
 
-    private Double parseFloat() {
+    private void parseFloat() {
+        String value = stringValue();
+        if ((known & DOUBLE) != 0) {
+            return;
+        }
+
         try {
             floatValue = Double.parseDouble(value.trim());
+            setKnown(DOUBLE);
         } catch (NumberFormatException e) {
-            floatValue = null;
+            setKnown(NOT_DOUBLE);
         }
-
-        return floatValue;
     }
 
-    private Boolean parseBoolean() {
+    private void parseBoolean() {
+        String value = stringValue();
+        if ((known & NOT_BOOLEAN) != 0) {
+            return;
+        }
+
         if (value.trim().equalsIgnoreCase("true")) {
             booleanValue = true;
+            setKnown(BOOLEAN);
         } else if (value.trim().equalsIgnoreCase("false")) {
             booleanValue = false;
+            setKnown(BOOLEAN);
         } else {
-            booleanValue = null;
+            setKnown(NOT_BOOLEAN);
         }
+    }
 
-        return booleanValue;
+    /**
+     * Marks primitive interpretations of this value as known; invoked only after the corresponding primitive field has
+     * been written. When two threads parse the same value at once, one thread's flags may be lost; that value is
+     * simply parsed again the next time it's needed.
+     *
+     * @param flags The flags to set
+     */
+    private void setKnown(int flags) {
+        known |= flags;
     }
 
     public String stringValue() {
+        if (value == null) {
+            if (buffer != null) {
+                setString(buffer.substring(bufferLength));
+            } else {
+                value = renderString();
+            }
+        }
         return value;
     }
 
+    /**
+     * Renders the string form of a value created from a primitive.
+     *
+     * @return The string form of this value
+     */
+    private String renderString() {
+        if ((known & LONG) != 0) {
+            return String.valueOf(longValue);
+        } else if ((known & DOUBLE) != 0) {
+            return String.valueOf(floatValue);
+        } else {
+            return String.valueOf(booleanValue);
+        }
+    }
+
     /**
      * Gets this value's integer representation as an int, or 0 if this value is not an integer.
      * @return The integer representation of this value.
      */
     public int integerValue() {
-        if (longValue != null || parseLong() != null) {
-            return longValue.intValue();
-        } else {
-            return 0;
-        }
+        return (int) longValue();
     }
 
     /**
@@ -308,10 +434,7 @@ public class Value implements StyledComparable<Value> {
      * @return The integer representation of this value.
      */
     public long longValue() {
-        if (longValue != null || parseLong() != null)
-            return longValue;
-        else
-            return 0;
+        return isInteger() ? longValue : 0;
     }
 
     /**
@@ -319,10 +442,7 @@ public class Value implements StyledComparable<Value> {
      * @return The floating-point representation of this value.
      */
     public double doubleValue() {
-        if (floatValue != null || parseFloat() != null)
-            return floatValue;
-        else
-            return 0.0;
+        return isNumber() ? floatValue : 0.0;
     }
 
     /**
@@ -330,10 +450,7 @@ public class Value implements StyledComparable<Value> {
      * @return The boolean representaion of this value.
      */
     public boolean booleanValue() {
-        if (booleanValue != null || parseBoolean() != null)
-            return booleanValue;
-        else
-            return false;
+        return isBoolean() && booleanValue;
     }
 
     /**
@@ -382,7 +499,7 @@ public class Value implements StyledComparable<Value> {
      */
     public List<Value> getListItems() {
         ArrayList<Value> items = new ArrayList<>();
-        for (String thisItem : value.split(",")) {
+        for (String thisItem : stringValue().split(",")) {
             items.add(new Value(thisItem));
         }
         return items;
@@ -414,30 +531,65 @@ public class Value implements StyledComparable<Value> {
     }
 
     public List<Value> getChunks(ExecutionContext context, ChunkType type) {
-        Matcher matcher = ChunkUtils.getRegexForChunkType(context, type).matcher(value);
-        ArrayList<Value> chunks = new ArrayList<>();
+        ChunkIndex index = getChunkIndex(context, type);
+        ArrayList<Value> chunks = new ArrayList<>(index.getCount());
 
-        while (matcher.find()) {
-            chunks.add(new Value(matcher.group()));
+        for (int chunk = 1; chunk <= index.getCount(); chunk++) {
+            Range range = index.getRange(chunk);
+            chunks.add(new Value(stringValue().substring(range.start, range.end)));
         }
 
         return chunks;
     }
 
+    /**
+     * Gets an index of the chunks of the given type in this value, building the index the first time it is requested.
+     * Since values are immutable, the index remains valid for the life of this value (indices of items are rebuilt
+     * if the itemDelimiter changes). Thus, counting or accessing the chunks of a value (i.e., 'line n of x' inside of
+     * a loop) does not rescan the value.
+     *
+     * @param context The execution context
+     * @param type    The type of chunk to index
+     * @return An index of the chunks of the given type in this value
+     */
+    public ChunkIndex getChunkIndex(ExecutionContext context, ChunkType type) {
+        ChunkType singular = ChunkIndex.singularOf(type);
+
+        switch (singular) {
+            case CHAR:
+                return charIndex = validIndex(context, singular, charIndex);
+            case WORD:
+                return wordIndex = validIndex(context, singular, wordIndex);
+            case LINE:
+                return lineIndex = validIndex(context, singular, lineIndex);
+            case ITEM:
+                return itemIndex = validIndex(context, singular, itemIndex);
+            default:
+                throw new IllegalArgumentException("Bug! Unhandled chunk type: " + type);
+        }
+    }
+
+    private ChunkIndex validIndex(ExecutionContext context, ChunkType type, ChunkIndex index) {
+        if (index != null && index.isIndexOf(context, type)) {
+            return index;
+        }
+        return ChunkIndex.of(context, type, stringValue());
+    }
+
     public int itemCount(ExecutionContext context) {
-        return ChunkUtils.getCount(context, ChunkType.ITEM, value);
+        return getChunkIndex(context, ChunkType.ITEM).getCount();
     }
 
     public int wordCount(ExecutionContext context) {
-        return ChunkUtils.getCount(context, ChunkType.WORD, value);
+        return getChunkIndex(context, ChunkType.WORD).getCount();
     }
 
     public int charCount(ExecutionContext context) {
-        return ChunkUtils.getCount(context, ChunkType.CHAR, value);
+        return getChunkIndex(context, ChunkType.CHAR).getCount();
     }
 
     public int lineCount(ExecutionContext context) {
-        return ChunkUtils.getCount(context, ChunkType.LINE, value);
+        return getChunkIndex(context, ChunkType.LINE).getCount();
     }
 
     public Value getChunk(ExecutionContext context, Chunk c) throws HtException {
@@ -462,7 +614,7 @@ public class Value implements StyledComparable<Value> {
         if (endVal != null)
             endIdx = endVal.integerValue();
 
-        Value chunkValue = new Value(ChunkUtils.getChunk(context, c.type, value, startIdx, endIdx));
+        Value chunkValue = new Value(ChunkUtils.getChunk(c.type, stringValue(), getChunkIndex(context, c.type), startIdx, endIdx));
 
         // If a composite chunk; evaluate right hand of the expression first
         if (c instanceof CompositeChunk) {
@@ -473,7 +625,12 @@ public class Value implements StyledComparable<Value> {
     }
 
     public boolean isEmpty() {
-        return value.equals("");
+        if (value != null) {
+            return value.isEmpty();
+        }
+
+        // Values created from a primitive are never empty
+        return buffer != null && bufferLength == 0;
     }
 
     public Value lessThan(Value v) {
@@ -506,14 +663,14 @@ public class Value implements StyledComparable<Value> {
 
     public Value multiply(Value v) throws HtSemanticException {
         if (!isNumber() || !v.isNumber()) {
-            throw new HtSemanticException("The value '" + value + "' cannot be multiplied by '" + v + "'.");
+            throw new HtSemanticException("The value '" + stringValue() + "' cannot be multiplied by '" + v + "'.");
         }
 
         try {
             if (isInteger() && v.isInteger())
-                return new Value(Math.multiplyExact(longValue(), v.longValue()));
+                return new Value(Math.multiplyExact(longValue, v.longValue));
             else
-                return new Value(doubleValue() * v.doubleValue());
+                return new Value(floatValue * v.floatValue);
         } catch (ArithmeticException e) {
             throw new HtSemanticException("Overflow when trying to multiply " + stringValue() + " by " + v.stringValue() + ".");
         }
@@ -521,11 +678,11 @@ public class Value implements StyledComparable<Value> {
 
     public Value divide(Value v) throws HtSemanticException {
         if (!isNumber() || !v.isNumber()) {
-            throw new HtSemanticException("The value '" + value + "' cannot be divided by " + v + '.');
+            throw new HtSemanticException("The value '" + stringValue() + "' cannot be divided by " + v + '.');
         }
 
         try {
-            return new Value(doubleValue() / v.doubleValue());
+            return new Value(floatValue / v.floatValue);
         } catch (ArithmeticException e) {
             throw new HtSemanticException("Cannot divide " + stringValue() + " by zero.");
         }
@@ -533,14 +690,14 @@ public class Value implements StyledComparable<Value> {
 
     public Value add(Value v) throws HtSemanticException {
         if (!isNumber() || !v.isNumber()) {
-            throw new HtSemanticException("The value '" + v + "' cannot be added to '" + value + "'.");
+            throw new HtSemanticException("The value '" + v + "' cannot be added to '" + stringValue() + "'.");
         }
 
         try {
             if (isInteger() && v.isInteger())
-                return new Value(Math.addExact(longValue(), v.longValue()));
+                return new Value(Math.addExact(longValue, v.longValue));
             else
-                return new Value(doubleValue() + v.doubleValue());
+                return new Value(floatValue + v.floatValue);
         } catch (ArithmeticException e) {
             throw new HtSemanticException("Overflow when trying to add " + stringValue() + " to " + v.stringValue() + ".");
         }
@@ -548,14 +705,14 @@ public class Value implements StyledComparable<Value> {
 
     public Value subtract(Value v) throws HtSemanticException {
         if (!isNumber() || !v.isNumber()) {
-            throw new HtSemanticException("The value '" + v + "' cannot be subtracted from '" + value + "'.");
+            throw new HtSemanticException("The value '" + v + "' cannot be subtracted from '" + stringValue() + "'.");
         }
 
         try {
             if (isInteger() && v.isInteger())
-                return new Value(Math.subtractExact(longValue(), v.longValue()));
+                return new Value(Math.subtractExact(longValue, v.longValue));
             else
-                return new Value(doubleValue() - v.doubleValue());
+                return new Value(floatValue - v.floatValue);
         } catch (ArithmeticException e) {
             throw new HtSemanticException("Overflow when trying to subtract " + v.stringValue() + " from " + stringValue() + ".");
         }
@@ -563,7 +720,7 @@ public class Value implements StyledComparable<Value> {
 
     public Value exponentiate(Value v) throws HtSemanticException {
         if (!isNumber() || !v.isNumber()) {
-            throw new HtSemanticException("The value '" + value + "' cannot be raised to the power of '" + v + "'.");
+            throw new HtSemanticException("The value '" + stringValue() + "' cannot be raised to the power of '" + v + "'.");
         }
 
         return new Value(Math.pow(doubleValue(), v.doubleValue()));
@@ -571,7 +728,7 @@ public class Value implements StyledComparable<Value> {
 
     public Value mod(Value v) throws HtSemanticException {
         if (!isNumber() || !v.isNumber()) {
-            throw new HtSemanticException("The value '" + v + "' cannot be mod by '" + value + "'.");
+            throw new HtSemanticException("The value '" + v + "' cannot be mod by '" + stringValue() + "'.");
         }
 
         if (isInteger() && v.isInteger())
@@ -582,7 +739,7 @@ public class Value implements StyledComparable<Value> {
 
     public Value not() throws HtSemanticException {
         if (!isBoolean())
-            throw new HtSemanticException("Expected a logical value here, but got '" + value + "'.");
+            throw new HtSemanticException("Expected a logical value here, but got '" + stringValue() + "'.");
 
         return new Value(!booleanValue());
     }
@@ -593,7 +750,7 @@ public class Value implements StyledComparable<Value> {
         else if (isNumber())
             return new Value(doubleValue() * -1);
         else {
-            throw new HtSemanticException("Expected a number here, but got '" + value + "'.");
+            throw new HtSemanticException("Expected a number here, but got '" + stringValue() + "'.");
         }
     }
 
@@ -601,7 +758,7 @@ public class Value implements StyledComparable<Value> {
 
         // Allow for short circuit evaluation
         if (!isBoolean()) {
-            throw new HtSemanticException("Expected a logical value here, but got '" + value + "'.");
+            throw new HtSemanticException("Expected a logical value here, but got '" + stringValue() + "'.");
         }
 
         if (!booleanValue) {
@@ -618,7 +775,7 @@ public class Value implements StyledComparable<Value> {
     public Value or(Value v) throws HtSemanticException {
 
         if (!isBoolean()) {
-            throw new HtSemanticException("Expected a logical value here, but got '" + value + "'.");
+            throw new HtSemanticException("Expected a logical value here, but got '" + stringValue() + "'.");
         }
 
         if (booleanValue) {
@@ -633,12 +790,12 @@ public class Value implements StyledComparable<Value> {
     }
 
     public Value concat(Value v) {
-        return new Value(value + v.toString());
+        return new Value(stringValue() + v.toString());
     }
 
     public Value within(ExecutionContext context, Value v) throws HtSemanticException {
         if (!isPoint() || !v.isRect()) {
-            throw new HtSemanticException("Cannot determine if '" + value + "' is within the bounds of '" + v.stringValue() + "'.");
+            throw new HtSemanticException("Cannot determine if '" + stringValue() + "' is within the bounds of '" + v.stringValue() + "'.");
         }
 
         return new Value(v.rectangleValue(context).contains(pointValue(context)));
@@ -676,11 +833,11 @@ public class Value implements StyledComparable<Value> {
     }
 
     public boolean contains(Value v) {
-        return value.toLowerCase().contains(v.stringValue().toLowerCase());
+        return stringValue().toLowerCase().contains(v.stringValue().toLowerCase());
     }
 
     public String toString() {
-        return value;
+        return stringValue();
     }
 
     @Override
@@ -695,8 +852,8 @@ public class Value implements StyledComparable<Value> {
         } else if (isInteger() && otherValue.isInteger()) {
             // Weird special case: "" is a valid number (zero), but is not equal to 0
             // Thus, '2 * "" = 0', but '0 <> ""' -- don't believe me, try it in HyperCard!
-            if (value.equals("") || otherValue.value.equals("")) {
-                return value.equals(otherValue.value);
+            if (isEmpty() || otherValue.isEmpty()) {
+                return isEmpty() == otherValue.isEmpty();
             } else {
                 return this.integerValue() == otherValue.integerValue();
             }
@@ -709,7 +866,7 @@ public class Value implements StyledComparable<Value> {
 
     @Override
     public int hashCode() {
-        return value.hashCode();
+        return stringValue().hashCode();
     }
 
     @Override
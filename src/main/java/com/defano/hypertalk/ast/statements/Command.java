@@ -2,13 +2,13 @@ package com.defano.hypertalk.ast.statements;
 
 import com.defano.hypertalk.ast.preemptions.Preemption;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
-import com.defano.wyldcard.runtime.interpreter.MessageCompletionObserver;
 import com.defano.hypertalk.ast.expressions.ListExp;
 import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.exception.HtSemanticException;
 import org.antlr.v4.runtime.ParserRuleContext;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Represents a HyperTalk command statement. HyperTalk commands are somewhat unusual in that their execution causes
@@ -18,12 +18,13 @@ import java.util.concurrent.CountDownLatch;
  * This base class provides logic for sending the command's name to the current card hierarchy and invoking the
  * subclass's implementation of the command ({@link Statement#onExecute(ExecutionContext)}) if and only if the command was not trapped by the
  * card.
+ *
+ * Compiled statements may be executed concurrently (by several threads, or by several parts sharing the same compiled
+ * script), so the trap state of each execution is kept local to that execution.
  */
-public abstract class Command extends Statement implements MessageCompletionObserver {
+public abstract class Command extends Statement {
 
     private final String messageName;
-    private boolean trapped = false;
-    private CountDownLatch cdl = new CountDownLatch(1);
 
     protected Command(ParserRuleContext context, String messageName) {
         super(context);
@@ -32,10 +33,14 @@ public abstract class Command extends Statement implements MessageCompletionObse
 
     @Override
     public final void execute(ExecutionContext context) throws HtException, Preemption {
-        cdl = new CountDownLatch(1);
+        CountDownLatch cdl = new CountDownLatch(1);
+        AtomicBoolean trapped = new AtomicBoolean(false);
 
         // Send command message to current card
-        context.getCurrentCard().getPartModel().receiveMessage(context, messageName, getEvaluatedMessageArguments(context), this);
+        context.getCurrentCard().getPartModel().receiveMessage(context, messageName, getEvaluatedMessageArguments(context), (message, wasTrapped, err) -> {
+            trapped.set(wasTrapped);
+            cdl.countDown();
+        });
 
         // Wait for command handler to finish executing
         try {
@@ -45,7 +50,7 @@ public abstract class Command extends Statement implements MessageCompletionObse
         }
 
         // Do not execute this command if handler trapped the message
-        if (!trapped) {
+        if (!trapped.get()) {
             try {
                 handleBreakpoints(context);
                 onExecute(context);
@@ -66,11 +71,4 @@ public abstract class Command extends Statement implements MessageCompletionObse
     protected ListExp getEvaluatedMessageArguments(ExecutionContext context) throws HtException {
         return new ListExp(null);
     }
-
-    /** {@inheritDoc */
-    @Override
-    public void onMessagePassed(String message, boolean wasTrapped, HtException err) {
-        this.trapped = wasTrapped;
-        cdl.countDown();
-    }
 }
@@ -165,12 +165,12 @@ public class GoCmd extends Command {
         else if (model instanceof BackgroundModel) {
             destinationStack = ((BackgroundModel) model).getStackModel();
             destinationIndex = destinationStack.getIndexOfBackground(model.getId(context));
-            return new Destination(destinationStack, destinationStack.getCardModels().get(destinationIndex).getId(context));
+            return new Destination(destinationStack, destinationStack.getCardId(destinationIndex));
         }
 
         // Part is the stack itself
         else if (model instanceof StackModel) {
-            return new Destination((StackModel) model, ((StackModel) model).getCardModels().get(((StackModel) model).getCurrentCardIndex()).getId(context));
+            return new Destination((StackModel) model, ((StackModel) model).getCardId(((StackModel) model).getCurrentCardIndex()));
         }
 
         // Part model was null or otherwise can't resolve destination
@@ -14,7 +14,7 @@ public class MessageCmd extends Statement {
 
     private final String message;
     private final ListExp messageArgs;
-    private PartExp messageRecipient;
+    private final PartExp messageRecipient;
 
     public MessageCmd(ParserRuleContext context, PartExp messageRecipient, String message, ListExp messageArgs) {
         super(context);
@@ -52,7 +52,14 @@ public class MessageCmd extends Statement {
         }
     }
 
-    public void setMessageRecipient(PartExp messageRecipient) {
-        this.messageRecipient = messageRecipient;
+    /**
+     * Produces a copy of this command that sends its message to the given recipient. Compiled statements may be shared
+     * (see {@link com.defano.wyldcard.runtime.interpreter.ScriptCache}) and are therefore never modified in place.
+     *
+     * @param messageRecipient The part to which the message should be sent
+     * @return A new MessageCmd
+     */
+    public MessageCmd withRecipient(PartExp messageRecipient) {
+        return new MessageCmd(getParserContext(), messageRecipient, message, messageArgs);
     }
 }
@@ -25,8 +25,8 @@ import org.antlr.v4.runtime.ParserRuleContext;
 
 public class SelectCmd extends Command {
 
-    private Preposition preposition;
-    private Expression expression;
+    private final Preposition preposition;
+    private final Expression expression;
 
     public SelectCmd(ParserRuleContext context, Expression expression) {
         this(context, null, expression);
@@ -46,8 +46,7 @@ public class SelectCmd extends Command {
         if (preposition == null && chunk == null) {
             selectPart(context);
         } else {
-            preposition = preposition == null ? Preposition.INTO : preposition;
-            selectText(context, containerExp, preposition, chunk);
+            selectText(context, containerExp, preposition == null ? Preposition.INTO : preposition, chunk);
         }
     }
 
@@ -32,8 +32,7 @@ public class SendCmd extends Command {
             throw new HtSemanticException("Not a valid message.");
         }
 
-        messageCmd.setMessageRecipient(recipient);
-        messageCmd.execute(context);
+        messageCmd.withRecipient(recipient).execute(context);
     }
 
     private MessageCmd interpretMessage(String message) {
@@ -3,10 +3,15 @@ package com.defano.hypertalk.ast.statements.commands;
 import com.defano.wyldcard.WyldCard;
 import com.defano.wyldcard.parts.bkgnd.BackgroundModel;
 import com.defano.wyldcard.parts.card.CardModel;
+import com.defano.hypertalk.ast.model.Owner;
+import com.defano.hypertalk.ast.model.PartType;
 import com.defano.hypertalk.ast.model.SortDirection;
 import com.defano.hypertalk.ast.expressions.Expression;
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.hypertalk.ast.model.specifiers.PartIdSpecifier;
+import com.defano.hypertalk.ast.model.specifiers.PartSpecifier;
 import com.defano.hypertalk.ast.statements.Command;
-import com.defano.hypertalk.comparator.CardExpressionComparator;
+import com.defano.hypertalk.comparator.SortKey;
 import com.defano.hypertalk.ast.model.SortStyle;
 import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.exception.HtSemanticException;
@@ -53,7 +58,7 @@ public class SortCardsCmd extends Command {
 
         // Sort the indicated cards
         try {
-            sortCards.sort(new CardExpressionComparator(context, expression, style, direction));
+            sortCards = SortKey.sort(sortCards, evaluateSortKeys(context, sortCards), style, direction);
 
             // Insert the sorted cards back into the full stack
             List<CardModel> orderedCards = mergeCards(context, allCards, sortCards);
@@ -72,6 +77,36 @@ public class SortCardsCmd extends Command {
         }
     }
 
+    /**
+     * Evaluates the sort expression once for each card, in the context of that card. Cards are evaluated from their
+     * models; a (skeleton) view of a card is created only if the expression requires one.
+     *
+     * @param context The execution context
+     * @param cards   The cards to be sorted
+     * @return The sort key of each card, in the same order as the given list of cards
+     * @throws HtUncheckedSemanticException Thrown if an error occurs evaluating the sort expression
+     */
+    private List<Value> evaluateSortKeys(ExecutionContext context, List<CardModel> cards) {
+        List<Value> keys = new ArrayList<>(cards.size());
+        PartSpecifier originalMe = context.getStackFrame().getMe();
+
+        try {
+            for (CardModel thisCard : cards) {
+                context.setCurrentCardModel(thisCard);
+                context.getStackFrame().setMe(new PartIdSpecifier(Owner.STACK, PartType.CARD, thisCard.getId(context)));
+                keys.add(expression.evaluate(context));
+            }
+        } catch (HtException e) {
+            throw new HtUncheckedSemanticException(e);
+        } finally {
+            // Stop overriding card context in this thread
+            context.setCurrentCardModel(null);
+            context.getStackFrame().setMe(originalMe);
+        }
+
+        return keys;
+    }
+
     private List<CardModel> filterCards(ExecutionContext context, List<CardModel> cards) throws HtException {
         ArrayList<CardModel> filteredCards = new ArrayList<>();
 
@@ -6,15 +6,15 @@ import com.defano.hypertalk.ast.model.Preposition;
 import com.defano.hypertalk.ast.expressions.containers.ContainerExp;
 import com.defano.hypertalk.ast.expressions.Expression;
 import com.defano.hypertalk.ast.statements.Command;
-import com.defano.hypertalk.comparator.ExpressionValueComparator;
 import com.defano.hypertalk.ast.model.SortStyle;
-import com.defano.hypertalk.comparator.ValueComparator;
+import com.defano.hypertalk.comparator.SortKey;
 import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.ast.model.ChunkType;
 import com.defano.hypertalk.exception.HtSemanticException;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import org.antlr.v4.runtime.ParserRuleContext;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class SortCmd extends Command {
@@ -43,17 +43,29 @@ public class SortCmd extends Command {
         ContainerExp factor = container.factor(context, ContainerExp.class, new HtSemanticException("Can't sort that."));
         List<Value> items = getItemsToSort(context, factor);
 
-        // Sort by direction
-        if (expression == null) {
-            items.sort(new ValueComparator(direction, sortStyle));
-        }
+        // Sort by direction (each item is its own key), or by expression
+        List<Value> keys = expression == null ? items : evaluateSortKeys(context, items);
+
+        putSortedItems(context, factor, SortKey.sort(items, keys, sortStyle, direction));
+    }
 
-        // Sort by expression
-        else {
-            items.sort(new ExpressionValueComparator(context, expression, direction, sortStyle));
+    /**
+     * Evaluates the sort expression once for each item, with the item bound to the variable 'each'.
+     *
+     * @param context The execution context
+     * @param items   The items to be sorted
+     * @return The sort key of each item, in the same order as the given list of items
+     * @throws HtException Thrown if an error occurs evaluating the sort expression
+     */
+    private List<Value> evaluateSortKeys(ExecutionContext context, List<Value> items) throws HtException {
+        List<Value> keys = new ArrayList<>(items.size());
+
+        for (Value thisItem : items) {
+            context.setVariable("each", thisItem);
+            keys.add(expression.evaluate(context));
         }
 
-        putSortedItems(context, factor, items);
+        return keys;
     }
 
     private void putSortedItems(ExecutionContext context, ContainerExp container, List<Value> sortedItems) throws HtException {
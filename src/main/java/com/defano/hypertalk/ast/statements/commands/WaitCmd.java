@@ -6,6 +6,7 @@ import com.defano.hypertalk.ast.statements.Command;
 import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.ast.model.TimeUnit;
 import com.defano.hypertalk.exception.HtSemanticException;
+import com.defano.wyldcard.runtime.ConditionMonitor;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import org.antlr.v4.runtime.ParserRuleContext;
 
@@ -49,11 +50,24 @@ public class WaitCmd extends Command {
         }
 
         else {
-            while (expression.evaluate(context).booleanValue() != polarity) {
+            ConditionMonitor monitor = ConditionMonitor.getInstance();
+
+            // Re-evaluate the condition only when something it may depend on has changed
+            while (true) {
+                long evaluation = monitor.beginEvaluation();
+                if (expression.evaluate(context).booleanValue() == polarity) {
+                    break;
+                }
+
+                if (context.didAbort()) {
+                    throw new HtSemanticException("Script aborted.");
+                }
+
                 try {
-                    Thread.sleep(10);
+                    monitor.awaitChange(evaluation);
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
+                    break;
                 }
             }
         }
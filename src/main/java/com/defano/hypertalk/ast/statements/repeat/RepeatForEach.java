@@ -0,0 +1,21 @@
+package com.defano.hypertalk.ast.statements.repeat;
+
+import com.defano.hypertalk.ast.expressions.Expression;
+import com.defano.hypertalk.ast.model.ChunkType;
+import com.defano.wyldcard.runtime.symbol.SymbolReference;
+
+/**
+ * Specifies a loop iterating over each chunk of a container, i.e., 'repeat for each line thisLine in field 1'.
+ */
+public class RepeatForEach extends RepeatSpecifier {
+
+    public final ChunkType chunkType;
+    public final SymbolReference symbol;
+    public final Expression container;
+
+    public RepeatForEach(ChunkType chunkType, SymbolReference symbol, Expression container) {
+        this.chunkType = chunkType;
+        this.symbol = symbol;
+        this.container = container;
+    }
+}
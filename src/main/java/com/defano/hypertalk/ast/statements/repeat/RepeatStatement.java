@@ -8,7 +8,9 @@ import com.defano.hypertalk.ast.statements.Statement;
 import com.defano.hypertalk.ast.statements.StatementList;
 import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.exception.HtSemanticException;
+import com.defano.hypertalk.utils.ChunkScanner;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
+import com.defano.wyldcard.runtime.symbol.SymbolReference;
 import org.antlr.v4.runtime.ParserRuleContext;
 
 import java.util.ArrayList;
@@ -37,6 +39,8 @@ public class RepeatStatement extends Statement {
                 executeRepeatDuration(context);
             } else if (range instanceof RepeatWith) {
                 executeRepeatWith(context);
+            } else if (range instanceof RepeatForEach) {
+                executeRepeatForEach(context);
             } else {
                 throw new IllegalStateException("Bug! Unknown repeat type.");
             }
@@ -56,7 +60,7 @@ public class RepeatStatement extends Statement {
 
     private void executeRepeatWith(ExecutionContext context) throws HtException, Preemption {
         RepeatWith with = (RepeatWith) range;
-        String symbol = with.symbol;
+        SymbolReference symbol = with.symbol;
         RepeatRange range = with.range;
 
         Value fromValue = range.from.evaluate(context);
@@ -92,6 +96,20 @@ public class RepeatStatement extends Statement {
         }
     }
 
+    private void executeRepeatForEach(ExecutionContext context) throws HtException, Preemption {
+        RepeatForEach forEach = (RepeatForEach) range;
+
+        // Container is evaluated once; changes made to it inside the loop do not affect iteration
+        String container = forEach.container.evaluate(context).stringValue();
+
+        // Walk the container with a single forward cursor rather than locating each chunk from the start
+        ChunkScanner chunks = ChunkScanner.of(context, forEach.chunkType, container);
+        while (chunks.next()) {
+            context.setVariable(forEach.symbol, new Value(chunks.chunk()));
+            iterate(context);
+        }
+    }
+
     private void executeRepeatDuration(ExecutionContext context) throws HtException, Preemption {
         RepeatDuration duration = (RepeatDuration) range;
 
@@ -1,11 +1,13 @@
 package com.defano.hypertalk.ast.statements.repeat;
 
+import com.defano.wyldcard.runtime.symbol.SymbolReference;
+
 public class RepeatWith extends RepeatSpecifier {
 
-    public final String symbol;
+    public final SymbolReference symbol;
     public final RepeatRange range;
     
-    public RepeatWith (String symbol, RepeatRange range) {
+    public RepeatWith (SymbolReference symbol, RepeatRange range) {
         this.symbol = symbol;
         this.range = range;
     }
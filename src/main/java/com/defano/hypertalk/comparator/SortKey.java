@@ -0,0 +1,131 @@
+package com.defano.hypertalk.comparator;
+
+import com.defano.hypertalk.ast.model.SortDirection;
+import com.defano.hypertalk.ast.model.SortStyle;
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.hypertalk.utils.DateUtils;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.*;
+
+/**
+ * An element to be sorted, decorated with a sort key that has been converted ahead of time into the form compared by
+ * the requested sort style (a number, a date, a string or a locale-specific collation key). This allows a list to be
+ * sorted without evaluating, parsing or coercing any value more than once per element.
+ *
+ * @param <T> The type of element being sorted
+ */
+public class SortKey<T> {
+
+    private final T element;
+    private final double number;
+    private final Date date;
+    private final String text;
+    private final CollationKey collationKey;
+
+    private SortKey(T element, double number, Date date, String text, CollationKey collationKey) {
+        this.element = element;
+        this.number = number;
+        this.date = date;
+        this.text = text;
+        this.collationKey = collationKey;
+    }
+
+    /**
+     * Produces a list of sort keys, one per element, by converting each element's key value into the form compared by
+     * the given sort style.
+     *
+     * @param elements The elements to be sorted
+     * @param keys     The value by which each element should be sorted; in the same order as the elements
+     * @param style    The sort style
+     * @param <T>      The type of element being sorted
+     * @return A list of sort keys
+     */
+    private static <T> List<SortKey<T>> of(List<T> elements, List<Value> keys, SortStyle style) {
+        List<SortKey<T>> sortKeys = new ArrayList<>(elements.size());
+        Collator collator = style == SortStyle.INTERNATIONAL ? Collator.getInstance() : null;
+
+        for (int index = 0; index < elements.size(); index++) {
+            T element = elements.get(index);
+            Value key = keys.get(index);
+
+            switch (style) {
+                case TEXT:
+                    sortKeys.add(new SortKey<>(element, 0, null, key.stringValue(), null));
+                    break;
+                case INTERNATIONAL:
+                    sortKeys.add(new SortKey<>(element, 0, null, null, collator.getCollationKey(key.stringValue())));
+                    break;
+                case NUMERIC:
+                    sortKeys.add(new SortKey<>(element, key.doubleValue(), null, null, null));
+                    break;
+                case DATE_TIME:
+                    sortKeys.add(new SortKey<>(element, 0, DateUtils.dateOf(key), null, null));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Bug! Unimplemented comparison style.");
+            }
+        }
+
+        return sortKeys;
+    }
+
+    /**
+     * Sorts a list of elements by the given keys. The sort is stable (elements with equal keys retain their relative
+     * order) and large lists are sorted in parallel.
+     *
+     * @param elements  The elements to be sorted
+     * @param keys      The value by which each element should be sorted; in the same order as the elements
+     * @param style     The sort style
+     * @param direction The sort direction
+     * @param <T>       The type of element being sorted
+     * @return A new list containing the sorted elements
+     */
+    public static <T> List<T> sort(List<T> elements, List<Value> keys, SortStyle style, SortDirection direction) {
+        @SuppressWarnings("unchecked")
+        SortKey<T>[] sortKeys = of(elements, keys, style).toArray(new SortKey[0]);
+
+        // Arrays.parallelSort is stable, and sorts small arrays sequentially
+        Arrays.parallelSort(sortKeys, comparator(style, direction));
+
+        List<T> sorted = new ArrayList<>(sortKeys.length);
+        for (SortKey<T> thisKey : sortKeys) {
+            sorted.add(thisKey.element);
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Gets a comparator of sort keys produced for the given sort style.
+     *
+     * @param style     The sort style with which the keys were produced
+     * @param direction The sort direction
+     * @param <T>       The type of element being sorted
+     * @return A comparator of sort keys
+     */
+    private static <T> Comparator<SortKey<T>> comparator(SortStyle style, SortDirection direction) {
+        Comparator<SortKey<T>> comparator;
+
+        switch (style) {
+            case TEXT:
+                comparator = (o1, o2) -> o1.text.compareTo(o2.text);
+                break;
+            case INTERNATIONAL:
+                comparator = (o1, o2) -> o1.collationKey.compareTo(o2.collationKey);
+                break;
+            case NUMERIC:
+                comparator = (o1, o2) -> Double.compare(o1.number, o2.number);
+                break;
+            case DATE_TIME:
+                // Values that aren't dates sort after those that are, in either direction
+                Comparator<Date> dates = direction == SortDirection.ASCENDING ? Comparator.naturalOrder() : Comparator.reverseOrder();
+                return Comparator.comparing(key -> key.date, Comparator.nullsLast(dates));
+            default:
+                throw new IllegalArgumentException("Bug! Unimplemented comparison style.");
+        }
+
+        return direction == SortDirection.ASCENDING ? comparator : comparator.reversed();
+    }
+}
@@ -0,0 +1,144 @@
+package com.defano.hypertalk.utils;
+
+import com.defano.hypertalk.ast.model.ChunkType;
+import com.defano.hypertalk.ast.model.Ordinal;
+import com.defano.wyldcard.runtime.context.ExecutionContext;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An immutable index of the boundaries of every chunk of a given type (chars, words, lines or items) in a string.
+ * <p>
+ * Building the index requires a single scan of the string; thereafter, the number of chunks and the range of any
+ * chunk are available in constant time. A {@link com.defano.hypertalk.ast.model.Value} lazily builds and retains an
+ * index for each chunk type requested of it, so that iterating over the lines (or items) of a value does not rescan
+ * the value from its beginning for each chunk.
+ */
+public class ChunkIndex {
+
+    private final ChunkType chunkType;
+    private final String itemDelimiter;
+    private final int length;
+    private final int[] starts;
+    private final int[] ends;
+
+    private ChunkIndex(ChunkType chunkType, String itemDelimiter, int length, int[] starts, int[] ends) {
+        this.chunkType = chunkType;
+        this.itemDelimiter = itemDelimiter;
+        this.length = length;
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * Indexes the chunks of the given type in a string.
+     *
+     * @param context   The execution context (items are delimited by the context's itemDelimiter property).
+     * @param chunkType The type of chunk to index; range chunk types index the same boundaries as their singular form.
+     * @param value     The string to index
+     * @return The index of chunks in the value.
+     */
+    public static ChunkIndex of(ExecutionContext context, ChunkType chunkType, String value) {
+        ChunkType type = singularOf(chunkType);
+        String itemDelimiter = type == ChunkType.ITEM ? ChunkUtils.getItemDelimiter(context) : null;
+
+        ChunkScanner scanner = new ChunkScanner(value, type, itemDelimiter);
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        int count = 0;
+
+        while (scanner.next()) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+
+            starts[count] = scanner.start();
+            ends[count] = scanner.end();
+            count++;
+        }
+
+        return new ChunkIndex(type, itemDelimiter, value.length(), Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+    }
+
+    /**
+     * Determines if this index describes the chunks of the given type under the given context. Indices of items are
+     * valid only while the itemDelimiter property is unchanged.
+     *
+     * @param context   The execution context
+     * @param chunkType The type of chunk
+     * @return True if this index may be used to locate chunks of the given type.
+     */
+    public boolean isIndexOf(ExecutionContext context, ChunkType chunkType) {
+        return chunkType == this.chunkType &&
+                (itemDelimiter == null || itemDelimiter.equals(ChunkUtils.getItemDelimiter(context)));
+    }
+
+    /**
+     * Gets the number of chunks in the indexed string.
+     *
+     * @return The number of chunks
+     */
+    public int getCount() {
+        return starts.length;
+    }
+
+    /**
+     * Gets the range of characters of the requested chunk.
+     *
+     * @param count The chunk number, counting from 1, or a reserved {@link Ordinal} value (last, middle or any).
+     * @return The range of the chunk or an empty range at the end of the string if no such chunk exists.
+     */
+    public Range getRange(int count) {
+        int index;
+
+        if (count == Ordinal.LAST.intValue()) {
+            index = starts.length - 1;
+        } else if (count == Ordinal.MIDDLE.intValue()) {
+            index = starts.length / 2;
+        } else if (count == Ordinal.ANY.intValue() && starts.length > 0) {
+            index = new Random().nextInt(starts.length);
+        } else {
+            index = count - 1;
+        }
+
+        if (index < 0 || index >= starts.length) {
+            return new Range(length, length);
+        } else {
+            return new Range(starts[index], ends[index]);
+        }
+    }
+
+    /**
+     * Gets the range of characters spanning a range of chunks.
+     *
+     * @param start The first chunk number, counting from 1, inclusive.
+     * @param end   The last chunk number, counting from 1, inclusive.
+     * @return The range of characters spanned by the chunks.
+     */
+    public Range getRange(int start, int end) {
+        return new Range(getRange(start).start, getRange(end).end);
+    }
+
+    /**
+     * Gets the singular form of a chunk type; i.e., {@link ChunkType#LINE} for {@link ChunkType#LINERANGE}.
+     *
+     * @param chunkType The chunk type
+     * @return The singular chunk type
+     */
+    public static ChunkType singularOf(ChunkType chunkType) {
+        switch (chunkType) {
+            case CHARRANGE:
+                return ChunkType.CHAR;
+            case WORDRANGE:
+                return ChunkType.WORD;
+            case LINERANGE:
+                return ChunkType.LINE;
+            case ITEMRANGE:
+                return ChunkType.ITEM;
+            default:
+                return chunkType;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.defano.hypertalk.utils;
+
+import com.defano.hypertalk.ast.model.ChunkType;
+import com.defano.wyldcard.runtime.context.ExecutionContext;
+
+import java.util.regex.Matcher;
+
+/**
+ * A forward-only cursor over the chunks (chars, words, lines or items) of a string.
+ * <p>
+ * The scanner locates chunk boundaries by examining characters directly; it does not use regular expressions and
+ * allocates nothing per chunk. Chunk boundaries are identical to those matched by the patterns returned by
+ * {@link ChunkUtils#getRegexForChunkType(ExecutionContext, ChunkType)}:
+ * <ul>
+ * <li>A char is a single Unicode code point (a surrogate pair is one char).</li>
+ * <li>A word is a run of characters other than space, tab, newline, vertical tab, form feed and carriage return.</li>
+ * <li>A line is the text between line terminators ('\n', '\r', "\r\n", '\u0085', '\u2028' or '\u2029'); a
+ * terminator at the very end of the string does not begin another line.</li>
+ * <li>An item is the text between item delimiters. Empty items are produced at the start of the string (when it
+ * begins with a delimiter), between adjacent delimiters and at the end of the string (when it ends with a delimiter,
+ * optionally followed by a single line terminator).</li>
+ * </ul>
+ * Items delimited by a multi-character itemDelimiter are matched with the item regex, as before.
+ */
+public class ChunkScanner {
+
+    private final String value;
+    private final int length;
+    private final ChunkType chunkType;
+    private final char delimiter;
+    private final Matcher matcher;
+
+    private int position;
+    private int start = -1;
+    private int end = -1;
+
+    /**
+     * Creates a scanner over the chunks of the given type in a string.
+     *
+     * @param value         The string to scan
+     * @param chunkType     The type of chunk; range chunk types scan the same chunks as their singular form.
+     * @param itemDelimiter The item delimiter (required only when scanning items).
+     */
+    public ChunkScanner(String value, ChunkType chunkType, String itemDelimiter) {
+        this.value = value;
+        this.length = value.length();
+        this.chunkType = ChunkIndex.singularOf(chunkType);
+
+        if (this.chunkType == ChunkType.ITEM && itemDelimiter.length() != 1) {
+            this.delimiter = 0;
+            this.matcher = ChunkUtils.getItemRegex(itemDelimiter).matcher(value);
+        } else {
+            this.delimiter = this.chunkType == ChunkType.ITEM ? itemDelimiter.charAt(0) : 0;
+            this.matcher = null;
+        }
+    }
+
+    /**
+     * Creates a scanner over the chunks of the given type in a string, delimiting items with the context's current
+     * itemDelimiter.
+     *
+     * @param context   The execution context
+     * @param chunkType The type of chunk to scan
+     * @param value     The string to scan
+     * @return A scanner positioned before the first chunk
+     */
+    public static ChunkScanner of(ExecutionContext context, ChunkType chunkType, String value) {
+        boolean isItem = ChunkIndex.singularOf(chunkType) == ChunkType.ITEM;
+        return new ChunkScanner(value, chunkType, isItem ? ChunkUtils.getItemDelimiter(context) : null);
+    }
+
+    /**
+     * Advances to the next chunk.
+     *
+     * @return True if another chunk was found; false if no chunks remain.
+     */
+    public boolean next() {
+        switch (chunkType) {
+            case CHAR:
+                return nextChar();
+            case WORD:
+                return nextWord();
+            case LINE:
+                return nextLine();
+            case ITEM:
+                return matcher == null ? nextItem() : nextMatch();
+            default:
+                throw new IllegalStateException("Bug! Unhandled chunk type: " + chunkType);
+        }
+    }
+
+    /**
+     * Gets the index of the first character of the current chunk.
+     *
+     * @return The start of the current chunk, inclusive
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Gets the index following the last character of the current chunk.
+     *
+     * @return The end of the current chunk, exclusive
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * Gets the text of the current chunk.
+     *
+     * @return The current chunk
+     */
+    public String chunk() {
+        return value.substring(start, end);
+    }
+
+    private boolean nextChar() {
+        if (position >= length) {
+            return false;
+        }
+
+        start = position;
+        end = position + Character.charCount(value.codePointAt(position));
+        position = end;
+        return true;
+    }
+
+    private boolean nextWord() {
+        while (position < length && isWhitespace(value.charAt(position))) {
+            position++;
+        }
+
+        if (position >= length) {
+            return false;
+        }
+
+        start = position;
+        while (position < length && !isWhitespace(value.charAt(position))) {
+            position++;
+        }
+        end = position;
+        return true;
+    }
+
+    private boolean nextLine() {
+        if (position >= length) {
+            return false;
+        }
+
+        start = position;
+        while (position < length && !isLineTerminator(value.charAt(position))) {
+            position++;
+        }
+        end = position;
+
+        // Skip the terminator; "\r\n" is a single terminator
+        if (position < length) {
+            boolean isCrLf = value.charAt(position) == '\r' && position + 1 < length && value.charAt(position + 1) == '\n';
+            position += isCrLf ? 2 : 1;
+        }
+
+        return true;
+    }
+
+    private boolean nextItem() {
+        while (position <= length) {
+            int p = position;
+            boolean followsDelimiter = p > 0 && value.charAt(p - 1) == delimiter;
+
+            // Empty item at the start, between two delimiters, or following a trailing delimiter
+            if ((p == 0 && length > 0 && value.charAt(0) == delimiter) ||
+                    (followsDelimiter && (isEndOfInput(p) || value.charAt(p) == delimiter)))
+            {
+                start = end = p;
+                position = p + 1;
+                return true;
+            }
+
+            // Non-empty item
+            if (p < length && value.charAt(p) != delimiter) {
+                start = p;
+                while (position < length && value.charAt(position) != delimiter) {
+                    position++;
+                }
+                end = position;
+                return true;
+            }
+
+            position++;
+        }
+
+        return false;
+    }
+
+    private boolean nextMatch() {
+        if (matcher.find()) {
+            start = matcher.start();
+            end = matcher.end();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines if the given position is the end of the input, or precedes a single line terminator ending the input
+     * (where the regex end-of-input anchor, '$', matches).
+     */
+    private boolean isEndOfInput(int p) {
+        if (p == length) {
+            return true;
+        } else if (p == length - 2) {
+            return value.charAt(p) == '\r' && value.charAt(p + 1) == '\n';
+        } else if (p == length - 1) {
+            char ch = value.charAt(p);
+            return ch == '\n' ? p == 0 || value.charAt(p - 1) != '\r' : isLineTerminator(ch);
+        }
+
+        return false;
+    }
+
+    private static boolean isWhitespace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000B' || ch == '\f' || ch == '\r';
+    }
+
+    private static boolean isLineTerminator(char ch) {
+        return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+    }
+}
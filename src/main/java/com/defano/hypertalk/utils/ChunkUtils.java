@@ -11,7 +11,8 @@ import com.defano.wyldcard.runtime.context.ExecutionContext;
 import com.google.common.collect.Lists;
 
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 public class ChunkUtils {
@@ -19,6 +20,7 @@ public class ChunkUtils {
     private final static Pattern CHAR_REGEX = Pattern.compile("[\\s\\S]");
     private final static Pattern WORD_REGEX = Pattern.compile("\\S+");
     private final static Pattern LINE_REGEX = Pattern.compile("(?m)^.*$");
+    private final static Map<String, Pattern> ITEM_REGEXES = new ConcurrentHashMap<>();
 
     /**
      * Gets a chunk of a value. For example, 'the last line of x'
@@ -35,12 +37,27 @@ public class ChunkUtils {
      * @return The requested chunk.
      */
     public static String getChunk(ExecutionContext context, ChunkType c, String value, int chunkNumber, int endChunkNumber) {
+        return getChunk(c, value, ChunkIndex.of(context, c, value), chunkNumber, endChunkNumber);
+    }
+
+    /**
+     * Gets a chunk of a value using a previously built index of the value's chunks. See
+     * {@link com.defano.hypertalk.ast.model.Value#getChunkIndex(ExecutionContext, ChunkType)}.
+     *
+     * @param c              The type of chunk; character, item, word, line or range thereof.
+     * @param value          The value whose chunk is being queried
+     * @param index          An index of the chunks of type c in value
+     * @param chunkNumber    The number of the requested chunk, or the first requested chunk in a range.
+     * @param endChunkNumber Ignored in single-chunk queries; the last requested chunk in a range-chunk query.
+     * @return The requested chunk.
+     */
+    public static String getChunk(ChunkType c, String value, ChunkIndex index, int chunkNumber, int endChunkNumber) {
         Range range;
 
         if (c.isRange()) {
-            range = RangeUtils.getRange(context, value, c, chunkNumber, endChunkNumber);
+            range = index.getRange(chunkNumber, endChunkNumber);
         } else {
-            range = RangeUtils.getRange(context, value, c, chunkNumber);
+            range = index.getRange(chunkNumber);
         }
 
         return value.substring(range.start, range.end);
@@ -134,13 +151,21 @@ public class ChunkUtils {
      * @return The number of found chunks
      */
     public static int getCount(ExecutionContext context, ChunkType chunkType, String value) {
-        Pattern pattern = getRegexForChunkType(context, chunkType);
-        Matcher matcher = pattern.matcher(value);
-        return getMatchCount(matcher);
+        ChunkScanner scanner = ChunkScanner.of(context, chunkType, value);
+        int count = 0;
+
+        while (scanner.next()) {
+            count++;
+        }
+
+        return count;
     }
 
     /**
      * Gets a regular expression useful in matching tokens of the given ChunkType.
+     * <p>
+     * Chunk operations in this class do not use these expressions; they locate chunks with a {@link ChunkScanner},
+     * which produces identical matches.
      *
      *
      * @param context The execution context.
@@ -161,26 +186,39 @@ public class ChunkUtils {
                 return LINE_REGEX;
             case ITEM:
             case ITEMRANGE:
-                String itemDelimiterRegex = getItemDelimiterRegex(context);
-                StringBuilder patternBuilder = new StringBuilder();
+                return getItemRegex(getItemDelimiter(context));
 
-                // Match empty item in first position (i.e., ",2,3" -- item 3 is '3')
-                patternBuilder.append("^(?=").append(itemDelimiterRegex).append(")|");
+            default:
+                throw new RuntimeException("Bug! Not implemented: " + chunkType);
+        }
+    }
+
+    /**
+     * Gets a regular expression matching items separated by the given delimiter. Expressions are compiled once per
+     * distinct delimiter.
+     *
+     * @param itemDelimiter The item delimiter
+     * @return The regex matching items
+     */
+    static Pattern getItemRegex(String itemDelimiter) {
+        return ITEM_REGEXES.computeIfAbsent(itemDelimiter, delimiter -> {
+            String itemDelimiterRegex = getItemDelimiterRegex(delimiter);
+            StringBuilder patternBuilder = new StringBuilder();
 
-                // Match empty item in last position (i.e., "1,2,3," -- item 4 is '')
-                patternBuilder.append("(?<=").append(itemDelimiterRegex).append(")$|");
+            // Match empty item in first position (i.e., ",2,3" -- item 3 is '3')
+            patternBuilder.append("^(?=").append(itemDelimiterRegex).append(")|");
 
-                // Match empty item mid-list (i.e., "1,,2,3" -- item 2 is '')
-                patternBuilder.append("(?<=").append(itemDelimiterRegex).append(")(?=").append(itemDelimiterRegex).append(")|");
+            // Match empty item in last position (i.e., "1,2,3," -- item 4 is '')
+            patternBuilder.append("(?<=").append(itemDelimiterRegex).append(")$|");
 
-                // Normal case: Match all non-delimiter characters between delimiters (i.e., "1,2,3" -- item 2 is '2')
-                patternBuilder.append("[^").append(itemDelimiterRegex).append("]+");
+            // Match empty item mid-list (i.e., "1,,2,3" -- item 2 is '')
+            patternBuilder.append("(?<=").append(itemDelimiterRegex).append(")(?=").append(itemDelimiterRegex).append(")|");
 
-                return Pattern.compile(patternBuilder.toString());
+            // Normal case: Match all non-delimiter characters between delimiters (i.e., "1,2,3" -- item 2 is '2')
+            patternBuilder.append("[^").append(itemDelimiterRegex).append("]+");
 
-            default:
-                throw new RuntimeException("Bug! Not implemented: " + chunkType);
-        }
+            return Pattern.compile(patternBuilder.toString());
+        });
     }
 
     /**
@@ -188,12 +226,11 @@ public class ChunkUtils {
      * by pre-pending special characters with an escape '\'.
      *
      * @return A valid regular expression matching strings that are equal to item delimiter string literal.
-     * @param context The execution context.
+     * @param itemDelimiter The item delimiter.
      */
-    private static String getItemDelimiterRegex(ExecutionContext context) {
+    private static String getItemDelimiterRegex(String itemDelimiter) {
         List<Character> specialChars = Lists.charactersOf("[\\^$.|?*+()");
 
-        String itemDelimiter = HyperCardProperties.getInstance().getKnownProperty(context, HyperCardProperties.PROP_ITEMDELIMITER).stringValue();
         StringBuilder itemDelimiterRegex = new StringBuilder();
 
         for (char thisChar : itemDelimiter.toCharArray()) {
@@ -207,6 +244,16 @@ public class ChunkUtils {
         return itemDelimiterRegex.toString();
     }
 
+    /**
+     * Gets the current value of the itemDelimiter property.
+     *
+     * @param context The execution context.
+     * @return The string delimiting items
+     */
+    static String getItemDelimiter(ExecutionContext context) {
+        return HyperCardProperties.getInstance().getKnownProperty(context, HyperCardProperties.PROP_ITEMDELIMITER).stringValue();
+    }
+
     /**
      * When mutating a chunk, this method determines the "separator" that should be inserted between chunks. For
      * example, a single space between words.
@@ -235,22 +282,6 @@ public class ChunkUtils {
         }
     }
 
-    /**
-     * Returns the number of pattern matches present in the given reg-ex matcher. Note that this is not the same
-     * as the group count and cannot be retrieved with match.groupCount().
-     *
-     * @param matcher The regex matcher to count.
-     * @return
-     */
-    static int getMatchCount(Matcher matcher) {
-        int matchCount = 0;
-        while (matcher.find()) {
-            matchCount++;
-        }
-        matcher.reset();
-        return matchCount;
-    }
-
     private static String putSingleChunk(ExecutionContext context, ChunkType c, Preposition p, String value, int start, String replacement) {
         switch (p) {
             case BEFORE:
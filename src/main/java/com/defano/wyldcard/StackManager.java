@@ -8,10 +8,12 @@ import com.defano.hypertalk.exception.HtSemanticException;
 import com.defano.wyldcard.aspect.RunOnDispatch;
 import com.defano.wyldcard.parts.PartException;
 import com.defano.wyldcard.parts.card.CardPart;
+import com.defano.wyldcard.parts.model.PropertiesModel;
 import com.defano.wyldcard.parts.stack.StackModel;
 import com.defano.wyldcard.parts.stack.StackNavigationObserver;
 import com.defano.wyldcard.parts.stack.StackPart;
 import com.defano.wyldcard.patterns.WyldCardPatternFactory;
+import com.defano.wyldcard.runtime.AutosaveManager;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import com.defano.wyldcard.runtime.context.PartToolContext;
 import com.defano.wyldcard.runtime.context.ToolsContext;
@@ -126,10 +128,18 @@ public class StackManager implements StackNavigationObserver {
      */
     private StackPart openStack(ExecutionContext context, File stackFile, boolean inNewWindow) {
         try {
-            StackModel model = Serializer.deserialize(stackFile, StackModel.class);
+            boolean recover = promptToRecover(stackFile);
+            StackModel model = Serializer.deserializeStack(recover ? AutosaveManager.getAutosaveFile(stackFile) : stackFile);
+            model.prioritizeImages(model.getCurrentCardIndex());
             StackPart part = StackPart.fromStackModel(context, model);
 
             model.setSavedStackFile(context, stackFile);
+            model.setDirty(recover);
+
+            if (!recover) {
+                AutosaveManager.getInstance().discard(model);
+            }
+
             displayStack(context, part, inNewWindow);
 
             return part;
@@ -212,8 +222,12 @@ public class StackManager implements StackNavigationObserver {
     private void saveStack(ExecutionContext context, StackModel stackModel, File file) {
         if (file != null) {
             try {
-                Serializer.serialize(file, stackModel);
+                // Scripts may change the stack while it's written; those changes remain unsaved
+                long changeCount = PropertiesModel.getChangeCount();
+                Serializer.serializeStack(file, stackModel);
+                AutosaveManager.getInstance().discard(stackModel);
                 stackModel.setSavedStackFile(context, file);
+                stackModel.setSaved(changeCount);
             } catch (IOException e) {
                 WyldCard.getInstance().showErrorDialog(new HtSemanticException("An error occurred saving the file " + file.getAbsolutePath()));
             }
@@ -404,6 +418,9 @@ public class StackManager implements StackNavigationObserver {
 
     @Override
     public void onCardOpened(CardPart newCard) {
+        StackModel stackModel = newCard.getCardModel().getStackModel();
+        stackModel.prioritizeImages(stackModel.getIndexOfCard(newCard.getCardModel()));
+
         isUndoable.setSource(newCard.getCanvas().isUndoableObservable());
         isRedoable.setSource(newCard.getCanvas().isRedoableObservable());
         canvasScale.setSource(newCard.getCanvas().getScaleObservable());
@@ -473,6 +490,7 @@ public class StackManager implements StackNavigationObserver {
     private void disposeStack(ExecutionContext context, StackPart stack, boolean disposeWindow) {
         // Clean up stack resources
         stack.partClosed(context);
+        AutosaveManager.getInstance().discard(stack.getStackModel());
 
         // Dispose the stack's frame when requested
         if (disposeWindow && stack.getOwningStackWindow() != null) {
@@ -515,4 +533,24 @@ public class StackManager implements StackNavigationObserver {
         return false;
     }
 
+    /**
+     * If the given stack file has autosaved changes, prompts the user to recover them.
+     *
+     * @param stackFile The stack file being opened
+     * @return True if the user chose to open the autosaved changes; false to open the stack file itself.
+     */
+    private boolean promptToRecover(File stackFile) {
+        if (AutosaveManager.isRecoverable(stackFile)) {
+            int dialogResult = ThreadUtils.callAndWaitAsNeeded(() -> JOptionPane.showConfirmDialog(
+                    WindowManager.getInstance().getFocusedStackWindow(),
+                    "Recover unsaved changes to " + stackFile.getName() + "?",
+                    "Recover",
+                    JOptionPane.YES_NO_OPTION));
+
+            return dialogResult == JOptionPane.YES_OPTION;
+        }
+
+        return false;
+    }
+
 }
@@ -9,10 +9,13 @@ import com.defano.wyldcard.menubar.main.HyperCardMenuBar;
 import com.defano.wyldcard.parts.editor.PartEditManager;
 import com.defano.wyldcard.parts.finder.PartFinder;
 import com.defano.wyldcard.patterns.PatternManager;
+import com.defano.wyldcard.runtime.AutosaveManager;
 import com.defano.wyldcard.runtime.PeriodicMessageManager;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import com.defano.wyldcard.runtime.context.FileContext;
 import com.defano.wyldcard.runtime.context.PartToolContext;
+import com.defano.wyldcard.sound.SoundMixer;
+import com.defano.wyldcard.sound.SpeechPlaybackExecutor;
 import com.defano.wyldcard.window.WindowManager;
 import com.defano.wyldcard.window.layouts.HyperTalkErrorDialog;
 
@@ -60,8 +63,11 @@ public class WyldCard extends StackManager implements PartFinder {
             WindowManager.getInstance().start();                // Window and palette management
             PatternManager.getInstance().start();               // Update pattern palette on color changes
             PeriodicMessageManager.getInstance().start();       // Idle and mouseWithin periodic message generation
+            AutosaveManager.getInstance().start();              // Periodic saving of unsaved changes for recovery
             CursorManager.getInstance().start();                // Mouse cursor assignment
             PartToolContext.getInstance().start();              // Button and field tool selection state
+            SoundMixer.getInstance().start();                   // Mixing and output of played sounds
+            SpeechPlaybackExecutor.getInstance().start();       // Background loading of the speech synthesizer
 
             newStack(new ExecutionContext());
 
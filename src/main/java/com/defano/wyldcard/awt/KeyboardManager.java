@@ -2,6 +2,7 @@ package com.defano.wyldcard.awt;
 
 import com.defano.wyldcard.WyldCard;
 import com.defano.wyldcard.parts.stack.StackModel;
+import com.defano.wyldcard.runtime.ConditionMonitor;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 
 import java.awt.*;
@@ -41,6 +42,7 @@ public class KeyboardManager {
                 breakTime = System.currentTimeMillis();
             }
 
+            ConditionMonitor.getInstance().signalChange();
             fireGlobalKeyListeners(e);
 
             return false;
@@ -2,6 +2,7 @@ package com.defano.wyldcard.awt;
 
 import com.defano.wyldcard.WyldCard;
 import com.defano.wyldcard.parts.card.CardPart;
+import com.defano.wyldcard.runtime.ConditionMonitor;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import com.defano.wyldcard.window.WindowManager;
 import com.defano.hypertalk.exception.HtSemanticException;
@@ -56,6 +57,7 @@ public class MouseManager {
     }
 
     public Point getMouseLoc(ExecutionContext context) {
+        ConditionMonitor.getInstance().markTimeDependent();     // Mouse movement isn't tracked
         Point mouseLoc = MouseInfo.getPointerInfo().getLocation();
 
         if (WindowManager.getInstance().getFocusedStackWindow() != null) {
@@ -140,10 +142,12 @@ public class MouseManager {
             mouseIsDown = true;
             clickLoc = getMouseLoc(new ExecutionContext());
             clickTime = System.currentTimeMillis();
+            ConditionMonitor.getInstance().signalChange();
             fireOnMousePressed();
         }
         if (event.getID() == MouseEvent.MOUSE_RELEASED) {
             mouseIsDown = false;
+            ConditionMonitor.getInstance().signalChange();
             fireOnMouseReleased();
         }
     };
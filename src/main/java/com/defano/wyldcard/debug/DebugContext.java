@@ -1,6 +1,8 @@
 package com.defano.wyldcard.debug;
 
+import com.defano.hypertalk.ast.model.Script;
 import com.defano.hypertalk.ast.model.specifiers.PartSpecifier;
+import com.defano.hypertalk.ast.preemptions.ExitToHyperCardPreemption;
 import com.defano.hypertalk.ast.statements.Statement;
 import com.defano.wyldcard.parts.PartException;
 import com.defano.wyldcard.runtime.StackFrame;
@@ -12,6 +14,7 @@ import io.reactivex.Observable;
 import io.reactivex.subjects.BehaviorSubject;
 
 import javax.swing.*;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Represents the state of the WyldCard debugger.
@@ -23,7 +26,7 @@ import javax.swing.*;
  * Prior to executing any statement, the HyperTalk AST is responsible for checking if the statement represents a
  * breakpoint (via {@link #isBreakpoint(ExecutionContext, Statement)}. If this check returns true, the statement
  * should call {@link #debug(ExecutionContext, Statement)} to activate the debugger. A call to this method will pause
- * execution of the calling thread via {@link Statement#hold()} then display the script editor (in debug mode) for
+ * execution of the calling thread (see {@link #hold()}) then display the script editor (in debug mode) for
  * part whose script is being executed.
  * <p>
  * Piece of cake!
@@ -36,10 +39,13 @@ public class DebugContext {
     private boolean stepOver, stepInto, stepOut;    // Step modes
     private int debugStackDepth;                    // Last captured stack depth
     private ScriptEditor editor;                    // Editor being used as debugger UI
-    private Statement debugStatement;               // Statement that caused the breakpoint
     private Thread debugThread;                     // Script execution thread we're debugging
     private ExecutionContext debugContext;          // Last captured script execution context
 
+    // Execution state of the paused thread; kept here (not in the AST) because compiled scripts may be shared
+    private volatile CountDownLatch hold;           // Latch used to pause execution during breakpoint debugging
+    private volatile boolean abortFlag;             // Indicates script should be aborted when breakpoint is released
+
     // When true, a script has paused execution due to a breakpoint
     private BehaviorSubject<Boolean> isExecutionPaused = BehaviorSubject.createDefault(false);
     private BehaviorSubject<Boolean> isTracing = BehaviorSubject.createDefault(false);
@@ -78,7 +84,6 @@ public class DebugContext {
         debugThread = Thread.currentThread();
         debugStackDepth = context.getStackDepth();
         editor = showDebugEditor(context, context.getStackFrame().getMe());
-        debugStatement = statement;
 
         // Notify observers
         isDebugging.onNext(true);
@@ -101,9 +106,15 @@ public class DebugContext {
             }
         }
 
-        // Not tracing: Block the current thread; must be last thing we do
+        // Not tracing: Block the current thread until resumed
         else {
-            statement.hold();
+            hold();
+        }
+
+        // User aborted the script while it was paused
+        if (abortFlag) {
+            abortFlag = false;
+            throw new ExitToHyperCardPreemption();
         }
     }
 
@@ -114,9 +125,15 @@ public class DebugContext {
         resume(true);
     }
 
+    /**
+     * Aborts execution of the debugged thread (equivalent to the script invoking 'exit to hypercard'). Has no effect
+     * if there is no thread presently paused by the debugger.
+     */
     public void abort() {
-        debugStatement.abort();
-        resume(true);
+        if (hold != null) {
+            abortFlag = true;
+            resume(true);
+        }
     }
 
     /**
@@ -130,7 +147,7 @@ public class DebugContext {
             SwingUtilities.invokeLater(() -> editor.getEditor().clearTraceHighlights());
 
             isExecutionPaused.onNext(false);
-            debugStatement.release();
+            release();
 
             if (releaseDebugger) {
                 isDebugging.onNext(false);
@@ -280,7 +297,7 @@ public class DebugContext {
         }
 
         // Statement has a breakpoint (user marked line as breakpoint)
-        if (statement.hasBreakpoint()) {
+        if (hasBreakpoint(context, statement)) {
             return true;
         }
 
@@ -303,6 +320,19 @@ public class DebugContext {
         return stepInto;
     }
 
+    /**
+     * Determines if the user has marked the line on which the given statement begins as a breakpoint in the script
+     * that is executing in the current stack frame.
+     *
+     * @param context   The current execution context
+     * @param statement The current statement about to execute.
+     * @return True if the statement is on a breakpoint line.
+     */
+    private boolean hasBreakpoint(ExecutionContext context, Statement statement) {
+        Script script = context.getStackDepth() == 0 ? null : context.getStackFrame().getScript();
+        return script != null && script.hasBreakpoint(statement.getToken().getLine());
+    }
+
     public int getTraceDelayMs() {
         return traceDelayMs;
     }
@@ -314,12 +344,35 @@ public class DebugContext {
     private void clearDebugContext() {
         debugContext = null;
         debugThread = null;
-        debugStatement = null;
         stepOut = false;
         stepInto = false;
         stepOver = false;
     }
 
+    /**
+     * Pauses execution of the current (debugged) thread until {@link #release()} is invoked.
+     */
+    private void hold() {
+        try {
+            hold = new CountDownLatch(1);
+            hold.await();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Resumes execution of the debugged thread. Has no effect if the thread was not paused via a call to
+     * {@link #hold()}.
+     */
+    private void release() {
+        CountDownLatch latch = hold;
+        if (latch != null) {
+            hold = null;
+            latch.countDown();
+        }
+    }
+
     private boolean isActiveDebugThread() {
         return Thread.currentThread().equals(debugThread);
     }
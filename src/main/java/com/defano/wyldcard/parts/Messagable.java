@@ -152,7 +152,8 @@ public interface Messagable {
      * @throws HtSemanticException Thrown if a syntax or semantic error occurs attempting to execute the function.
      */
     default Value invokeFunction(ExecutionContext context, String functionName, Expression arguments) throws HtException {
-        UserFunction function = getScript(context).getFunction(functionName);
+        Script script = getScript(context);
+        UserFunction function = script.getFunction(functionName);
         Messagable target = this;
 
         while (function == null) {
@@ -165,10 +166,11 @@ public interface Messagable {
             }
 
             // Look for function in this script
-            function = target.getScript(context).getFunction(functionName);
+            script = target.getScript(context);
+            function = script.getFunction(functionName);
         }
 
-        return Interpreter.blockingExecuteFunction(context, target.getMe(context), function, arguments);
+        return Interpreter.blockingExecuteFunction(context, target.getMe(context), script, function, arguments);
     }
 
     /**
@@ -185,15 +187,15 @@ public interface Messagable {
                 return context.getCurrentStack().getStackModel();
             case WINDOW:
             case MESSAGE_BOX:
-                return context.getCurrentCard().getCardModel();
+                return context.getCurrentCardModel();
             case CARD:
-                return context.getCurrentCard().getCardModel().getBackgroundModel();
+                return context.getCurrentCardModel().getBackgroundModel();
             case FIELD:
             case BUTTON:
                 if (getMe(context).getOwner() == Owner.BACKGROUND) {
-                    return context.getCurrentCard().getCardModel().getBackgroundModel();
+                    return context.getCurrentCardModel().getBackgroundModel();
                 } else {
-                    return context.getCurrentCard().getCardModel();
+                    return context.getCurrentCardModel();
                 }
             default:
                 return null;
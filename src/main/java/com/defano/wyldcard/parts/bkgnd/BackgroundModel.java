@@ -10,6 +10,7 @@ import com.defano.wyldcard.parts.model.PartModel;
 import com.defano.wyldcard.parts.stack.StackModel;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import com.defano.wyldcard.runtime.serializer.BufferedImageSerializer;
+import com.defano.wyldcard.runtime.serializer.LazyImage;
 import com.defano.hypertalk.ast.model.Owner;
 import com.defano.hypertalk.ast.model.PartType;
 import com.defano.hypertalk.ast.model.Value;
@@ -37,7 +38,7 @@ public class BackgroundModel extends PartModel implements LayeredPartFinder {
     public static final String PROP_ABBREVNAME = "abbreviated name";
     public static final String PROP_LONGNAME = "long name";
 
-    private BufferedImage backgroundImage;
+    private LazyImage backgroundImage;
     private final Collection<ButtonModel> buttonModels;
     private final Collection<FieldModel> fieldModels;
 
@@ -111,8 +112,16 @@ public class BackgroundModel extends PartModel implements LayeredPartFinder {
         return (StackModel) getParentPartModel();
     }
 
+    /**
+     * Gets the fields in this background. Cards are searched off the dispatch thread (see
+     * {@link com.defano.wyldcard.search.SearchIndexer}), so this returns a copy taken under the collection's monitor.
+     *
+     * @return A copy of the collection of fields in this background
+     */
     public Collection<FieldModel> getFieldModels() {
-        return fieldModels;
+        synchronized (fieldModels) {
+            return new ArrayList<>(fieldModels);
+        }
     }
 
     public Collection<ButtonModel> getButtonModels() {
@@ -125,19 +134,25 @@ public class BackgroundModel extends PartModel implements LayeredPartFinder {
 
     public void addFieldModel(FieldModel model) {
         model.setParentPartModel(this);
-        this.fieldModels.add(model);
+        synchronized (fieldModels) {
+            this.fieldModels.add(model);
+        }
+        setDirty(true);
     }
 
     public void addButtonModel(ButtonModel model) {
         model.setParentPartModel(this);
         this.buttonModels.add(model);
+        setDirty(true);
     }
 
     @SuppressWarnings("SuspiciousMethodCalls")
     public void removePartModel(PartModel model) {
         switch (model.getType()) {
             case FIELD:
-                fieldModels.remove(model);
+                synchronized (fieldModels) {
+                    fieldModels.remove(model);
+                }
                 break;
             case BUTTON:
                 buttonModels.remove(model);
@@ -145,17 +160,71 @@ public class BackgroundModel extends PartModel implements LayeredPartFinder {
             default:
                 throw new IllegalArgumentException("Bug! Can't delete this kind of part from a background: " + model.getType());
         }
+
+        setDirty(true);
     }
 
     public void setBackgroundImage(BufferedImage image) {
-        this.backgroundImage = image;
+        this.backgroundImage = LazyImage.of(image);
+        setDirty(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A background is dirty when it, or any of its buttons or fields (including the unshared text of its fields on
+     * any card), has changed.
+     */
+    @Override
+    public boolean isDirty() {
+        return super.isDirty() ||
+                fieldModels.stream().anyMatch(PartModel::isDirty) ||
+                buttonModels.stream().anyMatch(PartModel::isDirty);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A background has changed when it, or any of its buttons or fields (including the unshared text of its fields on
+     * any card), has changed.
+     */
+    @Override
+    public boolean hasChangedSince(long changeCount) {
+        return super.hasChangedSince(changeCount) ||
+                fieldModels.stream().anyMatch(f -> f.hasChangedSince(changeCount)) ||
+                buttonModels.stream().anyMatch(b -> b.hasChangedSince(changeCount));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Marking a background as saved also marks its buttons and fields as saved.
+     */
+    @Override
+    public void setSaved(long changeCount) {
+        super.setSaved(changeCount);
+
+        fieldModels.forEach(f -> f.setSaved(changeCount));
+        buttonModels.forEach(b -> b.setSaved(changeCount));
     }
 
     public BufferedImage getBackgroundImage(Dimension dimension) {
         if (this.backgroundImage == null) {
             return BufferedImageSerializer.emptyImage(dimension);
         } else {
-            return this.backgroundImage;
+            return this.backgroundImage.get();
+        }
+    }
+
+    /**
+     * Changes the order in which this background's image is decoded relative to other images still being decoded;
+     * see {@link LazyImage#setPriority(int)}.
+     *
+     * @param priority The image's priority; lower values are decoded first.
+     */
+    public void setBackgroundImagePriority(int priority) {
+        if (backgroundImage != null) {
+            backgroundImage.setPriority(priority);
         }
     }
 
@@ -111,7 +111,7 @@ public abstract class CardLayerPartModel extends PartModel implements NamedPart
      */
     public int getCurrentCardId(ExecutionContext context) {
         if (this.currentCardId.get() == null) {
-            return context.getCurrentCard().getId(context);
+            return context.getCurrentCardModel().getId(context);
         }
 
         return this.currentCardId.get();
@@ -13,6 +13,7 @@ import com.defano.wyldcard.parts.model.PartModel;
 import com.defano.wyldcard.parts.stack.StackModel;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import com.defano.wyldcard.runtime.serializer.BufferedImageSerializer;
+import com.defano.wyldcard.runtime.serializer.LazyImage;
 import com.defano.wyldcard.runtime.serializer.Serializer;
 import com.defano.wyldcard.util.ThreadUtils;
 import com.google.common.collect.Lists;
@@ -48,7 +49,7 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
     private int backgroundId = 0;
     private final Collection<FieldModel> fields = new ArrayList<>();
     private final Collection<ButtonModel> buttons = new ArrayList<>();
-    private BufferedImage cardImage;
+    private LazyImage cardImage;
 
     private transient CardModelObserver observer;
 
@@ -111,8 +112,16 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
         return new CardModel(cardId, backgroundId, parentPartModel);
     }
 
+    /**
+     * Gets the fields on this card. Cards are searched off the dispatch thread (see
+     * {@link com.defano.wyldcard.search.SearchIndexer}), so this returns a copy taken under the collection's monitor.
+     *
+     * @return A copy of the collection of fields on this card
+     */
     public Collection<FieldModel> getFieldModels() {
-        return fields;
+        synchronized (fields) {
+            return new ArrayList<>(fields);
+        }
     }
 
     public Collection<ButtonModel> getButtonModels() {
@@ -130,7 +139,9 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
             if (partModel.getOwner() == Owner.BACKGROUND)  {
                 getBackgroundModel().removePartModel(partModel);
             } else {
-                fields.remove(partModel);
+                synchronized (fields) {
+                    fields.remove(partModel);
+                }
             }
         } else if (partModel instanceof ButtonModel) {
             if (partModel.getOwner() == Owner.BACKGROUND) {
@@ -142,6 +153,7 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
             throw new IllegalArgumentException("Bug! Can't delete this kind of part from a card: " + partModel.getType());
         }
 
+        setDirty(true);
         firePartRemoved(context, partModel);
     }
 
@@ -152,7 +164,9 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
      */
     public void addPartModel(PartModel partModel) {
         if (partModel instanceof FieldModel) {
-            fields.add((FieldModel) partModel);
+            synchronized (fields) {
+                fields.add((FieldModel) partModel);
+            }
         } else if (partModel instanceof ButtonModel) {
             buttons.add((ButtonModel) partModel);
         } else {
@@ -160,6 +174,7 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
         }
 
         partModel.setParentPartModel(this);
+        setDirty(true);
     }
 
     /**
@@ -185,11 +200,49 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
      * @param image The card image.
      */
     public void setCardImage(BufferedImage image) {
-        this.cardImage = image;
+        this.cardImage = LazyImage.of(image);
+        setDirty(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A card is dirty when it, or any of the buttons or fields on it, has changed.
+     */
+    @Override
+    public boolean isDirty() {
+        return super.isDirty() ||
+                fields.stream().anyMatch(PartModel::isDirty) ||
+                buttons.stream().anyMatch(PartModel::isDirty);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A card has changed when it, or any of the buttons or fields on it, has changed.
+     */
+    @Override
+    public boolean hasChangedSince(long changeCount) {
+        return super.hasChangedSince(changeCount) ||
+                fields.stream().anyMatch(f -> f.hasChangedSince(changeCount)) ||
+                buttons.stream().anyMatch(b -> b.hasChangedSince(changeCount));
     }
 
     /**
-     * Returns the image of this card's foreground.
+     * {@inheritDoc}
+     * <p>
+     * Marking a card as saved also marks the buttons and fields on it as saved.
+     */
+    @Override
+    public void setSaved(long changeCount) {
+        super.setSaved(changeCount);
+
+        fields.forEach(f -> f.setSaved(changeCount));
+        buttons.forEach(b -> b.setSaved(changeCount));
+    }
+
+    /**
+     * Returns the image of this card's foreground, waiting for it to be decoded if it has not been already.
      *
      * @return The foreground image.
      */
@@ -197,7 +250,19 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
         if (cardImage == null) {
             return BufferedImageSerializer.emptyImage(dimension);
         } else {
-            return this.cardImage;
+            return this.cardImage.get();
+        }
+    }
+
+    /**
+     * Changes the order in which this card's image is decoded relative to other images still being decoded; see
+     * {@link LazyImage#setPriority(int)}.
+     *
+     * @param priority The image's priority; lower values are decoded first.
+     */
+    public void setCardImagePriority(int priority) {
+        if (cardImage != null) {
+            cardImage.setPriority(priority);
         }
     }
 
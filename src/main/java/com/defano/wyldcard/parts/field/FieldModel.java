@@ -21,6 +21,8 @@ import org.bitbucket.cowwoc.diffmatchpatch.DiffMatchPatch;
 
 import javax.annotation.PostConstruct;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.text.*;
 import java.awt.*;
 import java.util.*;
@@ -76,13 +78,16 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
     public static final String PROP_SCROLLING = "scrolling";
     public static final String PROP_SCROLL = "scroll";
 
-    private StyledDocument sharedText = new DefaultStyledDocument();
+    // Documents are read off the dispatch thread when cards are searched (see SearchIndexer); guard unsharedText with
+    // its own monitor
+    private volatile StyledDocument sharedText = new DefaultStyledDocument();
     private final Map<Integer, StyledDocument> unsharedText = new HashMap<>();
     private final Set<Integer> sharedAutoSelection = new HashSet<>();
     private final Map<Integer, Set<Integer>> unsharedAutoSelection = new HashMap<>();
 
     private transient FieldModelObserver observer;
     private transient Range selection;
+    private transient DocumentListener documentDirtyObserver;
 
     public FieldModel(Owner owner, PartModel parentPartModel) {
         super(PartType.FIELD, owner, parentPartModel);
@@ -126,6 +131,34 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
     public void initialize() {
         super.initialize();
 
+        // Any edit to the text or style of one of this field's documents marks the field dirty
+        documentDirtyObserver = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                setDirty(true);
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                setDirty(true);
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                setDirty(true);
+            }
+        };
+
+        if (sharedText != null) {
+            sharedText.addDocumentListener(documentDirtyObserver);
+        }
+
+        synchronized (unsharedText) {
+            for (StyledDocument thisDocument : unsharedText.values()) {
+                thisDocument.addDocumentListener(documentDirtyObserver);
+            }
+        }
+
         defineComputedGetterProperty(PROP_TEXT, (context, model, propertyName) -> new Value(getText(context)));
         defineComputedSetterProperty(PROP_TEXT, (DispatchComputedSetter) (context, model, propertyName, value) -> replaceText(context, value.stringValue()));
 
@@ -174,12 +207,43 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
         }
     }
 
-    private StyledDocument getStyledDocument(ExecutionContext context, int forCardId) {
+    /**
+     * Gets a Swing {@link StyledDocument} representing the rich text displayed in this field on the given card.
+     *
+     * @param context The execution context.
+     * @param forCardId The ID of the card whose text should be returned (ignored when text is shared).
+     * @return A StyledDocument representation of the contents of this field.
+     */
+    public StyledDocument getStyledDocument(ExecutionContext context, int forCardId) {
         if (useSharedText(context)) {
             return sharedText == null ? new DefaultStyledDocument() : sharedText;
         } else {
-            return unsharedText.getOrDefault(forCardId, new DefaultStyledDocument());
+            synchronized (unsharedText) {
+                StyledDocument doc = unsharedText.get(forCardId);
+                return doc == null ? new DefaultStyledDocument() : doc;
+            }
+        }
+    }
+
+    /**
+     * Determines if this field holds any text on the given card. Unlike {@link #getStyledDocument(ExecutionContext, int)},
+     * does not create an empty document for a card on which an unshared field has never held text.
+     *
+     * @param context The execution context.
+     * @param forCardId The ID of the card whose text should be checked (ignored when text is shared).
+     * @return True if the field's text on the given card is not empty.
+     */
+    public boolean hasText(ExecutionContext context, int forCardId) {
+        StyledDocument doc;
+        if (useSharedText(context)) {
+            doc = sharedText;
+        } else {
+            synchronized (unsharedText) {
+                doc = unsharedText.get(forCardId);
+            }
         }
+
+        return doc != null && doc.getLength() > 0;
     }
 
     /**
@@ -190,20 +254,34 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
      * @param doc The styled document data to persist into the model.
      */
     public void setStyledDocument(ExecutionContext context, StyledDocument doc) {
+        StyledDocument replaced;
         if (useSharedText(context)) {
+            replaced = FieldModel.this.sharedText;
             FieldModel.this.sharedText = doc;
         } else {
-            unsharedText.put(getCurrentCardId(context), doc);
+            synchronized (unsharedText) {
+                replaced = unsharedText.put(getCurrentCardId(context), doc);
+            }
+        }
+
+        // The view re-syncs the document it's editing (which is already observed); only new text is a change
+        if (replaced != doc) {
+            doc.addDocumentListener(documentDirtyObserver);
+
+            if (replaced != null || doc.getLength() > 0) {
+                setDirty(true);
+            }
         }
     }
 
     /**
-     * Determine if the model should use the sharedText document data.
+     * Determine if the model should use the sharedText document data; that is, if the field shows the same text on
+     * every card (as card fields, and background fields with the sharedText property, do).
      *
      * @return True if the model should use sharedText data; false otherwise.
      * @param context The execution context.
      */
-    private boolean useSharedText(ExecutionContext context) {
+    public boolean useSharedText(ExecutionContext context) {
         return getOwner() == Owner.CARD || getKnownProperty(context, PROP_SHAREDTEXT).booleanValue();
     }
 
@@ -638,13 +716,15 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
     }
 
     private void fireAutoSelectChangeObserver(ExecutionContext context, Set<Integer> selectedLines) {
-        if (observer != null && getCurrentCardIdOrNull() == context.getCurrentCard().getId(context)) {
+        setDirty(true);
+
+        if (observer != null && getCurrentCardIdOrNull() == context.getCurrentCardModel().getId(context)) {
             SwingUtilities.invokeLater(() -> observer.onAutoSelectionChanged(selectedLines));
         }
     }
 
     private void fireDocumentChangeObserver(ExecutionContext context, StyledDocument document) {
-        if (observer != null && getCurrentCardIdOrNull() == context.getCurrentCard().getId(context)) {
+        if (observer != null && getCurrentCardIdOrNull() == context.getCurrentCardModel().getId(context)) {
             SwingUtilities.invokeLater(() -> observer.onStyledDocumentChanged(document));
         }
     }
@@ -653,7 +733,7 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
         // Update 'the selection' HyperCard property
         SelectionContext.getInstance().setSelection(getPartSpecifier(context), selection);
 
-        if (observer != null && getCurrentCardIdOrNull() == context.getCurrentCard().getId(context)) {
+        if (observer != null && getCurrentCardIdOrNull() == context.getCurrentCardModel().getId(context)) {
             SwingUtilities.invokeLater(() -> observer.onSelectionChange(selection));
         }
     }
@@ -75,7 +75,7 @@ public interface OrderedPartFinder {
 
         // Special case: Field needs to be evaluated in the context of the current card
         if (foundPart instanceof CardLayerPartModel) {
-            ((CardLayerPartModel) foundPart).setCurrentCardId(context.getCurrentCard().getId(context));
+            ((CardLayerPartModel) foundPart).setCurrentCardId(context.getCurrentCardModel().getId(context));
         }
 
         return foundPart;
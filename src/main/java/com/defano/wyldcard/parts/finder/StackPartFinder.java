@@ -10,10 +10,8 @@ import com.defano.wyldcard.parts.card.CardModel;
 import com.defano.wyldcard.parts.model.PartModel;
 import com.defano.wyldcard.parts.stack.StackModel;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
-import com.google.common.collect.Lists;
 
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Provides methods for finding parts that exist within a specific stack.
@@ -51,9 +49,9 @@ public interface StackPartFinder extends OrderedPartFinder {
         } else if (ps instanceof PartPositionSpecifier) {
             return findPartByPosition((PartPositionSpecifier) ps);
         } else if (ps.isCardPartSpecifier()) {
-            return context.getCurrentCard().getCardModel().findPart(context, ps);
+            return context.getCurrentCardModel().findPart(context, ps);
         } else if (ps.isBackgroundPartSpecifier()) {
-            return context.getCurrentCard().getCardModel().getBackgroundModel().findPart(context, ps);
+            return context.getCurrentCardModel().getBackgroundModel().findPart(context, ps);
         } else {
             return OrderedPartFinder.super.findPart(context, ps);
         }
@@ -188,10 +186,7 @@ public interface StackPartFinder extends OrderedPartFinder {
      * @throws PartException Thrown if no such card can be found.
      */
     default CardModel findPrevBackground() throws PartException {
-        int thisCard = getStackModel().getCurrentCard().getCardIndexInStack();
-        List<CardModel> prevCards = Lists.reverse(getStackModel().getCardModels().subList(0, thisCard + 1));
-
-        return findNextBackground(prevCards);
+        return findNextBackground(-1);
     }
 
     /**
@@ -201,27 +196,26 @@ public interface StackPartFinder extends OrderedPartFinder {
      * @throws PartException Thrown if no such card can be found.
      */
     default CardModel findNextBackground() throws PartException {
-        int thisCard = getStackModel().getCurrentCard().getCardIndexInStack();
-        int cardCount = getStackModel().getCardCount();
-        List<CardModel> nextCards = getStackModel().getCardModels().subList(thisCard, cardCount);
-
-        return findNextBackground(nextCards);
+        return findNextBackground(1);
     }
 
     /**
-     * Finds the next card within a list of card models containing a different background than the first card in this
-     * list.
+     * Finds the nearest card in the given direction from the current card containing a different background than the
+     * current card. Only the returned card is loaded; cards that are passed over are not.
      *
-     * @param cardList The list of card models to traverse.
-     * @return The first card with a different background than the first card.
+     * @param step The direction to search; 1 to search toward the end of the stack, -1 to search toward the beginning.
+     * @return The first card with a different background than the current card.
      * @throws PartException Thrown if no such card can be found.
      */
-    default CardModel findNextBackground(List<CardModel> cardList) throws PartException {
-        int thisBackground = cardList.get(0).getBackgroundId();
-
-        Optional<CardModel> nextBkgnd = cardList.stream().filter(cardModel -> cardModel.getBackgroundId() != thisBackground).findFirst();
-        if (nextBkgnd.isPresent()) {
-            return nextBkgnd.get();
+    default CardModel findNextBackground(int step) throws PartException {
+        StackModel stack = getStackModel();
+        int thisCard = stack.getCurrentCard().getCardIndexInStack();
+        int thisBackground = stack.getCardBackgroundId(thisCard);
+
+        for (int index = thisCard + step; index >= 0 && index < stack.getCardCount(); index += step) {
+            if (stack.getCardBackgroundId(index) != thisBackground) {
+                return stack.getCardModel(index);
+            }
         }
 
         throw new PartException("No such card.");
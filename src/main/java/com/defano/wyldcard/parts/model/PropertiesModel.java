@@ -1,5 +1,6 @@
 package com.defano.wyldcard.parts.model;
 
+import com.defano.wyldcard.runtime.ConditionMonitor;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import com.defano.wyldcard.util.ThreadUtils;
 import com.defano.hypertalk.ast.model.Value;
@@ -11,6 +12,7 @@ import com.google.common.collect.Sets;
 import javax.annotation.PostConstruct;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A model of HyperTalk-addressable properties that provides observability, derived getters and setters, and read-only
@@ -32,6 +34,14 @@ public class PropertiesModel {
     private transient Map<String,ComputedSetter> computerSetters;
     private transient Map<String,DelegatedProperty> delegatedProperties;
 
+    // Values of changeCount when this model was last changed and when the state it was saved in was captured; the
+    // model is dirty when it has changed since
+    private transient volatile long changedAt;
+    private transient volatile long savedAt;
+
+    // Number of times any model has been marked dirty
+    private final static AtomicLong changeCount = new AtomicLong();
+
     // Required to initialize transient data member when object is de-serialized
     public PropertiesModel() {
         initialize();
@@ -217,11 +227,74 @@ public class PropertiesModel {
             properties.put(propertyName, value);
         }
 
+        // Views frequently (and quietly) re-apply the value a property already has
+        if (oldValue == null || !oldValue.toString().equals(value.toString())) {
+            setDirty(true);
+        }
+
         if (!quietly) {
             fireOnPropertyChanged(context, propertyName, oldValue, value);
         }
     }
 
+    /**
+     * Determines if this model has changed since it was last saved (or last marked clean with
+     * {@link #setDirty(boolean)}). Any change to the value of a property, whether made by script or by the user,
+     * quietly or otherwise, marks the model dirty.
+     *
+     * @return True if the model has unsaved changes.
+     */
+    public boolean isDirty() {
+        return changedAt > savedAt;
+    }
+
+    /**
+     * Marks this model as having (or not having) unsaved changes.
+     *
+     * @param dirty True to mark the model as changed; false to mark it as saved.
+     */
+    public void setDirty(boolean dirty) {
+        if (dirty) {
+            changedAt = changeCount.incrementAndGet();
+            ConditionMonitor.getInstance().signalChange();
+        } else {
+            setSaved(getChangeCount());
+        }
+    }
+
+    /**
+     * Determines if this model has changed since the given change count was read.
+     *
+     * @param changeCount A value of {@link #getChangeCount()}
+     * @return True if the model has changed since
+     */
+    public boolean hasChangedSince(long changeCount) {
+        return changedAt > changeCount;
+    }
+
+    /**
+     * Marks this model as saved, unless it has changed since the given change count was read. A save should read
+     * {@link #getChangeCount()} before it begins writing, and mark the model saved with that count once written; a
+     * change made while the save is in progress then leaves the model dirty (whether or not the change was written).
+     *
+     * @param changeCount The value of {@link #getChangeCount()} read before the model was written
+     */
+    public void setSaved(long changeCount) {
+        if (changeCount > savedAt) {
+            savedAt = changeCount;
+        }
+    }
+
+    /**
+     * Gets the number of times any model has been marked dirty. A change in this value indicates that some model has
+     * changed in the interim.
+     *
+     * @return The number of changes made to any model
+     */
+    public static long getChangeCount() {
+        return changeCount.get();
+    }
+
     /**
      * Sets the value of a known property; has no effect if property does not actually exist. This method exists for
      * programmatic modifications of properties; HyperTalk modification of properties should use
@@ -0,0 +1,243 @@
+package com.defano.wyldcard.parts.stack;
+
+import com.defano.wyldcard.parts.card.CardModel;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The ordered list of cards in a stack, some of which may not yet have been read from the stack's file.
+ * <p>
+ * A card that has been saved has a {@link CardRecord} which knows the card's ID and background ID, and how to load the
+ * card's model. A card is loaded the first time it is fetched from this list; queries that only require a card's ID or
+ * background (like {@link #getCardId(int)} or {@link #getBackgroundId(int)}) never load it.
+ * <p>
+ * A card is loaded without holding this list's lock (loading may take the lock of the stack's archive, which, while
+ * the stack is being saved, reads this list), so other threads may read and modify the list while a card is loading.
+ */
+public class LazyCardList extends AbstractList<CardModel> implements RandomAccess {
+
+    /**
+     * A card as it exists in the stack's file; the card may or may not have been loaded.
+     */
+    public interface CardRecord {
+
+        /**
+         * @return The ID of the card represented by this record.
+         */
+        int getCardId();
+
+        /**
+         * @return The ID of the background the card represented by this record belongs to.
+         */
+        int getBackgroundId();
+
+        /**
+         * Loads the card represented by this record. The returned card must be linked to its stack.
+         *
+         * @return The loaded card model.
+         */
+        CardModel load();
+    }
+
+    // Parallel lists; a card that has not been loaded has a null model, and a card that was never saved has no record
+    private final List<CardModel> cards = new ArrayList<>();
+    private final List<CardRecord> records = new ArrayList<>();
+
+    public LazyCardList() {
+    }
+
+    public LazyCardList(Collection<CardModel> cardModels) {
+        addAll(cardModels);
+    }
+
+    /**
+     * Appends a card that has not yet been loaded to the end of this list.
+     *
+     * @param record The record of the card to append
+     */
+    public synchronized void addRecord(CardRecord record) {
+        cards.add(null);
+        records.add(record);
+        modCount++;
+    }
+
+    /**
+     * Gets the record of the card at the given index; that is, where the card can be found in the stack's file.
+     *
+     * @param index The index of the card
+     * @return The record of the card, or null if the card has not been saved to the stack's file.
+     */
+    public synchronized CardRecord getRecord(int index) {
+        return records.get(index);
+    }
+
+    /**
+     * Replaces the record of the card at the given index; typically because the card has been saved to a new file, or
+     * to a new location within its file. Has no effect on whether the card has been loaded.
+     *
+     * @param index  The index of the card
+     * @param record The card's new record
+     */
+    public synchronized void setRecord(int index, CardRecord record) {
+        records.set(index, record);
+    }
+
+    /**
+     * Determines if the card at the given index has been loaded.
+     *
+     * @param index The index of the card
+     * @return True if the card has been loaded (or was never saved), false otherwise.
+     */
+    public synchronized boolean isLoaded(int index) {
+        return cards.get(index) != null;
+    }
+
+    /**
+     * Gets the ID of the card at the given index without loading the card.
+     *
+     * @param index The index of the card
+     * @return The card's ID
+     */
+    public synchronized int getCardId(int index) {
+        CardModel card = cards.get(index);
+        return card == null ? records.get(index).getCardId() : card.getId(null);
+    }
+
+    /**
+     * Gets the ID of the background of the card at the given index without loading the card.
+     *
+     * @param index The index of the card
+     * @return The ID of the card's background
+     */
+    public synchronized int getBackgroundId(int index) {
+        CardModel card = cards.get(index);
+        return card == null ? records.get(index).getBackgroundId() : card.getBackgroundId();
+    }
+
+    /**
+     * @return The cards in this list that have been loaded, in order.
+     */
+    public synchronized List<CardModel> getLoadedCards() {
+        List<CardModel> loaded = new ArrayList<>();
+        for (CardModel thisCard : cards) {
+            if (thisCard != null) {
+                loaded.add(thisCard);
+            }
+        }
+
+        return loaded;
+    }
+
+    @Override
+    public CardModel get(int index) {
+        CardRecord record;
+        synchronized (this) {
+            CardModel card = cards.get(index);
+            if (card != null) {
+                return card;
+            }
+
+            record = records.get(index);
+        }
+
+        CardModel loaded = record.load();
+
+        // The card may have moved, or been loaded by another thread, while it was loading
+        synchronized (this) {
+            int loadedIndex = indexOfCard(record.getCardId(), index);
+
+            if (loadedIndex < 0) {
+                return loaded;
+            } else if (cards.get(loadedIndex) != null) {
+                return cards.get(loadedIndex);
+            }
+
+            cards.set(loadedIndex, loaded);
+            return loaded;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The replaced card is not loaded in order to be returned.
+     *
+     * @return The replaced card, or null if it had not been loaded
+     */
+    @Override
+    public synchronized CardModel set(int index, CardModel card) {
+        CardModel replaced = cards.set(index, card);
+        records.set(index, null);
+        return replaced;
+    }
+
+    @Override
+    public synchronized void add(int index, CardModel card) {
+        cards.add(index, card);
+        records.add(index, null);
+        modCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The removed card is not loaded in order to be returned.
+     *
+     * @return The removed card, or null if it had not been loaded
+     */
+    @Override
+    public synchronized CardModel remove(int index) {
+        CardModel removed = cards.remove(index);
+        records.remove(index);
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public synchronized int size() {
+        return cards.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A card that has not been loaded cannot be referenced by the caller, so only loaded cards are considered.
+     */
+    @Override
+    public synchronized int indexOf(Object o) {
+        return o == null ? -1 : cards.indexOf(o);
+    }
+
+    @Override
+    public synchronized int lastIndexOf(Object o) {
+        return o == null ? -1 : cards.lastIndexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Finds the card with the given ID, looking first at the index where it's expected to be.
+     *
+     * @return The index of the card, or -1 if the card is not in this list
+     */
+    private int indexOfCard(int cardId, int expectedIndex) {
+        if (expectedIndex < cards.size() && getCardId(expectedIndex) == cardId) {
+            return expectedIndex;
+        }
+
+        for (int index = 0; index < cards.size(); index++) {
+            if (getCardId(index) == cardId) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+}
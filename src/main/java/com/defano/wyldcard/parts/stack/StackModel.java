@@ -12,7 +12,9 @@ import com.defano.wyldcard.parts.finder.StackPartFinder;
 import com.defano.wyldcard.parts.model.PartModel;
 import com.defano.wyldcard.patterns.WyldCardPatternFactory;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
-import com.defano.wyldcard.runtime.serializer.Serializer;
+import com.defano.wyldcard.runtime.serializer.ImageFormat;
+import com.defano.wyldcard.runtime.serializer.StackArchive;
+import com.defano.wyldcard.search.SearchIndex;
 import com.defano.wyldcard.window.WindowManager;
 import io.reactivex.Observable;
 import io.reactivex.subjects.BehaviorSubject;
@@ -22,8 +24,6 @@ import javax.annotation.PostConstruct;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.*;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -36,6 +36,7 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
     public static final String PROP_SHORTNAME = "short name";
     public static final String PROP_ABBREVNAME = "abbreviated name";
     public static final String PROP_LONGNAME = "long name";
+    public static final String PROP_IMAGEFORMAT = "imageformat";
 
     private Map<Integer, BackgroundModel> backgroundModels = new HashMap<>();
     private Map<String, BufferedImage> userIcons = new HashMap<>();
@@ -46,11 +47,17 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
     private int nextCardId = 0;
     private int nextBackgroundId = 0;
     private int currentCardIndex = 0;
-    private List<CardModel> cardModels = new ArrayList<>();
+    private LazyCardList cardModels = new LazyCardList();
 
     // The location where this stack was saved to, or opened from, on disk. Null if the stack has not been saved.
     private transient Subject<Optional<File>> savedStackFileProvider;
 
+    // Index of field text used by the 'find' command
+    private transient SearchIndex searchIndex;
+
+    // The archive this stack was opened from or last saved to; null if the stack was not opened from an archive
+    private transient StackArchive archive;
+
     private StackModel(String stackName, Dimension dimension) {
         super(PartType.STACK, Owner.HYPERCARD, null);
 
@@ -80,6 +87,7 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
         super.initialize();
 
         savedStackFileProvider = BehaviorSubject.createDefault(Optional.empty());
+        searchIndex = new SearchIndex();
 
         // User patterns may be missing from serialized object form; rehydrate empty map in this case
         if (userPatterns == null) {
@@ -91,6 +99,15 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
             userIcons = new HashMap<>();
         }
 
+        // Cards and backgrounds are stored apart from the stack in archived stack files
+        if (cardModels == null) {
+            cardModels = new LazyCardList();
+        }
+
+        if (backgroundModels == null) {
+            backgroundModels = new HashMap<>();
+        }
+
         defineComputedReadOnlyProperty(PROP_LONGNAME, (context, model, propertyName) -> new Value(getLongName(context)));
         defineComputedReadOnlyProperty(PROP_ABBREVNAME, (context, model, propertyName) -> new Value(getAbbreviatedName(context)));
         defineComputedReadOnlyProperty(PROP_SHORTNAME, (context, model, propertyName) -> new Value(getShortName(context)));
@@ -103,6 +120,11 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
         if (!hasProperty(PartModel.PROP_ID)) {
             defineProperty(PartModel.PROP_ID, new Value(UUID.randomUUID().toString()), true);
         }
+
+        // Stacks saved before the image format was selectable use the default format for images they save from now on
+        if (!hasProperty(PROP_IMAGEFORMAT)) {
+            defineProperty(PROP_IMAGEFORMAT, new Value(ImageFormat.RASTER.name().toLowerCase()), false);
+        }
     }
 
     @Override
@@ -119,7 +141,8 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
     public void relinkParentPartModel(PartModel parentPartModel) {
         this.setParentPartModel(parentPartModel);
 
-        for (CardModel thisCard : cardModels) {
+        // Cards that have not been loaded are linked to the stack when they are
+        for (CardModel thisCard : cardModels.getLoadedCards()) {
             thisCard.relinkParentPartModel(this);
         }
 
@@ -128,6 +151,18 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
         }
     }
 
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public StackArchive getArchive() {
+        return archive;
+    }
+
+    public void setArchive(StackArchive archive) {
+        this.archive = archive;
+    }
+
     public Observable<Optional<File>> getSavedStackFileProvider() {
         return savedStackFileProvider;
     }
@@ -145,6 +180,7 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
 
     public int insertCard(CardModel cardModel) {
         cardModels.add(currentCardIndex + 1, cardModel);
+        setDirty(true);
         receiveMessage(new ExecutionContext(), SystemMessage.NEW_CARD.messageName);
         return currentCardIndex + 1;
     }
@@ -165,6 +201,7 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
 
     public void deleteCardModel() {
         cardModels.remove(currentCardIndex);
+        setDirty(true);
         receiveMessage(new ExecutionContext(), SystemMessage.DELETE_CARD.messageName);
     }
 
@@ -181,7 +218,26 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
     }
 
     public void setCardModels(List<CardModel> cardModels) {
-        this.cardModels = cardModels;
+        this.cardModels = cardModels instanceof LazyCardList ? (LazyCardList) cardModels : new LazyCardList(cardModels);
+        setDirty(true);
+    }
+
+    /**
+     * Gets this stack's list of cards, including those that have not yet been loaded from the stack's file. Unlike
+     * {@link #getCardModels()}, this does not produce a copy of the list (and so does not load every card).
+     *
+     * @return The stack's card list
+     */
+    public LazyCardList getCardModelList() {
+        return cardModels;
+    }
+
+    public int getCardId(int index) {
+        return cardModels.getCardId(index);
+    }
+
+    public int getCardBackgroundId(int index) {
+        return cardModels.getBackgroundId(index);
     }
 
     public CardModel getCardModel(int index) {
@@ -208,24 +264,45 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
         return cardModels.indexOf(card);
     }
 
+    /**
+     * Orders the decoding of any images still being decoded so that the given card's images are decoded first, then
+     * those of its neighbors, and so forth. Only cards that have been loaded are considered; a card that has not been
+     * loaded has no images pending.
+     *
+     * @param cardIndex The index of the card whose images are needed first
+     */
+    public void prioritizeImages(int cardIndex) {
+        for (int index = 0; index < cardModels.size(); index++) {
+            if (cardModels.isLoaded(index)) {
+                cardModels.get(index).setCardImagePriority(Math.abs(index - cardIndex));
+            }
+        }
+
+        // Backgrounds are few; the current card's background is needed now, the rest soon after
+        int backgroundId = cardIndex < cardModels.size() ? cardModels.getBackgroundId(cardIndex) : -1;
+        for (BackgroundModel thisBackground : backgroundModels.values()) {
+            thisBackground.setBackgroundImagePriority(thisBackground.getId(null) == backgroundId ? 0 : 1);
+        }
+    }
+
     public Integer getIndexOfCardId(int cardId) {
-        return cardModels.stream()
-                .filter(c -> c.getId(null) == cardId)
-                .map(c -> cardModels.indexOf(c))
-                .findFirst()
-                .orElse(null);
+        for (int index = 0; index < cardModels.size(); index++) {
+            if (cardModels.getCardId(index) == cardId) {
+                return index;
+            }
+        }
+
+        return null;
     }
 
     public int getIndexOfBackground(int backgroundId) {
-        Optional<CardModel> card = cardModels.stream()
-                .filter(c -> c.getBackgroundId() == backgroundId)
-                .findFirst();
-
-        if (card.isPresent()) {
-            return getIndexOfCard(card.get());
-        } else {
-            throw new IllegalArgumentException("No such background.");
+        for (int index = 0; index < cardModels.size(); index++) {
+            if (cardModels.getBackgroundId(index) == backgroundId) {
+                return index;
+            }
         }
+
+        throw new IllegalArgumentException("No such background.");
     }
 
     public boolean isResizable(ExecutionContext context) {
@@ -236,6 +313,17 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
         setKnownProperty(context, PROP_RESIZABLE, new Value(resizable));
     }
 
+    /**
+     * Gets the format in which this stack's images are saved; either "raster" (the default) or "png", as set by the
+     * stack's 'imageFormat' property.
+     *
+     * @param context The execution context
+     * @return The stack's image format
+     */
+    public ImageFormat getImageFormat(ExecutionContext context) {
+        return ImageFormat.fromName(getKnownProperty(context, PROP_IMAGEFORMAT).stringValue());
+    }
+
     public Dimension getSize(ExecutionContext context) {
         return new Dimension(getWidth(context), getHeight(context));
     }
@@ -261,6 +349,14 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
         return backgroundModels.get(backgroundId);
     }
 
+    public Map<Integer, BackgroundModel> getBackgroundModels() {
+        return new HashMap<>(backgroundModels);
+    }
+
+    public void setBackgroundModels(Map<Integer, BackgroundModel> backgroundModels) {
+        this.backgroundModels = new HashMap<>(backgroundModels);
+    }
+
     public int getNextButtonId() {
         return nextPartId++;
     }
@@ -288,9 +384,25 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
     }
 
     public List<CardModel> getCardsInBackground(int backgroundId) {
-        return getCardModels().stream()
-                .filter(c -> c.getBackgroundId() == backgroundId)
-                .collect(Collectors.toList());
+        List<CardModel> cards = new ArrayList<>();
+        for (int index = 0; index < cardModels.size(); index++) {
+            if (cardModels.getBackgroundId(index) == backgroundId) {
+                cards.add(cardModels.get(index));
+            }
+        }
+
+        return cards;
+    }
+
+    public int getCardCountInBackground(int backgroundId) {
+        int count = 0;
+        for (int index = 0; index < cardModels.size(); index++) {
+            if (cardModels.getBackgroundId(index) == backgroundId) {
+                count++;
+            }
+        }
+
+        return count;
     }
 
     @Override
@@ -300,6 +412,7 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
 
     public void createIcon(String name, BufferedImage image) {
         userIcons.put(name, image);
+        setDirty(true);
     }
 
     public List<ButtonIcon> getUserIcons() {
@@ -317,29 +430,39 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
 
     public void setUserPattern(int patternId, BufferedImage pattern) {
         userPatterns.put(patternId, pattern);
+        setDirty(true);
         WyldCardPatternFactory.getInstance().invalidatePatternCache();
     }
 
     /**
-     * A cheesy and expensive mechanism to determine if the user has made a change to the stack since it was last opened.
+     * Determines if the user has made a change to the stack since it was last opened or saved; that is, if the stack,
+     * any of its backgrounds, or any card that has been loaded has changed. (A card that has not been loaded cannot
+     * have changed.)
      *
      * @return True if the stack has changes; false otherwise
      */
+    @Override
     public boolean isDirty() {
-        if (savedStackFileProvider.blockingFirst().isPresent()) {
-
-            try {
-                String savedStack = new String(Files.readAllBytes(savedStackFileProvider.blockingFirst().get().toPath()), StandardCharsets.UTF_8);
-                String currentStack = Serializer.serialize(this);
+        if (!savedStackFileProvider.blockingFirst().isPresent()) {
+            return !isEmpty();
+        }
 
-                return !isEmpty() && !savedStack.equalsIgnoreCase(currentStack);
+        return super.isDirty() ||
+                backgroundModels.values().stream().anyMatch(BackgroundModel::isDirty) ||
+                cardModels.getLoadedCards().stream().anyMatch(CardModel::isDirty);
+    }
 
-            } catch (Exception e) {
-                return true;
-            }
-        }
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Marking a stack as saved also marks its backgrounds, and every card that has been loaded, as saved.
+     */
+    @Override
+    public void setSaved(long changeCount) {
+        super.setSaved(changeCount);
 
-        return !isEmpty();
+        backgroundModels.values().forEach(b -> b.setSaved(changeCount));
+        cardModels.getLoadedCards().forEach(c -> c.setSaved(changeCount));
     }
 
     /**
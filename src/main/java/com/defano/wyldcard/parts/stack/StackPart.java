@@ -509,7 +509,7 @@ public class StackPart implements Part, PropertyChangeObserver {
     }
 
     private boolean canDeleteCard(ExecutionContext context) {
-        long cardCountInBackground = stackModel.getCardsInBackground(getDisplayedCard().getCardModel().getBackgroundId()).size();
+        long cardCountInBackground = stackModel.getCardCountInBackground(getDisplayedCard().getCardModel().getBackgroundId());
 
         return stackModel.getCardCount() > 1 &&
                 !getDisplayedCard().getCardModel().getKnownProperty(context, CardModel.PROP_CANTDELETE).booleanValue() &&
@@ -0,0 +1,139 @@
+package com.defano.wyldcard.runtime;
+
+import com.defano.wyldcard.WyldCard;
+import com.defano.wyldcard.parts.model.PropertiesModel;
+import com.defano.wyldcard.parts.stack.StackModel;
+import com.defano.wyldcard.parts.stack.StackPart;
+import com.defano.wyldcard.runtime.serializer.StackArchive;
+import com.defano.wyldcard.util.ThreadUtils;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mechanism for periodically saving unsaved changes to open stacks into a recovery file alongside each stack's file
+ * (see {@link #getAutosaveFile(File)}). Autosaving never modifies the stack's own file, nor does it mark the stack as
+ * saved.
+ * <p>
+ * Each stack is snapshot on the dispatch thread (see {@link StackArchive.Snapshot}), which only copies the parts of the
+ * stack that have changed; the snapshot is encoded and written on a single, low-priority thread so that autosaving
+ * never occupies more than one core nor delays the dispatch thread or script execution.
+ */
+public class AutosaveManager implements Runnable {
+
+    public final static String AUTOSAVE_EXTENSION = ".autosave";
+
+    private final static int AUTOSAVE_PERIOD_MS = 30000;      // Frequency that stacks are autosaved
+
+    private final static AutosaveManager instance = new AutosaveManager();
+
+    private final ScheduledExecutorService autosaveExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("autosave-executor-%d")
+            .setPriority(Thread.MIN_PRIORITY)
+            .setDaemon(true)
+            .build());
+
+    // Model change count as of the last autosave
+    private long autosavedChangeCount = 0;
+
+    private AutosaveManager() {}
+
+    public static AutosaveManager getInstance() {
+        return instance;
+    }
+
+    public void start() {
+        autosaveExecutor.scheduleWithFixedDelay(this, AUTOSAVE_PERIOD_MS, AUTOSAVE_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the file into which unsaved changes to the given stack file are autosaved.
+     *
+     * @param stackFile The stack's file
+     * @return The stack's autosave file
+     */
+    public static File getAutosaveFile(File stackFile) {
+        return new File(stackFile.getAbsolutePath() + AUTOSAVE_EXTENSION);
+    }
+
+    /**
+     * Determines if the given stack file has unsaved changes that were autosaved more recently than the file itself
+     * was saved.
+     *
+     * @param stackFile The stack's file
+     * @return True if the stack's autosave file can be used to recover unsaved changes
+     */
+    public static boolean isRecoverable(File stackFile) {
+        File autosaveFile = getAutosaveFile(stackFile);
+        return autosaveFile.exists() && autosaveFile.lastModified() >= stackFile.lastModified();
+    }
+
+    /**
+     * Deletes the autosaved changes to the given stack; typically because the stack was saved, or closed without
+     * saving. Deletion is performed after any autosave already in progress has completed.
+     *
+     * @param stackModel The stack whose autosave file should be deleted
+     */
+    public void discard(StackModel stackModel) {
+        Optional<File> stackFile = stackModel.getSavedStackFileProvider().blockingFirst();
+        stackFile.ifPresent(file -> autosaveExecutor.execute(() -> delete(getAutosaveFile(file))));
+    }
+
+    @Override
+    public void run() {
+        try {
+            long changeCount = PropertiesModel.getChangeCount();
+            if (changeCount == autosavedChangeCount) {
+                return;
+            }
+
+            List<StackModel> stacks = new ArrayList<>();
+            List<StackArchive.Snapshot> snapshots = new ArrayList<>();
+
+            ThreadUtils.invokeAndWaitAsNeeded(() -> {
+                for (StackPart thisStack : WyldCard.getInstance().getOpenStacks()) {
+                    StackModel stackModel = thisStack.getStackModel();
+                    Optional<File> stackFile = stackModel.getSavedStackFileProvider().blockingFirst();
+
+                    // Stacks that have never been saved have nowhere to autosave to
+                    if (stackFile.isPresent() && stackModel.isDirty()) {
+                        stacks.add(stackModel);
+                        snapshots.add(StackArchive.snapshot(getAutosaveFile(stackFile.get()), stackModel));
+                    }
+                }
+            });
+
+            for (int index = 0; index < snapshots.size(); index++) {
+                snapshots.get(index).write();
+
+                // Stack may have been saved while the snapshot was being written
+                if (!stacks.get(index).isDirty()) {
+                    discard(stacks.get(index));
+                }
+            }
+
+            // Not reached if any snapshot could not be written, so that it's tried again next period
+            autosavedChangeCount = changeCount;
+
+        } catch (Exception e) {
+            // Exceptions thrown from a scheduled task would cancel all future autosaves
+            e.printStackTrace();
+        }
+    }
+
+    private void delete(File autosaveFile) {
+        try {
+            // A stack recovered from its autosave file may still read cards from it
+            StackArchive.delete(autosaveFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.defano.wyldcard.runtime;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Mechanism for parking scripts that are waiting for a condition to become true (i.e., "wait until the mouse is
+ * down"), re-evaluating the condition only when state it may depend on has changed.
+ * <p>
+ * Sources of state that scripts can observe signal the monitor when that state changes: part and stack properties
+ * (see {@link com.defano.wyldcard.parts.model.PropertiesModel}), global variables, the mouse button and the keyboard.
+ * A script's local variables cannot change while it waits, so they need not signal. State that changes without notice
+ * (the time, the mouse location, whether a sound is playing, and so forth) is marked as such when it's read (see
+ * {@link #markTimeDependent()}); a condition that reads it is re-evaluated periodically, as is every condition (less
+ * frequently) in case it depends on some state that neither signals nor is marked.
+ * <p>
+ * Waiters park on a {@link ReentrantLock} condition rather than an object monitor, so that a script parked on a virtual
+ * thread (see {@link com.defano.wyldcard.runtime.interpreter.VirtualThreadScriptScheduler}) releases its carrier
+ * thread.
+ */
+public class ConditionMonitor {
+
+    private final static int TIME_DEPENDENT_POLL_MS = 10;     // Re-evaluation period of time-dependent conditions
+    private final static int FALLBACK_POLL_MS = 100;          // Re-evaluation period of all other conditions
+
+    private final static ConditionMonitor instance = new ConditionMonitor();
+
+    private final AtomicLong changeCount = new AtomicLong();
+    private final AtomicInteger waiterCount = new AtomicInteger();
+    private final ThreadLocal<Boolean> timeDependent = ThreadLocal.withInitial(() -> false);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private ConditionMonitor() {}
+
+    public static ConditionMonitor getInstance() {
+        return instance;
+    }
+
+    /**
+     * Indicates that some state observable by scripts has changed, waking every script waiting on a condition so
+     * that it may be re-evaluated. Cheap enough to invoke on every change; when no script is waiting, this method
+     * does not block nor take a lock.
+     */
+    public void signalChange() {
+        changeCount.incrementAndGet();
+
+        if (waiterCount.get() > 0) {
+            lock.lock();
+            try {
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Indicates that the condition being evaluated on the current thread (if any) has read state that changes without
+     * signaling this monitor, and so should be re-evaluated periodically.
+     */
+    public void markTimeDependent() {
+        timeDependent.set(true);
+    }
+
+    /**
+     * Invoked on the current thread before evaluating a condition.
+     *
+     * @return A token representing the state of the world as of this evaluation; see {@link #awaitChange(long)}.
+     */
+    public long beginEvaluation() {
+        timeDependent.set(false);
+        return changeCount.get();
+    }
+
+    /**
+     * Parks the current thread until state has changed since the given evaluation began, or until the evaluated
+     * condition should be re-evaluated regardless.
+     *
+     * @param evaluation The token returned by {@link #beginEvaluation()} before the condition was evaluated
+     * @throws InterruptedException Thrown if the thread is interrupted while parked
+     */
+    public void awaitChange(long evaluation) throws InterruptedException {
+        long timeoutMs = timeDependent.get() ? TIME_DEPENDENT_POLL_MS : FALLBACK_POLL_MS;
+
+        // Register as a waiter before checking for changes, so that a concurrent signal can't be missed
+        waiterCount.incrementAndGet();
+        lock.lock();
+        try {
+            if (changeCount.get() == evaluation) {
+                changed.await(timeoutMs, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+            waiterCount.decrementAndGet();
+        }
+    }
+}
@@ -1,23 +1,31 @@
 package com.defano.wyldcard.runtime;
 
+import com.defano.hypertalk.ast.model.Script;
 import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.ast.model.specifiers.PartMessageSpecifier;
 import com.defano.hypertalk.ast.model.specifiers.PartSpecifier;
 import com.defano.hypertalk.ast.model.specifiers.VisualEffectSpecifier;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
-import com.defano.wyldcard.runtime.symbol.BasicSymbolTable;
 import com.defano.wyldcard.runtime.symbol.CompositeSymbolTable;
 import com.defano.wyldcard.runtime.symbol.FilteredSymbolTable;
+import com.defano.wyldcard.runtime.symbol.GlobalVariable;
+import com.defano.wyldcard.runtime.symbol.LocalSymbolTable;
+import com.defano.wyldcard.runtime.symbol.SymbolSlots;
 import com.defano.wyldcard.runtime.symbol.SymbolTable;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class StackFrame {
 
-    private final SymbolTable localVariables = new BasicSymbolTable();  // Local variables
-    private final List<String> globalsInScope = new ArrayList<>();      // Global variables that are in scope in this frame
+    private final LocalSymbolTable localVariables;                      // Local variables
+    private final Map<String, GlobalVariable> globalsInScope = new HashMap<>();  // In-scope globals, by lowercase name
+    private final SymbolTable scopedGlobalVariables;                    // View of globals in scope in this frame
+    private final SymbolTable variables;                                // View of all variables visible in this frame
 
     private long creationTime = System.currentTimeMillis();             // Time when this frame was created
     private List<Value> params = new ArrayList<>();                     // Arguments passed to this function/handler
@@ -26,6 +34,7 @@ public class StackFrame {
     private VisualEffectSpecifier visualEffect;                         // Visual effect to use to unlock screen
     private Value returnValue = new Value();                            // Value returned from this function
     private PartSpecifier me;                                           // The part that 'me' refers to
+    private Script script;                                              // The script of the executing handler
 
 
     /**
@@ -33,20 +42,27 @@ public class StackFrame {
      * window).
      */
     public StackFrame() {
-        this.me = new PartMessageSpecifier();
+        this(new PartMessageSpecifier(), null, new SymbolSlots(), "", new ArrayList<>());
     }
 
     /**
      * Create a stack frame representing the invocation of a handler or user-defined function.
      *
      * @param me        The part to which the 'me' keyword is bound in this context (i.e., the part owning this script)
+     * @param script    The script containing the handler or function being invoked; null if the handler is not part of
+     *                  a part's script (i.e., text executed via the 'do' command).
+     * @param symbols   The slot layout of the handler or function's local variables (see {@link SymbolSlots}).
      * @param message   The message being handled (i.e., the name of the handler or function)
      * @param arguments A list of evaluated arguments to be bound the handler's parameter list. May not be null; provide
      *                  an empty list for invocations not passing arguments.
      */
-    public StackFrame(PartSpecifier me, String message, List<Value> arguments) {
+    public StackFrame(PartSpecifier me, Script script, SymbolSlots symbols, String message, List<Value> arguments) {
         this.message = message;
         this.me = me;
+        this.script = script;
+        this.localVariables = new LocalSymbolTable(symbols);
+        this.scopedGlobalVariables = new FilteredSymbolTable(ExecutionContext.getGlobals(), globalsInScope.keySet());
+        this.variables = new CompositeSymbolTable(scopedGlobalVariables, localVariables);
         this.params = arguments;
     }
 
@@ -65,7 +81,7 @@ public class StackFrame {
      *
      * @return In-scope local variables
      */
-    public SymbolTable getLocalVariables() {
+    public LocalSymbolTable getLocalVariables() {
         return localVariables;
     }
 
@@ -76,7 +92,7 @@ public class StackFrame {
      * @return In-scope global variables
      */
     public SymbolTable getScopedGlobalVariables() {
-        return new FilteredSymbolTable(ExecutionContext.getGlobals(), globalsInScope);
+        return scopedGlobalVariables;
     }
 
     /**
@@ -85,7 +101,7 @@ public class StackFrame {
      * @return A read-only table of all visible variables.
      */
     public SymbolTable getVariables() {
-        return new CompositeSymbolTable(getScopedGlobalVariables(), getLocalVariables());
+        return variables;
     }
 
     /**
@@ -126,21 +142,21 @@ public class StackFrame {
     }
 
     /**
-     * Specifies that the given symbol refers to a global variable that is in-scope in this frame.
+     * Specifies that the given global variable is in-scope in this frame.
      *
-     * @param symbol The symbol to designate as being in scope.
+     * @param global The global variable to designate as being in scope.
      */
-    public void setGlobalInScope(String symbol) {
-        globalsInScope.add(symbol);
+    public void setGlobalInScope(GlobalVariable global) {
+        globalsInScope.put(global.getName(), global);
     }
 
     /**
-     * Returns a collection of case-insensitive symbols that are in-scope global variables in this frame.
+     * Returns a collection of (lowercase) symbols that are in-scope global variables in this frame.
      *
      * @return The set of in-scope global variables.
      */
     public Collection<String> getGlobalsInScope() {
-        return globalsInScope;
+        return Collections.unmodifiableSet(globalsInScope.keySet());
     }
 
     /**
@@ -150,7 +166,17 @@ public class StackFrame {
      * @return True if the symbol is an in-scope global variable, false otherwise.
      */
     public boolean isGlobalInScope(String symbol) {
-        return globalsInScope.contains(symbol);
+        return getGlobal(symbol) != null;
+    }
+
+    /**
+     * Gets the in-scope global variable referred to by the given symbol.
+     *
+     * @param symbol The case-insensitive name of the symbol
+     * @return The global variable's cell, or null if the symbol does not refer to a global in scope in this frame.
+     */
+    public GlobalVariable getGlobal(String symbol) {
+        return globalsInScope.isEmpty() ? null : globalsInScope.get(symbol.toLowerCase());
     }
 
     /**
@@ -207,4 +233,14 @@ public class StackFrame {
     public void setMe(PartSpecifier me) {
         this.me = me;
     }
+
+    /**
+     * Gets the script whose handler or function is executing in this frame. The debugger consults this script's
+     * breakpoints (compiled statements are shared between scripts and do not carry breakpoints themselves).
+     *
+     * @return The executing script, or null if the code executing in this frame does not belong to a part's script.
+     */
+    public Script getScript() {
+        return script;
+    }
 }
@@ -2,6 +2,7 @@ package com.defano.wyldcard.runtime.context;
 
 import com.defano.hypertalk.ast.model.Chunk;
 import com.defano.hypertalk.ast.model.Preposition;
+import com.defano.hypertalk.ast.model.Script;
 import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.ast.model.specifiers.PartSpecifier;
 import com.defano.hypertalk.exception.HtException;
@@ -11,14 +12,20 @@ import com.defano.wyldcard.WyldCard;
 import com.defano.wyldcard.awt.KeyboardManager;
 import com.defano.wyldcard.parts.Part;
 import com.defano.wyldcard.parts.PartException;
+import com.defano.wyldcard.parts.card.CardModel;
 import com.defano.wyldcard.parts.card.CardPart;
 import com.defano.wyldcard.parts.model.PartModel;
 import com.defano.wyldcard.parts.stack.StackModel;
 import com.defano.wyldcard.parts.stack.StackPart;
 import com.defano.wyldcard.runtime.HyperCardProperties;
 import com.defano.wyldcard.runtime.StackFrame;
-import com.defano.wyldcard.runtime.symbol.BasicSymbolTable;
+import com.defano.wyldcard.runtime.symbol.GlobalSymbolTable;
+import com.defano.wyldcard.runtime.symbol.GlobalVariable;
+import com.defano.wyldcard.runtime.symbol.LocalSymbolTable;
+import com.defano.wyldcard.runtime.symbol.SymbolReference;
+import com.defano.wyldcard.runtime.symbol.SymbolSlots;
 import com.defano.wyldcard.runtime.symbol.SymbolTable;
+import com.defano.wyldcard.util.ThreadUtils;
 
 import java.util.List;
 import java.util.Stack;
@@ -51,12 +58,13 @@ public class ExecutionContext {
     private final static int MAX_CALL_STACK_DEPTH = 256;
 
     // Globals are shared across all contexts... that what makes them global :)
-    private final static SymbolTable globals = new BasicSymbolTable();
+    private final static GlobalSymbolTable globals = new GlobalSymbolTable();
 
     private StackPart stack;                                // WyldCard stack that this script is bound to
     private Stack<StackFrame> callStack = new Stack<>();    // Call stack
     private Value result;                                   // Value returned by 'the result'
     private CardPart card;                                  // "Current" card in the context of this execution
+    private CardModel cardModel;                            // "Current" card when no view of it exists (i.e., sorting)
     private PartSpecifier theTarget;                        // Part that the message was initially sent
 
     /**
@@ -173,16 +181,18 @@ public class ExecutionContext {
      *
      * @param message   The name of the message (i.e., handler or function) that this frame represents.
      * @param me        The part which the 'me' keyword refers to in this context.
+     * @param script    The script containing the handler or function, or null if not executing a part's script.
+     * @param symbols   The slot layout of the handler or function's local variables.
      * @param arguments Evaluated arguments passed to this handler or function.
      */
-    public void pushStackFrame(String message, PartSpecifier me, List<Value> arguments) throws HtException {
+    public void pushStackFrame(String message, PartSpecifier me, Script script, SymbolSlots symbols, List<Value> arguments) throws HtException {
 
         // Kill script execution before we overflow JVM call stack
         if (callStack.size() == MAX_CALL_STACK_DEPTH) {
             throw new HtSemanticException("Too much recursion.");
         }
 
-        callStack.push(new StackFrame(me, message, arguments));
+        callStack.push(new StackFrame(me, script, symbols, message, arguments));
     }
 
     /**
@@ -245,10 +255,7 @@ public class ExecutionContext {
      * @param id The name of the variable to be made global.
      */
     public void defineGlobal(String id) {
-        if (!globals.exists(id))
-            globals.set(id, new Value());
-
-        getStackFrame().setGlobalInScope(id);
+        getStackFrame().setGlobalInScope(globals.define(id));
     }
 
     /**
@@ -258,8 +265,10 @@ public class ExecutionContext {
      * @param v      The value to assign it
      */
     public void setVariable(String symbol, Value v) {
-        if (globals.exists(symbol) && getStackFrame().isGlobalInScope(symbol))
-            globals.set(symbol, v);
+        GlobalVariable global = getStackFrame().getGlobal(symbol);
+
+        if (global != null)
+            globals.set(global, v);
         else
             getStackFrame().getLocalVariables().set(symbol, v);
     }
@@ -301,9 +310,10 @@ public class ExecutionContext {
      */
     public Value getVariable(String symbol) {
         Value value;
+        GlobalVariable global = getStackFrame().getGlobal(symbol);
 
-        if (globals.exists(symbol) && getStackFrame().isGlobalInScope(symbol))
-            value = globals.get(symbol);
+        if (global != null)
+            value = global.getValue();
         else if (getStackFrame().getLocalVariables().exists(symbol))
             value = getStackFrame().getLocalVariables().get(symbol);
 
@@ -314,6 +324,103 @@ public class ExecutionContext {
         return value;
     }
 
+    /**
+     * Sets (assigns) the referenced variable to the given value within the current frame. Equivalent to
+     * {@link #setVariable(String, Value)}, but local variables resolved to a slot in the executing handler are
+     * assigned without a name lookup.
+     *
+     * @param reference The compiled reference to the variable to assign
+     * @param v         The value to assign it
+     */
+    public void setVariable(SymbolReference reference, Value v) {
+        StackFrame frame = getStackFrame();
+        GlobalVariable global = frame.getGlobal(reference.getKey());
+        int slot = reference.getSlot(frame.getLocalVariables().getSlots());
+
+        if (global != null)
+            globals.set(global, v);
+        else if (slot >= 0)
+            frame.getLocalVariables().set(slot, v);
+        else
+            frame.getLocalVariables().set(reference.getSymbol(), v);
+    }
+
+    /**
+     * Puts a value into the referenced variable, possibly mutating only a portion of the existing value depending on
+     * the given chunk and preposition supplied. Equivalent to {@link #setVariable(String, Preposition, Chunk, Value)},
+     * but local variables resolved to a slot in the executing handler are accessed without a name lookup.
+     *
+     * @param reference   The compiled reference to the variable to change
+     * @param preposition A preposition indicating whether the value will be placed before, after, or into (replacing)
+     *                    the existing value
+     * @param chunk       A chunk of the variable to be mutated, or the entire value if null
+     * @param value       The value to be put into the mutated portion of the variable.
+     * @throws HtException Thrown if an error occurs mutating the variable (i.e., an invalid chunk was specified)
+     */
+    public void setVariable(SymbolReference reference, Preposition preposition, Chunk chunk, Value value) throws HtException {
+        LocalSymbolTable locals = getStackFrame().getLocalVariables();
+        int slot = getLocalSlot(reference, locals);
+
+        if (slot < 0) {
+            setVariable(reference.getSymbol(), preposition, chunk, value);
+            return;
+        }
+
+        // An unassigned local is mutated starting from empty rather than from the symbol's name
+        Value mutable = locals.get(slot);
+        if (mutable == null)
+            mutable = new Value();
+
+        if (chunk != null)
+            mutable = Value.setChunk(this, mutable, preposition, chunk, value);
+        else
+            mutable = Value.setValue(mutable, preposition, value);
+
+        locals.set(slot, mutable);
+    }
+
+    /**
+     * Gets the value of the referenced variable. Equivalent to {@link #getVariable(String)}, but local variables
+     * resolved to a slot in the executing handler are read without a name lookup.
+     *
+     * @param reference The compiled reference to the variable whose value should be retrieved.
+     * @return The value of the referenced symbol.
+     */
+    public Value getVariable(SymbolReference reference) {
+        StackFrame frame = getStackFrame();
+        GlobalVariable global = frame.getGlobal(reference.getKey());
+
+        if (global != null)
+            return global.getValue();
+
+        LocalSymbolTable locals = frame.getLocalVariables();
+        int slot = reference.getSlot(locals.getSlots());
+
+        if (slot < 0)
+            return getVariable(reference.getSymbol());
+
+        // Allow the user to refer to literals without quotation marks
+        Value value = locals.get(slot);
+        return value == null ? new Value(reference.getSymbol()) : value;
+    }
+
+    /**
+     * Gets the slot in the current frame's local variables that the given reference can be accessed through.
+     *
+     * @param reference The compiled variable reference
+     * @param locals    The local variables of the current frame
+     * @return The slot of the referenced variable, or -1 if the reference was not resolved against the executing
+     * handler or refers to an in-scope global (and must, therefore, be accessed by name).
+     */
+    private int getLocalSlot(SymbolReference reference, LocalSymbolTable locals) {
+        int slot = reference.getSlot(locals.getSlots());
+
+        if (slot >= 0 && getStackFrame().getGlobal(reference.getKey()) != null)
+            return -1;
+
+        return slot;
+    }
+
     /**
      * Determines if the given symbol name refers to an in-scope variable (either local or global).
      *
@@ -321,8 +428,7 @@ public class ExecutionContext {
      * @return True if the symbol is an in-scope variable, false otherwise
      */
     private boolean isVariableInScope(String symbol) {
-        return globals.exists(symbol) && getStackFrame().isGlobalInScope(symbol) ||
-                getStackFrame().getLocalVariables().exists(symbol);
+        return getStackFrame().isGlobalInScope(symbol) || getStackFrame().getLocalVariables().exists(symbol);
     }
 
     /**
@@ -410,13 +516,32 @@ public class ExecutionContext {
      */
     public CardPart getCurrentCard() {
         CardPart currentCard = this.card;
-        if (currentCard == null) {
+        if (currentCard == null && cardModel != null) {
+            return acquireCurrentCard(cardModel);
+        } else if (currentCard == null) {
             return getCurrentStack().getDisplayedCard();
         } else {
             return currentCard;
         }
     }
 
+    /**
+     * Returns the model of the card in scope of this execution context. See {@link #getCurrentCard()}.
+     * <p>
+     * Unlike {@link #getCurrentCard()}, this method never requires a view of the card to exist; callers needing only the
+     * card's model (i.e., to find a part on the card) should prefer this method.
+     *
+     * @return The model of the active card in the context of this script execution.
+     */
+    public CardModel getCurrentCardModel() {
+        CardModel currentCardModel = this.cardModel;
+        if (currentCardModel == null) {
+            return getCurrentCard().getCardModel();
+        } else {
+            return currentCardModel;
+        }
+    }
+
     /**
      * Sets the card context in which the current script is executing. That is, when a script calls for "card field 1"
      * the script is referring to the first card on the CardPart passed to this method.
@@ -427,6 +552,32 @@ public class ExecutionContext {
      */
     public void setCurrentCard(CardPart card) {
         this.card = card;
+        this.cardModel = null;
+    }
+
+    /**
+     * Sets the card context in which the current script is executing to a card that may not have a view (i.e., when
+     * sorting cards). A skeleton view of the card is created only if some part of the script requires one; see
+     * {@link #getCurrentCard()}.
+     *
+     * @param cardModel The model of the card representing the context in which the current script is executing, or
+     *                  null to revert to the displayed card.
+     */
+    public void setCurrentCardModel(CardModel cardModel) {
+        this.card = null;
+        this.cardModel = cardModel;
+    }
+
+    private CardPart acquireCurrentCard(CardModel cardModel) {
+        ThreadUtils.invokeAndWaitAsNeeded(() -> {
+            try {
+                card = CardPart.skeletonFromModel(this, cardModel);
+            } catch (HtException e) {
+                throw new IllegalStateException("Bug! Unable to create card.", e);
+            }
+        });
+
+        return card;
     }
 
     /**
@@ -5,6 +5,7 @@ import com.defano.hypertalk.ast.preemptions.Preemption;
 import com.defano.hypertalk.ast.preemptions.TerminateHandlerPreemption;
 import com.defano.hypertalk.ast.expressions.ListExp;
 import com.defano.hypertalk.ast.model.NamedBlock;
+import com.defano.hypertalk.ast.model.Script;
 import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.ast.model.specifiers.PartSpecifier;
 import com.defano.hypertalk.exception.HtException;
@@ -19,12 +20,14 @@ import java.util.List;
 public class DefaultHandlerExecutionTask implements HandlerExecutionTask {
 
     private final ExecutionContext context;
+    private final Script script;
     private final NamedBlock handler;
     private final PartSpecifier me;
     private final ListExp arguments;
 
-    public DefaultHandlerExecutionTask(ExecutionContext context, PartSpecifier me, NamedBlock handler, ListExp arguments) {
+    public DefaultHandlerExecutionTask(ExecutionContext context, PartSpecifier me, Script script, NamedBlock handler, ListExp arguments) {
         this.context = context;
+        this.script = script;
         this.handler = handler;
         this.me = me;
         this.arguments = arguments;
@@ -40,7 +43,7 @@ public class DefaultHandlerExecutionTask implements HandlerExecutionTask {
         HandlerInvocationBridge.getInstance().notifyMessageHandled(new HandlerInvocation(Thread.currentThread().getName(), handler.name, evaluatedArguments, me, context.getTarget() == null, context.getStackDepth(), !handler.isEmptyPassBlock()));
 
         // Push a new context
-        context.pushStackFrame(handler.name, me, evaluatedArguments);
+        context.pushStackFrame(handler.name, me, script, handler.symbols, evaluatedArguments);
 
         // Target refers to the part first receiving the message
         if (context.getTarget() == null) {
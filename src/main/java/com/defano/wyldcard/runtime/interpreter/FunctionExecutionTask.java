@@ -3,6 +3,7 @@ package com.defano.wyldcard.runtime.interpreter;
 import com.defano.hypertalk.ast.preemptions.Preemption;
 import com.defano.hypertalk.ast.expressions.Expression;
 import com.defano.hypertalk.ast.model.NamedBlock;
+import com.defano.hypertalk.ast.model.Script;
 import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.ast.model.specifiers.PartSpecifier;
 import com.defano.hypertalk.exception.HtException;
@@ -18,12 +19,14 @@ import java.util.concurrent.Callable;
 public class FunctionExecutionTask implements Callable<Value> {
 
     private final ExecutionContext context;
+    private final Script script;
     private final NamedBlock function;
     private final Expression arguments;
     private final PartSpecifier me;
 
-    public FunctionExecutionTask(ExecutionContext context, PartSpecifier me, NamedBlock function, Expression arguments) {
+    public FunctionExecutionTask(ExecutionContext context, PartSpecifier me, Script script, NamedBlock function, Expression arguments) {
         this.context = context;
+        this.script = script;
         this.function = function;
         this.arguments = arguments;
         this.me = me;
@@ -37,7 +40,7 @@ public class FunctionExecutionTask implements Callable<Value> {
 
         HandlerInvocationBridge.getInstance().notifyMessageHandled(new HandlerInvocation(Thread.currentThread().getName(), function.name, evaluatedArguments, me, true, context.getStackDepth(), true));
 
-        context.pushStackFrame(function.name, me, evaluatedArguments);
+        context.pushStackFrame(function.name, me, script, function.symbols, evaluatedArguments);
 
         try {
             // Bind argument values to parameter variables in this context
@@ -29,12 +29,20 @@ import java.util.concurrent.ThreadPoolExecutor;
 public class Interpreter {
 
     private final static int MAX_COMPILE_THREADS = 6;          // Simultaneous background parse tasks
-    private final static int MAX_EXECUTOR_THREADS = 8;         // Simultaneous scripts executing
 
     private static final ThreadPoolExecutor bestEffortCompileExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1, new ThreadFactoryBuilder().setNameFormat("beasync-compiler-%d").build());
     private static final ThreadPoolExecutor asyncCompileExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(MAX_COMPILE_THREADS, new ThreadFactoryBuilder().setNameFormat("async-compiler-%d").build());
-    private static final ThreadPoolExecutor scriptExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(MAX_EXECUTOR_THREADS, new ThreadFactoryBuilder().setNameFormat("script-executor-%d").build());
-    private static final ListeningExecutorService listeningScriptExecutor = MoreExecutors.listeningDecorator(scriptExecutor);
+    private static volatile ScriptScheduler scriptScheduler = ScriptScheduler.newDefaultScheduler();
+
+    /**
+     * Replaces the scheduler on which scripts are executed. Scripts already submitted to the previous scheduler
+     * continue to execute on it (but are no longer counted by {@link #getPendingScriptCount()}).
+     *
+     * @param scheduler The scheduler on which to execute scripts
+     */
+    public static void setScriptScheduler(ScriptScheduler scheduler) {
+        scriptScheduler = scheduler;
+    }
 
     /**
      * Attempts to compile the given script text on a background thread and invoke the CompileCompletionObserver
@@ -54,24 +62,25 @@ public class Interpreter {
 
         // Preempt any previously enqueued parse jobs
         bestEffortCompileExecutor.getQueue().clear();
-        bestEffortCompileExecutor.submit(createCompileTask(compilationUnit, scriptText, observer));
+        bestEffortCompileExecutor.submit(createCompileTask(compilationUnit, scriptText, false, observer));
     }
 
     /**
      * Compiles the given script on a background thread and invokes the CompileCompletionObserver (on the background
-     * thread) when complete.
+     * thread) when complete. Scripts are compiled via the {@link ScriptCache}; identical script text is parsed only
+     * once.
      *
      * @param compilationUnit The type of script/scriptlet to compile
      * @param scriptText      The script to parse.
      * @param observer        A non-null callback to fire when compilation is complete.
      */
     public static void asyncCompile(CompilationUnit compilationUnit, String scriptText, CompileCompletionObserver observer) {
-        asyncCompileExecutor.submit(createCompileTask(compilationUnit, scriptText, observer));
+        asyncCompileExecutor.submit(createCompileTask(compilationUnit, scriptText, true, observer));
     }
 
     /**
-     * Compiles the given script on the current thread.
-     *
+     * Compiles the given script on the current thread. Scripts and scriptlets are served from the {@link ScriptCache}
+     * when identical text has already been compiled. Compiled scriptlets are shared and must not be modified.
      *
      * @param compilationUnit The type of script/scriptlet to compile
      * @param scriptText The script text to parse.
@@ -79,6 +88,15 @@ public class Interpreter {
      * @throws HtException Thrown if an error (i.e., syntax error) occurs when compiling.
      */
     public static Script blockingCompile(CompilationUnit compilationUnit, String scriptText) throws HtException {
+        if (scriptText != null && !scriptText.isEmpty()) {
+            switch (compilationUnit) {
+                case SCRIPT:
+                    return ScriptCache.getInstance().getScript(scriptText);
+                case SCRIPTLET:
+                    return ScriptCache.getInstance().getScriptlet(scriptText);
+            }
+        }
+
         return (Script) TwoPhaseParser.parseScript(compilationUnit, scriptText);
     }
 
@@ -157,14 +175,15 @@ public class Interpreter {
      *
      * @param context   The execution context
      * @param me        The part that the 'me' keyword refers to.
+     * @param script    The script in which the function is defined
      * @param function  The compiled UserFunction
      * @param arguments The arguments to be passed to the function
      * @return The value returned by the function (an empty string if the function does not invoke 'return')
      * @throws HtSemanticException Thrown if an error occurs executing the function.
      */
-    public static Value blockingExecuteFunction(ExecutionContext context, PartSpecifier me, UserFunction function, Expression arguments) throws HtException {
+    public static Value blockingExecuteFunction(ExecutionContext context, PartSpecifier me, Script script, UserFunction function, Expression arguments) throws HtException {
         ThreadUtils.assertWorkerThread();
-        return new FunctionExecutionTask(context, me, function, arguments).call();
+        return new FunctionExecutionTask(context, me, script, function, arguments).call();
     }
 
     /**
@@ -188,7 +207,7 @@ public class Interpreter {
 
         // Script implements handler for message; execute it
         if (handler != null) {
-            future = getFutureForHandlerExecutionTask(new DefaultHandlerExecutionTask(context, me, handler, arguments));
+            future = getFutureForHandlerExecutionTask(new DefaultHandlerExecutionTask(context, me, script, handler, arguments));
         }
 
         // Special case: No handler in the script for this message; produce a "no-op" execution
@@ -241,7 +260,7 @@ public class Interpreter {
      */
     public static void asyncInContextEvaluate(ExecutionContext staticContext, String message, MessageEvaluationObserver evaluationObserver) {
 
-        Futures.addCallback(Futures.makeChecked(listeningScriptExecutor.submit(new MessageEvaluationTask(staticContext, message)), new CheckedFutureExceptionMapper()), new FutureCallback<String>() {
+        Futures.addCallback(Futures.makeChecked(scriptScheduler.submit(new MessageEvaluationTask(staticContext, message)), new CheckedFutureExceptionMapper()), new FutureCallback<String>() {
             @Override
             public void onSuccess(String result) {
                 SwingUtilities.invokeLater(() -> evaluationObserver.onMessageEvaluated(result));
@@ -267,7 +286,7 @@ public class Interpreter {
      * @throws HtException Thrown if an error occurs compiling the statements.
      */
     public static CheckedFuture<Boolean, HtException> asyncExecuteString(ExecutionContext context, PartSpecifier me, String statementList) throws HtException {
-        return getFutureForHandlerExecutionTask(new DefaultHandlerExecutionTask(context, me, NamedBlock.anonymousBlock(blockingCompile(CompilationUnit.SCRIPTLET, statementList).getStatements()), new ListExp(null)));
+        return getFutureForHandlerExecutionTask(new DefaultHandlerExecutionTask(context, me, null, NamedBlock.anonymousBlock(blockingCompile(CompilationUnit.SCRIPTLET, statementList).getStatements()), new ListExp(null)));
     }
 
     /**
@@ -277,17 +296,17 @@ public class Interpreter {
      * @return The number of active or pending scripts
      */
     public static int getPendingScriptCount() {
-        return scriptExecutor.getActiveCount() + scriptExecutor.getQueue().size();
+        return scriptScheduler.getPendingScriptCount();
     }
 
     /**
-     * Determines if the current thread is a known script execution thread. That is, one of the eight threads used for
-     * normal script execution.
+     * Determines if the current thread is a script execution thread. That is, a thread executing a script submitted
+     * to the {@link ScriptScheduler}.
      *
      * @return True if the current thread is a script-executor thread.
      */
     private static boolean isScriptExecutorThread() {
-        return Thread.currentThread().getName().startsWith("script-executor-");
+        return ScriptScheduler.isScriptThread();
     }
 
     /**
@@ -313,7 +332,7 @@ public class Interpreter {
                 return Futures.makeChecked(Futures.immediateFailedCheckedFuture(e), new CheckedFutureExceptionMapper());
             }
         } else {
-            return Futures.makeChecked(listeningScriptExecutor.submit(handlerTask), new CheckedFutureExceptionMapper());
+            return Futures.makeChecked(scriptScheduler.submit(handlerTask), new CheckedFutureExceptionMapper());
         }
     }
 
@@ -323,16 +342,21 @@ public class Interpreter {
      *
      * @param compilationUnit The type of script/scriptlet to compile
      * @param scriptText      The script to parse.
+     * @param useCache        When true, the compiled script is obtained via {@link #blockingCompile(CompilationUnit, String)}
+     *                        (and thus may be served from the {@link ScriptCache}); when false, the script is always
+     *                        parsed (useful for as-you-type syntax checking, which would otherwise flood the cache).
      * @param observer        A non-null callback to fire when compilation is complete.
      * @return A runnable that compiles the script
      */
-    private static Runnable createCompileTask(CompilationUnit compilationUnit, String scriptText, CompileCompletionObserver observer) {
+    private static Runnable createCompileTask(CompilationUnit compilationUnit, String scriptText, boolean useCache, CompileCompletionObserver observer) {
         return () -> {
             HtException generatedError = null;
             Object compiledScript = null;
 
             try {
-                compiledScript = TwoPhaseParser.parseScript(compilationUnit, scriptText);
+                compiledScript = useCache ?
+                        blockingCompile(compilationUnit, scriptText) :
+                        TwoPhaseParser.parseScript(compilationUnit, scriptText);
             } catch (HtException e) {
                 generatedError = e;
             }
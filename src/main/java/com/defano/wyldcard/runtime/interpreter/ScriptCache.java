@@ -0,0 +1,169 @@
+package com.defano.wyldcard.runtime.interpreter;
+
+import com.defano.hypertalk.ast.model.Script;
+import com.defano.hypertalk.exception.HtException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A process-wide cache of compiled part scripts and scriptlets, keyed by script text.
+ * <p>
+ * Stacks frequently contain many parts sharing the same (boilerplate) script; without caching, each of these scripts
+ * would be parsed independently when the stack is opened. Compiled scripts are not modified after parsing, so a
+ * single abstract syntax tree can be shared by every part whose script text is identical. Each caller receives its
+ * own {@link Script#copyOf()} so that breakpoints applied to one part do not affect others.
+ * <p>
+ * The least-recently-used script is evicted when the cache exceeds {@link #MAX_CACHED_SCRIPTS}. Scripts that fail to
+ * compile are not cached.
+ * <p>
+ * Scriptlets (text evaluated by 'do', 'send', 'the value of' and the message box) are cached separately. Scripts
+ * frequently evaluate the same scriptlet text inside of a loop, and much of that text is not valid HyperTalk at all
+ * (HyperTalk evaluates such text as a literal). Thus, syntax errors are cached too, so that invalid text is parsed
+ * only once.
+ */
+public class ScriptCache {
+
+    private final static int MAX_CACHED_SCRIPTS = 1000;
+    private final static int MAX_CACHED_SCRIPTLETS = 500;
+    private final static int MAX_CACHEABLE_SCRIPTLET_LENGTH = 4096;
+
+    private final static ScriptCache instance = new ScriptCache();
+
+    private final Cache<String, Script> scripts = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_SCRIPTS)
+            .recordStats()
+            .build();
+
+    private final Cache<String, CompiledScriptlet> scriptlets = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_SCRIPTLETS)
+            .recordStats()
+            .build();
+
+    private ScriptCache() {}
+
+    public static ScriptCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Gets the compiled form of the given script text, compiling it on the current thread only if an equivalent
+     * script has not already been compiled. When multiple threads request the same uncached script concurrently, only
+     * one of them compiles it; the others wait for its result.
+     *
+     * @param scriptText The script text to compile (as a {@link CompilationUnit#SCRIPT}).
+     * @return A copy of the cached script, sharing the cached abstract syntax tree.
+     * @throws HtException Thrown if the script text contains a syntax error.
+     */
+    public Script getScript(String scriptText) throws HtException {
+        try {
+            return scripts.get(scriptText, () -> (Script) TwoPhaseParser.parseScript(CompilationUnit.SCRIPT, scriptText)).copyOf();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HtException) {
+                throw (HtException) e.getCause();
+            }
+            throw new IllegalStateException("Bug! Unexpected error compiling script.", e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * Gets the compiled form of the given scriptlet text (a {@link CompilationUnit#SCRIPTLET}), compiling it on the
+     * current thread only if the same text has not already been compiled.
+     * <p>
+     * Scriptlets have no breakpoints, so the cached script itself is returned; callers must not modify it. Very long
+     * scriptlets (typically generated text passed to 'do') are compiled but not cached.
+     *
+     * @param scriptletText The scriptlet text to compile.
+     * @return The compiled scriptlet
+     * @throws HtException Thrown if the text is not a valid scriptlet; this may be a previously-cached error.
+     */
+    public Script getScriptlet(String scriptletText) throws HtException {
+        if (scriptletText.length() > MAX_CACHEABLE_SCRIPTLET_LENGTH) {
+            return (Script) TwoPhaseParser.parseScript(CompilationUnit.SCRIPTLET, scriptletText);
+        }
+
+        CompiledScriptlet compiled = scriptlets.getIfPresent(scriptletText);
+
+        if (compiled == null) {
+            try {
+                compiled = new CompiledScriptlet((Script) TwoPhaseParser.parseScript(CompilationUnit.SCRIPTLET, scriptletText), null);
+            } catch (HtException e) {
+                // Errors lacking a breadcrumb get one added by the first script to catch them; don't share those
+                if (e.getBreadcrumb() == null) {
+                    throw e;
+                }
+                compiled = new CompiledScriptlet(null, e);
+            }
+
+            scriptlets.put(scriptletText, compiled);
+        }
+
+        if (compiled.error != null) {
+            throw compiled.error;
+        }
+
+        return compiled.script;
+    }
+
+    /**
+     * Gets the number of script compilations that were satisfied from this cache.
+     *
+     * @return The cache hit count
+     */
+    public long getHitCount() {
+        return scripts.stats().hitCount();
+    }
+
+    /**
+     * Gets the number of script compilations that required the script to be parsed.
+     *
+     * @return The cache miss count
+     */
+    public long getMissCount() {
+        return scripts.stats().missCount();
+    }
+
+    /**
+     * Gets a snapshot of this cache's statistics (hits, misses, load time and evictions).
+     *
+     * @return The cache statistics
+     */
+    public CacheStats getStats() {
+        return scripts.stats();
+    }
+
+    /**
+     * Gets a snapshot of the scriptlet cache's statistics (hits, misses and evictions).
+     *
+     * @return The scriptlet cache statistics
+     */
+    public CacheStats getScriptletStats() {
+        return scriptlets.stats();
+    }
+
+    /**
+     * Removes all compiled scripts and scriptlets from the cache.
+     */
+    public void invalidateAll() {
+        scripts.invalidateAll();
+        scriptlets.invalidateAll();
+    }
+
+    /**
+     * The outcome of compiling a scriptlet: either the compiled script or the syntax error it produced.
+     */
+    private static class CompiledScriptlet {
+        private final Script script;
+        private final HtException error;
+
+        private CompiledScriptlet(Script script, HtException error) {
+            this.script = script;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.defano.wyldcard.runtime.interpreter;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules the execution of script handlers, functions and message-box evaluations on script threads.
+ * <p>
+ * A handler blocked in a wait, dialog or debugger breakpoint occupies its script thread until it resumes, so the
+ * scheduler's backend determines how many scripts may be parked at once without starving newly-sent messages; see
+ * {@link VirtualThreadScriptScheduler} and {@link ThreadPoolScriptScheduler}.
+ * <p>
+ * A thread is identified as a script thread while (and only while) it executes a task submitted to a scheduler,
+ * independent of how the backend creates or names its threads.
+ */
+public abstract class ScriptScheduler {
+
+    // Name of the system property used to choose a scheduler backend: "virtual", "elastic" or "pooled"
+    public final static String SCHEDULER_PROPERTY = "wyldcard.scriptScheduler";
+
+    private final static ThreadLocal<Boolean> executingScript = ThreadLocal.withInitial(() -> false);
+
+    private final AtomicInteger pendingScriptCount = new AtomicInteger();
+
+    /**
+     * Creates the scheduler named by the {@link #SCHEDULER_PROPERTY} system property; by default, one running each
+     * script on its own virtual thread when the JVM supports them, or on an elastic pool of threads when it does not.
+     *
+     * @return A new scheduler
+     */
+    public static ScriptScheduler newDefaultScheduler() {
+        String backend = System.getProperty(SCHEDULER_PROPERTY, "virtual");
+
+        if (backend.equalsIgnoreCase("pooled")) {
+            return ThreadPoolScriptScheduler.fixed();
+        } else if (backend.equalsIgnoreCase("virtual") && VirtualThreadScriptScheduler.isSupported()) {
+            return new VirtualThreadScriptScheduler();
+        } else {
+            return ThreadPoolScriptScheduler.elastic();
+        }
+    }
+
+    /**
+     * @return The executor on which this scheduler runs scripts
+     */
+    protected abstract ListeningExecutorService getExecutor();
+
+    /**
+     * Schedules a script task for execution on a script thread.
+     *
+     * @param task The task to execute
+     * @param <T> The type of the task's result
+     * @return A future for the task's result
+     */
+    public <T> ListenableFuture<T> submit(Callable<T> task) {
+        pendingScriptCount.incrementAndGet();
+
+        ListenableFuture<T> future = getExecutor().submit(() -> {
+            executingScript.set(true);
+            try {
+                return task.call();
+            } finally {
+                executingScript.set(false);
+            }
+        });
+
+        // Task is no longer pending once complete (or cancelled before it began)
+        future.addListener(pendingScriptCount::decrementAndGet, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * @return The number of scripts submitted to this scheduler that are executing (or parked), or waiting to execute.
+     */
+    public int getPendingScriptCount() {
+        return pendingScriptCount.get();
+    }
+
+    /**
+     * @return True if the current thread is executing a script task submitted to any scheduler.
+     */
+    public static boolean isScriptThread() {
+        return executingScript.get();
+    }
+}
@@ -0,0 +1,62 @@
+package com.defano.wyldcard.runtime.interpreter;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A script scheduler that runs scripts on a pool of platform threads; the fallback when virtual threads are not
+ * available.
+ */
+public class ThreadPoolScriptScheduler extends ScriptScheduler {
+
+    private final static int FIXED_THREADS = 8;                 // Simultaneous scripts executing in a fixed pool
+    private final static int ELASTIC_CORE_THREADS = 8;          // Threads kept alive in an elastic pool
+    private final static int ELASTIC_KEEPALIVE_SECONDS = 60;    // Idle time before an elastic pool's extra thread exits
+
+    private final ListeningExecutorService executor;
+
+    private ThreadPoolScriptScheduler(ThreadPoolExecutor executor) {
+        this.executor = MoreExecutors.listeningDecorator(executor);
+    }
+
+    /**
+     * Creates a scheduler that runs at most eight scripts at once; further scripts wait for a thread to become free,
+     * even when every executing script is parked.
+     *
+     * @return The scheduler
+     */
+    public static ThreadPoolScriptScheduler fixed() {
+        return new ThreadPoolScriptScheduler(new ThreadPoolExecutor(FIXED_THREADS, FIXED_THREADS,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                newThreadFactoryBuilder().build()));
+    }
+
+    /**
+     * Creates a scheduler that never queues a script: a script submitted when every thread is busy (or parked) runs on
+     * a new thread. Threads beyond the core few exit once they have been idle for a while.
+     *
+     * @return The scheduler
+     */
+    public static ThreadPoolScriptScheduler elastic() {
+        return new ThreadPoolScriptScheduler(new ThreadPoolExecutor(ELASTIC_CORE_THREADS, Integer.MAX_VALUE,
+                ELASTIC_KEEPALIVE_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                newThreadFactoryBuilder().build()));
+    }
+
+    private static ThreadFactoryBuilder newThreadFactoryBuilder() {
+        return new ThreadFactoryBuilder().setNameFormat("script-executor-%d");
+    }
+
+    @Override
+    protected ListeningExecutorService getExecutor() {
+        return executor;
+    }
+}
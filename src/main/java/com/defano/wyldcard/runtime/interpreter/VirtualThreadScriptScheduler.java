@@ -0,0 +1,71 @@
+package com.defano.wyldcard.runtime.interpreter;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A script scheduler that runs each script on its own virtual thread, so that thousands of scripts may be parked (in a
+ * wait, dialog or breakpoint) at once at little cost.
+ * <p>
+ * Virtual threads are available only when running on Java 21 or later; WyldCard is built for Java 8, so they're
+ * created reflectively. See {@link #isSupported()}.
+ */
+public class VirtualThreadScriptScheduler extends ScriptScheduler {
+
+    private final static ThreadFactory virtualThreadFactory = newVirtualThreadFactory();
+
+    private final ListeningExecutorService executor;
+
+    public VirtualThreadScriptScheduler() {
+        if (!isSupported()) {
+            throw new IllegalStateException("Bug! Virtual threads are not supported by this JVM.");
+        }
+
+        this.executor = MoreExecutors.listeningDecorator(newThreadPerTaskExecutor(virtualThreadFactory));
+    }
+
+    /**
+     * @return True if the JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+        return virtualThreadFactory != null;
+    }
+
+    @Override
+    protected ListeningExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Equivalent to {@code Thread.ofVirtual().name("script-executor-", 0).factory()}.
+     *
+     * @return A factory of virtual threads, or null if the JVM does not support them
+     */
+    private static ThreadFactory newVirtualThreadFactory() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "script-executor-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Equivalent to {@code Executors.newThreadPerTaskExecutor(threadFactory)}.
+     */
+    private static ExecutorService newThreadPerTaskExecutor(ThreadFactory threadFactory) {
+        try {
+            Method factoryMethod = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) factoryMethod.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Bug! Virtual threads are not supported by this JVM.", e);
+        }
+    }
+}
@@ -15,10 +15,25 @@ public class BufferedImageSerializer implements JsonSerializer<BufferedImage>, J
 
     @Override
     public BufferedImage deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        byte[] imageData = Base64.getDecoder().decode(json.getAsString());
+        return decodeImage(Base64.getDecoder().decode(json.getAsString()));
+    }
+
+    @Override
+    public JsonElement serialize(BufferedImage src, Type typeOfSrc, JsonSerializationContext context) {
+        return new JsonPrimitive(Base64.getEncoder().encodeToString(encodeImage(src)));
+    }
 
+    /**
+     * Decodes an image in any supported {@link ImageFormat}.
+     *
+     * @param imageData The encoded image
+     * @return The decoded image
+     */
+    static BufferedImage decodeImage(byte[] imageData) {
         if (imageData == null || imageData.length == 0) {
             throw new IllegalStateException("Bogus image size");
+        } else if (RasterImageCodec.isRasterImage(imageData)) {
+            return RasterImageCodec.decode(imageData);
         } else {
             try {
                 ByteArrayInputStream stream = new ByteArrayInputStream(imageData);
@@ -29,15 +44,29 @@ public class BufferedImageSerializer implements JsonSerializer<BufferedImage>, J
         }
     }
 
-    @Override
-    public JsonElement serialize(BufferedImage src, Type typeOfSrc, JsonSerializationContext context) {
+    static byte[] encodeImage(BufferedImage image) {
+        return encodeImage(image, ImageFormat.PNG);
+    }
+
+    /**
+     * Encodes an image in the given format.
+     *
+     * @param image  The image to encode
+     * @param format The format in which to encode it
+     * @return The encoded image
+     */
+    static byte[] encodeImage(BufferedImage image, ImageFormat format) {
+        if (format == ImageFormat.RASTER) {
+            return RasterImageCodec.encode(image);
+        }
+
         try {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(src, "png", baos);
+            ImageIO.write(image, "png", baos);
             baos.flush();
             byte[] serialized = baos.toByteArray();
             baos.close();
-            return new JsonPrimitive(Base64.getEncoder().encodeToString(serialized));
+            return serialized;
         } catch (IOException e) {
             throw new RuntimeException("An error occurred while trying to save the image.", e);
         }
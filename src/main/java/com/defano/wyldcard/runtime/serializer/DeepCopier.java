@@ -0,0 +1,405 @@
+package com.defano.wyldcard.runtime.serializer;
+
+import com.defano.hypertalk.ast.model.Value;
+
+import javax.annotation.PostConstruct;
+import javax.swing.text.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.WritableRaster;
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Makes deep copies of model objects (parts, and the properties, images and documents they contain) by walking the
+ * object graph directly rather than by serializing it to JSON and parsing it back.
+ * <p>
+ * Copies are made with the same semantics as a serialization round trip: static, transient and synthetic fields are
+ * not copied (transient fields hold whatever value the class's no-argument constructor gives them, or their default
+ * value when the class has no such constructor) and the object's @PostConstruct method is invoked once its fields have
+ * been copied. In addition:
+ * <ul>
+ *     <li>Immutable objects (strings, boxed primitives, enums, colors, fonts and {@link Value}s) are shared, not
+ *     copied.</li>
+ *     <li>Images are copied raster-to-raster, without encoding them (images still being decoded are first waited
+ *     upon).</li>
+ *     <li>Styled documents are copied element-by-element, preserving text, character and paragraph attributes.</li>
+ *     <li>An object referenced from more than one place in the graph is copied once, and cycles are permitted.</li>
+ *     <li>Collections and maps keep their class where it can be instantiated; enum sets and maps, unmodifiable views
+ *     and immutable collections, and fixed-size lists (as produced by {@link Arrays#asList(Object[])}) are copied as
+ *     collections of the same kind.</li>
+ * </ul>
+ */
+public class DeepCopier {
+
+    private final static Map<Class<?>, ClassInfo> classInfo = new ConcurrentHashMap<>();
+    private final static Class<?> fixedSizeListClass = Arrays.asList().getClass();
+    private final static Method allocateInstance;
+    private final static Object unsafe;
+
+    static {
+        Object theUnsafe = null;
+        Method allocate = null;
+
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafeField = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafeField.setAccessible(true);
+
+            theUnsafe = theUnsafeField.get(null);
+            allocate = unsafeClass.getMethod("allocateInstance", Class.class);
+        } catch (Exception e) {
+            // Classes without a no-argument constructor can't be copied
+        }
+
+        unsafe = theUnsafe;
+        allocateInstance = allocate;
+    }
+
+    // Copies made so far, keyed by the object they were copied from
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+    private DeepCopier() {
+    }
+
+    /**
+     * Makes a deep copy of the given object.
+     *
+     * @param object The object to copy
+     * @param <T>    The type of the object
+     * @return A copy of the object
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copy(T object) {
+        return (T) new DeepCopier().copyObject(object);
+    }
+
+    /**
+     * Makes a deep copy of the given object, except for the named fields of the object itself, which are left as they
+     * would be were they missing from the object's serialized form.
+     *
+     * @param object         The object to copy
+     * @param excludedFields The names of the object's fields that should not be copied
+     * @param <T>            The type of the object
+     * @return A copy of the object
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copyExcluding(T object, String... excludedFields) {
+        return (T) new DeepCopier().copyFields(object, Arrays.asList(excludedFields));
+    }
+
+    private Object copyObject(Object object) {
+        if (object == null || isImmutable(object.getClass())) {
+            return object;
+        }
+
+        Object copy = copies.get(object);
+        if (copy != null) {
+            return copy;
+        }
+
+        if (object instanceof BufferedImage) {
+            copy = copyImage((BufferedImage) object);
+        } else if (object instanceof LazyImage) {
+            copy = LazyImage.of((BufferedImage) copyObject(((LazyImage) object).get()));
+            copies.put(object, copy);
+        } else if (object instanceof StyledDocument) {
+            copy = copyDocument((StyledDocument) object);
+        } else if (object.getClass().isArray()) {
+            copy = copyArray(object);
+        } else if (object instanceof Collection) {
+            copy = copyCollection((Collection<?>) object);
+        } else if (object instanceof Map) {
+            copy = copyMap((Map<?, ?>) object);
+        } else {
+            copy = copyFields(object, Collections.emptyList());
+        }
+
+        return copy;
+    }
+
+    private static boolean isImmutable(Class<?> clazz) {
+        return clazz.isPrimitive() ||
+                clazz.isEnum() ||
+                clazz.getSuperclass() != null && clazz.getSuperclass().isEnum() ||
+                clazz == String.class ||
+                clazz == Boolean.class ||
+                clazz == Character.class ||
+                Number.class.isAssignableFrom(clazz) && clazz.getName().startsWith("java.lang.") ||
+                clazz == BigDecimal.class ||
+                clazz == BigInteger.class ||
+                clazz == Class.class ||
+                clazz == Value.class ||
+                clazz == Color.class ||
+                clazz == Font.class;
+    }
+
+    private Object copyImage(BufferedImage image) {
+        ColorModel colorModel = image.getColorModel();
+        WritableRaster raster = image.copyData(image.getRaster().createCompatibleWritableRaster());
+
+        BufferedImage copy = new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), null);
+        copies.put(image, copy);
+        return copy;
+    }
+
+    private Object copyDocument(StyledDocument document) {
+        DefaultStyledDocument copy = new DefaultStyledDocument();
+        copies.put(document, copy);
+
+        try {
+            // Copy each run of text with its character attributes...
+            Element root = document.getDefaultRootElement();
+            for (int paragraph = 0; paragraph < root.getElementCount(); paragraph++) {
+                Element thisParagraph = root.getElement(paragraph);
+
+                for (int run = 0; run < thisParagraph.getElementCount(); run++) {
+                    Element thisRun = thisParagraph.getElement(run);
+
+                    // The document's final run includes an implicit newline that is not part of its content
+                    int start = thisRun.getStartOffset();
+                    int end = Math.min(thisRun.getEndOffset(), document.getLength());
+
+                    if (end > start) {
+                        copy.insertString(copy.getLength(), document.getText(start, end - start), attributesOf(thisRun));
+                    }
+                }
+            }
+
+            // ... then apply paragraph attributes
+            for (int paragraph = 0; paragraph < root.getElementCount(); paragraph++) {
+                Element thisParagraph = root.getElement(paragraph);
+                copy.setParagraphAttributes(thisParagraph.getStartOffset(), thisParagraph.getEndOffset() - thisParagraph.getStartOffset(), attributesOf(thisParagraph), false);
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Bug! Failed to copy document.", e);
+        }
+
+        return copy;
+    }
+
+    /**
+     * Gets a copy of an element's attributes, omitting the attributes it inherits from its parent (or its logical
+     * style), which belong to the document being copied.
+     */
+    private static AttributeSet attributesOf(Element element) {
+        SimpleAttributeSet attributes = new SimpleAttributeSet(element.getAttributes());
+        attributes.removeAttribute(AttributeSet.ResolveAttribute);
+        return attributes;
+    }
+
+    private Object copyArray(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        copies.put(array, copy);
+
+        if (array.getClass().getComponentType().isPrimitive()) {
+            System.arraycopy(array, 0, copy, 0, length);
+        } else {
+            for (int index = 0; index < length; index++) {
+                Array.set(copy, index, copyObject(Array.get(array, index)));
+            }
+        }
+
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object copyCollection(Collection<?> collection) {
+        Object[] elements = collection.toArray();
+
+        // Enum sets hold only enum constants, which are shared
+        if (collection instanceof EnumSet) {
+            Object copy = ((EnumSet<?>) collection).clone();
+            copies.put(collection, copy);
+            return copy;
+        }
+
+        // Fixed-size lists can't be added to; the copy is filled in place so that a cycle through it sees the copy
+        if (collection.getClass() == fixedSizeListClass) {
+            List<Object> copy = Arrays.asList(new Object[elements.length]);
+            copies.put(collection, copy);
+
+            for (int index = 0; index < elements.length; index++) {
+                copy.set(index, copyObject(elements[index]));
+            }
+
+            return copy;
+        }
+
+        Collection<Object> contents;
+        if (collection instanceof SortedSet) {
+            contents = new TreeSet<>(((SortedSet<Object>) collection).comparator());
+        } else {
+            contents = isUnmodifiable(collection) ? null : (Collection<Object>) newInstance(collection.getClass());
+            if (contents == null) {
+                contents = collection instanceof Set ? new LinkedHashSet<>() : new ArrayList<>();
+            }
+        }
+
+        // An unmodifiable collection is copied as an unmodifiable view of a collection holding the copied elements
+        Collection<Object> copy = contents;
+        if (isUnmodifiable(collection)) {
+            if (contents instanceof SortedSet) {
+                copy = Collections.unmodifiableSortedSet((SortedSet<Object>) contents);
+            } else if (contents instanceof Set) {
+                copy = Collections.unmodifiableSet((Set<Object>) contents);
+            } else {
+                copy = Collections.unmodifiableList((List<Object>) contents);
+            }
+        }
+
+        copies.put(collection, copy);
+
+        for (Object thisElement : elements) {
+            contents.add(copyObject(thisElement));
+        }
+
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object copyMap(Map<?, ?> map) {
+        Map<Object, Object> contents;
+
+        if (map instanceof EnumMap) {
+            contents = (Map<Object, Object>) ((EnumMap<?, ?>) map).clone();
+            contents.clear();
+        } else if (map instanceof SortedMap) {
+            contents = new TreeMap<>(((SortedMap<Object, Object>) map).comparator());
+        } else {
+            contents = isUnmodifiable(map) ? null : (Map<Object, Object>) newInstance(map.getClass());
+            if (contents == null) {
+                contents = new LinkedHashMap<>();
+            }
+        }
+
+        Map<Object, Object> copy = contents;
+        if (isUnmodifiable(map)) {
+            copy = contents instanceof SortedMap ?
+                    Collections.unmodifiableSortedMap((SortedMap<Object, ?>) contents) :
+                    Collections.unmodifiableMap(contents);
+        }
+
+        copies.put(map, copy);
+
+        for (Map.Entry<?, ?> thisEntry : new ArrayList<>(map.entrySet())) {
+            contents.put(copyObject(thisEntry.getKey()), copyObject(thisEntry.getValue()));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Determines if a collection or map is one of the JDK's unmodifiable views or immutable collections (such as
+     * those produced by {@link Collections#unmodifiableList(List)} or {@link Collections#emptyMap()}), none of which
+     * can be instantiated and then filled.
+     */
+    private static boolean isUnmodifiable(Object collection) {
+        String className = collection.getClass().getName();
+        return className.startsWith("java.util.Collections$Unmodifiable") ||
+                className.startsWith("java.util.Collections$Empty") ||
+                className.startsWith("java.util.Collections$Singleton") ||
+                className.startsWith("java.util.ImmutableCollections$");
+    }
+
+    private Object copyFields(Object object, Collection<String> excludedFields) {
+        ClassInfo info = classInfo.computeIfAbsent(object.getClass(), ClassInfo::new);
+        Object copy = info.allocate();
+        copies.put(object, copy);
+
+        try {
+            for (Field thisField : info.fields) {
+                if (!excludedFields.contains(thisField.getName())) {
+                    thisField.set(copy, copyObject(thisField.get(object)));
+                }
+            }
+
+            if (info.postConstruct != null) {
+                info.postConstruct.invoke(copy);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Bug! Failed to copy " + object.getClass().getName(), e);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+
+        return copy;
+    }
+
+    /**
+     * Creates an instance of the given class using its no-argument constructor.
+     *
+     * @return The new instance, or null if the class has no accessible no-argument constructor.
+     */
+    private static Object newInstance(Class<?> clazz) {
+        try {
+            Constructor<?> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The means of copying objects of a given class, determined once per class.
+     */
+    private static class ClassInfo {
+        private final Class<?> clazz;
+        private final Constructor<?> constructor;
+        private final List<Field> fields = new ArrayList<>();
+        private Method postConstruct;
+
+        private ClassInfo(Class<?> clazz) {
+            this.clazz = clazz;
+
+            Constructor<?> constructor;
+            try {
+                constructor = clazz.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                constructor = null;
+            }
+            this.constructor = constructor;
+
+            for (Class<?> t = clazz; t != null && t != Object.class; t = t.getSuperclass()) {
+                for (Field thisField : t.getDeclaredFields()) {
+                    int modifiers = thisField.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !thisField.isSynthetic()) {
+                        thisField.setAccessible(true);
+                        fields.add(thisField);
+                    }
+                }
+
+                // The most-derived @PostConstruct method is invoked (virtually), as when deserializing
+                for (Method thisMethod : t.getDeclaredMethods()) {
+                    if (postConstruct == null && thisMethod.isAnnotationPresent(PostConstruct.class)) {
+                        thisMethod.setAccessible(true);
+                        postConstruct = thisMethod;
+                    }
+                }
+            }
+        }
+
+        private Object allocate() {
+            try {
+                if (constructor != null) {
+                    return constructor.newInstance();
+                } else if (allocateInstance != null) {
+                    return allocateInstance.invoke(unsafe, clazz);
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Bug! Failed to instantiate " + clazz.getName(), e);
+            }
+
+            throw new IllegalStateException("Bug! Can't instantiate " + clazz.getName());
+        }
+    }
+}
@@ -23,7 +23,7 @@ class DocumentSerializer implements JsonSerializer<StyledDocument>, JsonDeserial
         return new JsonPrimitive(Base64.getEncoder().encodeToString(rtf));
     }
 
-    private StyledDocument convertRtfToDocument(byte[] rtf) {
+    static StyledDocument convertRtfToDocument(byte[] rtf) {
         StyledDocument doc = new DefaultStyledDocument();
 
         try {
@@ -44,7 +44,7 @@ class DocumentSerializer implements JsonSerializer<StyledDocument>, JsonDeserial
         return doc;
     }
 
-    private byte[] convertDocumentToRtf(StyledDocument doc) {
+    static byte[] convertDocumentToRtf(StyledDocument doc) {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try {
             new RTFEditorKit().write(baos, doc, 0, doc.getLength());
@@ -0,0 +1,34 @@
+package com.defano.wyldcard.runtime.serializer;
+
+/**
+ * The encodings in which a stack's images (card and background paint, icons and patterns) can be saved.
+ */
+public enum ImageFormat {
+
+    /**
+     * Palette-indexed or ARGB pixel data, deflated; see {@link RasterImageCodec}. Faster to save and open, and
+     * typically smaller, than PNG.
+     */
+    RASTER,
+
+    /**
+     * Portable Network Graphics, as encoded by {@link javax.imageio.ImageIO}.
+     */
+    PNG;
+
+    /**
+     * Gets the image format with the given name (ignoring case).
+     *
+     * @param name The name of the format
+     * @return The named format, or {@link #RASTER} if no format has the given name.
+     */
+    public static ImageFormat fromName(String name) {
+        for (ImageFormat thisFormat : values()) {
+            if (thisFormat.name().equalsIgnoreCase(name.trim())) {
+                return thisFormat;
+            }
+        }
+
+        return RASTER;
+    }
+}
@@ -0,0 +1,125 @@
+package com.defano.wyldcard.runtime.serializer;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An image that may still be being decoded.
+ * <p>
+ * Images read from a stack file are decoded in the background, in parallel, on a bounded pool of low-priority threads.
+ * Pending images are decoded in order of priority (lowest value first; see {@link #setPriority(int)}) and, among images
+ * of equal priority, in the order they were read. Fetching an image that has not yet been decoded decodes it
+ * immediately on the fetching thread (or, if a background thread has already begun decoding it, waits for that thread
+ * to finish); thus, fetching an image never waits on the decoding of any other image.
+ */
+public class LazyImage {
+
+    // Priority of images that haven't been prioritized; decoded after any image that has
+    public final static int DEFAULT_PRIORITY = Integer.MAX_VALUE;
+
+    private final static int DECODER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private final static ThreadPoolExecutor decodeExecutor = new ThreadPoolExecutor(DECODER_THREADS, DECODER_THREADS,
+            0L, TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(),
+            new ThreadFactoryBuilder().setNameFormat("image-decoder-%d").setPriority(Thread.MIN_PRIORITY).setDaemon(true).build());
+
+    private final static AtomicLong decodeSequence = new AtomicLong();
+
+    private volatile BufferedImage image;
+    private volatile DecodeTask task;
+
+    private LazyImage(BufferedImage image) {
+        this.image = image;
+    }
+
+    private LazyImage(byte[] imageData) {
+        this.task = new DecodeTask(imageData);
+        decodeExecutor.execute(task);
+    }
+
+    /**
+     * @param image An image that has already been decoded
+     * @return The image as a LazyImage, or null if the image is null
+     */
+    public static LazyImage of(BufferedImage image) {
+        return image == null ? null : new LazyImage(image);
+    }
+
+    /**
+     * Begins decoding an image in the background; see {@link BufferedImageSerializer#decodeImage(byte[])}.
+     *
+     * @param imageData The encoded image
+     * @return The image, which may not yet have been decoded
+     */
+    public static LazyImage decode(byte[] imageData) {
+        return new LazyImage(imageData);
+    }
+
+    /**
+     * Gets the image, decoding it on the current thread if it has not yet been decoded.
+     *
+     * @return The decoded image
+     */
+    public BufferedImage get() {
+        DecodeTask pending = task;
+
+        if (pending != null) {
+            // Decode the image here, unless another thread already is (in which case, wait for it)
+            pending.run();
+
+            try {
+                image = pending.get();
+                task = null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while decoding image.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        return image;
+    }
+
+    /**
+     * @return True if the image has been decoded; that is, {@link #get()} will not block.
+     */
+    public boolean isReady() {
+        DecodeTask pending = task;
+        return pending == null || pending.isDone();
+    }
+
+    /**
+     * Changes the order in which this image will be decoded, relative to other pending images. Has no effect if the
+     * image has already been (or is being) decoded.
+     *
+     * @param priority The image's priority; lower values are decoded first.
+     */
+    public void setPriority(int priority) {
+        DecodeTask pending = task;
+
+        // Re-queue the task in its new position; if it can't be removed, it's already been dequeued
+        if (pending != null && pending.priority != priority && decodeExecutor.remove(pending)) {
+            pending.priority = priority;
+            decodeExecutor.execute(pending);
+        }
+    }
+
+    private static class DecodeTask extends FutureTask<BufferedImage> implements Comparable<DecodeTask> {
+        private final long sequence = decodeSequence.getAndIncrement();
+        private volatile int priority = DEFAULT_PRIORITY;
+
+        private DecodeTask(byte[] imageData) {
+            super(() -> BufferedImageSerializer.decodeImage(imageData));
+        }
+
+        @Override
+        public int compareTo(DecodeTask o) {
+            return priority != o.priority ? Integer.compare(priority, o.priority) : Long.compare(sequence, o.sequence);
+        }
+    }
+}
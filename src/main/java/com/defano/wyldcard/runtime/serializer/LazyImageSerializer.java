@@ -0,0 +1,22 @@
+package com.defano.wyldcard.runtime.serializer;
+
+import com.google.gson.*;
+
+import java.lang.reflect.Type;
+import java.util.Base64;
+
+/**
+ * Used to serialize/deserialize a {@link LazyImage} exactly as its image would be by {@link BufferedImageSerializer};
+ * deserialized images are decoded in the background.
+ */
+class LazyImageSerializer implements JsonSerializer<LazyImage>, JsonDeserializer<LazyImage> {
+    @Override
+    public LazyImage deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+        return LazyImage.decode(Base64.getDecoder().decode(json.getAsString()));
+    }
+
+    @Override
+    public JsonElement serialize(LazyImage src, Type typeOfSrc, JsonSerializationContext context) {
+        return new JsonPrimitive(Base64.getEncoder().encodeToString(BufferedImageSerializer.encodeImage(src.get())));
+    }
+}
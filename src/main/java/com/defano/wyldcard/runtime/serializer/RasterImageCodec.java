@@ -0,0 +1,279 @@
+package com.defano.wyldcard.runtime.serializer;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A lossless image encoding suited to card and background paint, which is typically made up of very few colors (often
+ * just black and transparent).
+ * <p>
+ * An image with 256 or fewer distinct colors is encoded as a palette followed by packed 1-, 2-, 4- or 8-bit color
+ * indices (an image of a single color requires no pixel data at all); any other image is encoded as 32-bit ARGB
+ * pixels. In either case, pixel data is deflated. Pixels are read from and written to the image's raster in bulk,
+ * without converting each pixel through the image's color model and without involving {@link javax.imageio.ImageIO}.
+ * <p>
+ * An encoded image is laid out as:
+ * <pre>
+ *     "WCIM", format version (byte)
+ *     width (int), height (int), bits per pixel (byte)
+ *     palette size (short) and palette colors (ARGB ints); bits per pixel of 32 indicates no palette
+ *     deflated pixel data; each row of packed indices begins on a byte boundary
+ * </pre>
+ */
+class RasterImageCodec {
+
+    private final static byte[] MAGIC = {'W', 'C', 'I', 'M'};
+    private final static byte VERSION = 1;
+    private final static int MAX_PALETTE_SIZE = 256;
+
+    private RasterImageCodec() {
+    }
+
+    /**
+     * Determines if the given image data was produced by this codec.
+     *
+     * @param imageData The encoded image
+     * @return True if the data begins with this codec's magic number
+     */
+    static boolean isRasterImage(byte[] imageData) {
+        return imageData.length > MAGIC.length && Arrays.equals(Arrays.copyOf(imageData, MAGIC.length), MAGIC);
+    }
+
+    static byte[] encode(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = getPixels(image);
+        int[] palette = getPalette(pixels);
+        int bitsPerPixel = palette == null ? 32 : bitsPerIndex(palette.length);
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeByte(bitsPerPixel);
+
+            if (palette != null) {
+                out.writeShort(palette.length);
+                for (int thisColor : palette) {
+                    out.writeInt(thisColor);
+                }
+            }
+
+            if (bitsPerPixel > 0) {
+                out.write(deflate(palette == null ? packPixels(pixels) : packIndices(pixels, palette, width, height, bitsPerPixel)));
+            }
+
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Bug! Failed to encode image.", e);
+        }
+    }
+
+    static BufferedImage decode(byte[] imageData) {
+        ByteBuffer in = ByteBuffer.wrap(imageData);
+        in.position(MAGIC.length);
+
+        if (in.get() > VERSION) {
+            throw new IllegalStateException("This image was saved by a newer version of WyldCard.");
+        }
+
+        int width = in.getInt();
+        int height = in.getInt();
+        int bitsPerPixel = in.get();
+        int[] pixels = new int[width * height];
+
+        if (bitsPerPixel == 32) {
+            ByteBuffer.wrap(inflate(in, pixels.length * 4)).asIntBuffer().get(pixels);
+        } else {
+            int[] palette = new int[in.getShort()];
+            for (int index = 0; index < palette.length; index++) {
+                palette[index] = in.getInt();
+            }
+
+            if (bitsPerPixel == 0) {
+                Arrays.fill(pixels, palette[0]);
+            } else {
+                int rowLength = (width * bitsPerPixel + 7) / 8;
+                unpackIndices(inflate(in, rowLength * height), palette, pixels, width, height, bitsPerPixel);
+            }
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.getRaster().setDataElements(0, 0, width, height, pixels);
+        return image;
+    }
+
+    /**
+     * Gets the ARGB value of every pixel in the image, row by row. Images of the type the paint tools produce are read
+     * directly from their raster; the image's own data buffer is never exposed (which would prevent the image from
+     * being hardware accelerated).
+     */
+    private static int[] getPixels(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return (int[]) image.getRaster().getDataElements(0, 0, width, height, null);
+        } else {
+            return image.getRGB(0, 0, width, height, null, 0, width);
+        }
+    }
+
+    /**
+     * Gets the distinct colors in the image, in order of first appearance.
+     *
+     * @return The image's palette, or null if the image has more than {@link #MAX_PALETTE_SIZE} colors.
+     */
+    private static int[] getPalette(int[] pixels) {
+        Map<Integer, Integer> colors = new HashMap<>();
+        int[] palette = new int[MAX_PALETTE_SIZE];
+
+        for (int index = 0; index < pixels.length; index++) {
+            // Paint is mostly long runs of a single color; avoid a lookup per pixel
+            if (index > 0 && pixels[index] == pixels[index - 1]) {
+                continue;
+            }
+
+            if (!colors.containsKey(pixels[index])) {
+                if (colors.size() == MAX_PALETTE_SIZE) {
+                    return null;
+                }
+
+                palette[colors.size()] = pixels[index];
+                colors.put(pixels[index], colors.size());
+            }
+        }
+
+        return Arrays.copyOf(palette, colors.size());
+    }
+
+    private static int bitsPerIndex(int paletteSize) {
+        if (paletteSize <= 1) {
+            return 0;
+        } else if (paletteSize <= 2) {
+            return 1;
+        } else if (paletteSize <= 4) {
+            return 2;
+        } else if (paletteSize <= 16) {
+            return 4;
+        } else {
+            return 8;
+        }
+    }
+
+    private static byte[] packPixels(int[] pixels) {
+        ByteBuffer packed = ByteBuffer.allocate(pixels.length * 4);
+        packed.asIntBuffer().put(pixels);
+        return packed.array();
+    }
+
+    private static byte[] packIndices(int[] pixels, int[] palette, int width, int height, int bitsPerPixel) {
+        Map<Integer, Integer> indices = new HashMap<>();
+        for (int index = 0; index < palette.length; index++) {
+            indices.put(palette[index], index);
+        }
+
+        int rowLength = (width * bitsPerPixel + 7) / 8;
+        int pixelsPerByte = 8 / bitsPerPixel;
+        byte[] packed = new byte[rowLength * height];
+
+        int lastColor = pixels.length > 0 ? pixels[0] : 0;
+        int lastIndex = 0;
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int color = pixels[y * width + x];
+                if (color != lastColor) {
+                    lastColor = color;
+                    lastIndex = indices.get(color);
+                }
+
+                // Most significant bits hold the leftmost pixel
+                int shift = 8 - bitsPerPixel * (x % pixelsPerByte + 1);
+                packed[y * rowLength + x / pixelsPerByte] |= lastIndex << shift;
+            }
+        }
+
+        return packed;
+    }
+
+    private static void unpackIndices(byte[] packed, int[] palette, int[] pixels, int width, int height, int bitsPerPixel) {
+        int rowLength = (width * bitsPerPixel + 7) / 8;
+        int pixelsPerByte = 8 / bitsPerPixel;
+        int mask = (1 << bitsPerPixel) - 1;
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int shift = 8 - bitsPerPixel * (x % pixelsPerByte + 1);
+                int index = (packed[y * rowLength + x / pixelsPerByte] >> shift) & mask;
+
+                if (index >= palette.length) {
+                    throw new IllegalStateException("An error occurred reading the image. This stack may be corrupted.");
+                }
+
+                pixels[y * width + x] = palette[index];
+            }
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(data);
+        deflater.finish();
+
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(data.length / 8 + 64);
+        byte[] buffer = new byte[8192];
+
+        try {
+            while (!deflater.finished()) {
+                deflated.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+
+        return deflated.toByteArray();
+    }
+
+    private static byte[] inflate(ByteBuffer in, int length) {
+        Inflater inflater = new Inflater();
+        inflater.setInput(in.array(), in.position(), in.remaining());
+
+        byte[] inflated = new byte[length];
+
+        try {
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int count = inflater.inflate(inflated, offset, length - offset);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += count;
+            }
+
+            if (offset < length) {
+                throw new IllegalStateException("An error occurred reading the image. This stack may be corrupted.");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("An error occurred reading the image. This stack may be corrupted.", e);
+        } finally {
+            inflater.end();
+        }
+
+        return inflated;
+    }
+}
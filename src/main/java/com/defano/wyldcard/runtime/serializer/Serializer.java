@@ -1,8 +1,12 @@
 package com.defano.wyldcard.runtime.serializer;
 
 import com.defano.hypertalk.ast.model.Value;
+import com.defano.wyldcard.parts.stack.StackModel;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 import javax.swing.text.StyledDocument;
 import java.awt.image.BufferedImage;
@@ -16,19 +20,32 @@ import java.nio.file.Files;
  */
 public class Serializer {
 
-    private final static Gson gson = new GsonBuilder()
-            .registerTypeAdapterFactory(new PostConstructAdapterFactory())
-            .registerTypeAdapter(Value.class, new ValueSerializer())
-            .registerTypeAdapter(byte[].class, new ByteArraySerializer())
+    private final static Gson gson = newGsonBuilder()
             .registerTypeAdapter(BufferedImage.class, new BufferedImageSerializer())
+            .registerTypeAdapter(LazyImage.class, new LazyImageSerializer())
             .registerTypeAdapter(StyledDocument.class, new com.defano.wyldcard.runtime.serializer.DocumentSerializer())
-            .enableComplexMapKeySerialization()
-            .setPrettyPrinting()
             .create();
 
-    @SuppressWarnings("unchecked")
+    /**
+     * @return A GsonBuilder configured with the type adapters common to every WyldCard serialization format.
+     */
+    static GsonBuilder newGsonBuilder() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new PostConstructAdapterFactory())
+                .registerTypeAdapter(Value.class, new ValueSerializer())
+                .registerTypeAdapter(byte[].class, new ByteArraySerializer())
+                .enableComplexMapKeySerialization();
+    }
+
+    /**
+     * Makes a deep copy of an object; see {@link DeepCopier}.
+     *
+     * @param t The object to copy.
+     * @param <T> The type of the object.
+     * @return A copy of the object, equivalent to serializing and then deserializing it.
+     */
     public static <T> T copy(T t) {
-        return (T) deserialize(serialize(t), t.getClass());
+        return DeepCopier.copy(t);
     }
 
     /**
@@ -42,26 +59,35 @@ public class Serializer {
     }
 
     /**
-     * Serializes the contents of an Object to a file.
+     * Serializes the contents of an Object to a file, without pretty-printing.
      *
      * @param file The file that should be written with the JSON-formatted serialization data.
      * @param object The object graph to be serialized. Object graph cannot contain cycles!
      * @throws IOException Thrown if an error occurs serializing the data or writing it to the file.
      */
     public static void serialize (File file, Object object) throws IOException {
-        Files.write(file.toPath(), serialize(object).getBytes(StandardCharsets.UTF_8));
+        serialize(file, object, false);
     }
 
     /**
-     * Attempts to deserialize a JSON-formatted string into an Object of the requested type.
+     * Serializes the contents of an Object to a file. JSON is streamed to the file as it's produced; the serialized
+     * form of the object is never held in memory in its entirety.
      *
-     * @param json A JSON string to deserialize; typically generated using the {@link #serialize(Object)} method.
-     * @param clazz The class of object to deserialize into.
-     * @param <T> A type representing the deserialized object class.
-     * @return A deserialized representation of the given file.
+     * @param file The file that should be written with the JSON-formatted serialization data.
+     * @param object The object graph to be serialized. Object graph cannot contain cycles!
+     * @param prettyPrint When true, the JSON is indented for readability (producing a considerably larger file).
+     * @throws IOException Thrown if an error occurs serializing the data or writing it to the file.
      */
-    private static <T> T deserialize(String json, Class<T> clazz) {
-        return gson.fromJson(json, clazz);
+    public static void serialize (File file, Object object, boolean prettyPrint) throws IOException {
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            if (prettyPrint) {
+                writer.setIndent("  ");
+            }
+
+            gson.toJson(object, object.getClass(), writer);
+        } catch (JsonIOException e) {
+            throw new IOException("An error occurred writing the file.", e);
+        }
     }
 
     /**
@@ -74,11 +100,38 @@ public class Serializer {
      * @return A deserialized representation of the given file.
      */
     public static <T> T deserialize (File file, Class<T> clazz) {
-        try {
-            return deserialize(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), clazz);
-        } catch (IOException e) {
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))) {
+            return gson.fromJson(reader, clazz);
+        } catch (IOException | JsonIOException e) {
             throw new RuntimeException("Failed to read the file. The file may be corrupted.", e);
         }
     }
 
+    /**
+     * Saves a stack to a file, in the stack archive format (see {@link StackArchive}). When the file is the archive the
+     * stack was opened from, only the parts of the stack that have changed are written.
+     *
+     * @param file The file to write.
+     * @param stack The stack to save.
+     * @throws IOException Thrown if an error occurs writing the file.
+     */
+    public static void serializeStack(File file, StackModel stack) throws IOException {
+        StackArchive.write(file, stack);
+    }
+
+    /**
+     * Opens a stack file; either a stack archive (see {@link StackArchive}) or a stack serialized as JSON (i.e., one
+     * written by an earlier version of WyldCard or produced by {@link #serialize(File, Object)}).
+     *
+     * @param file The stack file to open.
+     * @return The stack model. Cards in an archived stack are read from the file as they are accessed.
+     * @throws IOException Thrown if an error occurs reading the file.
+     */
+    public static StackModel deserializeStack(File file) throws IOException {
+        if (StackArchive.isArchive(file)) {
+            return StackArchive.read(file);
+        } else {
+            return deserialize(file, StackModel.class);
+        }
+    }
 }
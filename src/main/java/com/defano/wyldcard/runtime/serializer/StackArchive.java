@@ -0,0 +1,961 @@
+package com.defano.wyldcard.runtime.serializer;
+
+import com.defano.wyldcard.parts.bkgnd.BackgroundModel;
+import com.defano.wyldcard.parts.card.CardModel;
+import com.defano.wyldcard.parts.stack.LazyCardList;
+import com.defano.wyldcard.parts.stack.StackModel;
+import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import javax.swing.text.StyledDocument;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * A binary container in which stacks are saved.
+ * <p>
+ * Unlike a JSON-serialized stack (which must be read and parsed in its entirety before any card can be shown), only
+ * the stack and its backgrounds are read when an archive is opened; each card is read from it (with a positional
+ * read of the card's record) only when the card is first needed. An archive is laid out as:
+ * <pre>
+ *     header             "WYLDSTAK", format version (int) and two header slots
+ *     records            the stack, each background and each card
+ *     table of contents  a JSON document locating each record in the archive
+ * </pre>
+ * Each record is self-contained: a length-prefixed JSON document describing the part, followed by the binary data
+ * (images and styled text) the document refers to. Binary data is written as-is rather than as Base64-encoded JSON
+ * strings, and is addressed relative to its record; thus, a card that was never loaded can be written to a new archive
+ * by copying its record byte-for-byte.
+ * <p>
+ * Saving a stack to the archive it was opened from appends only the records that have changed (see
+ * {@link StackModel#isDirty()}) and a new table of contents. Each header slot holds a generation number, the location
+ * of a table of contents and a checksum; a save updates the slot holding the older generation, and only after
+ * everything the slot refers to is on disk. A save that is interrupted at any point thus leaves the previously saved
+ * version of the stack intact. When superseded records come to occupy most of the archive, the next save rewrites
+ * (compacts) it.
+ * <p>
+ * JSON is streamed directly into the archive and parsed directly from a record's bytes; no record is ever
+ * materialized as a string on the heap.
+ * <p>
+ * The archive file is not held open (nor mapped) between reads, so that it can be replaced or deleted on any platform.
+ * Before a file that cards are still being read from is replaced or deleted, the records of those cards that have not
+ * been loaded are copied onto the heap (see {@link #release(Path)}).
+ */
+public class StackArchive {
+
+    private final static byte[] MAGIC = "WYLDSTAK".getBytes(StandardCharsets.US_ASCII);
+    private final static int VERSION = 1;
+
+    // Each header slot holds a generation (long), table of contents offset (long) and length (int), and a checksum (int)
+    private final static int SLOT_LENGTH = Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private final static int HEADER_LENGTH = MAGIC.length + Integer.BYTES + 2 * SLOT_LENGTH;
+
+    // Rewrite the archive when less than this portion of it holds the current version of the stack
+    private final static double MIN_LIVE_FRACTION = 0.5;
+
+    // Archives that cards of open stacks may be read from
+    private final static Set<StackArchive> openArchives = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private final Gson gson;
+    private final Path path;
+
+    // The stack whose cards are read from this archive, and whether the archive's file has since been replaced
+    private StackModel stack;
+    private boolean released;
+
+    // The state of the archive as of the last time it was read or written
+    private TableOfContents toc;
+    private Slot current;
+    private int currentSlot;
+    private long length;
+
+    // Format in which images are written; images in any format can be read
+    private ImageFormat imageFormat = ImageFormat.RASTER;
+
+    private StackArchive(File file) {
+        path = file.toPath().toAbsolutePath().normalize();
+        gson = Serializer.newGsonBuilder()
+                .registerTypeHierarchyAdapter(BufferedImage.class, new BlobAdapter<>(image -> BufferedImageSerializer.encodeImage(image, imageFormat), BufferedImageSerializer::decodeImage))
+                .registerTypeAdapter(LazyImage.class, new BlobAdapter<>(image -> BufferedImageSerializer.encodeImage(image.get(), imageFormat), LazyImage::decode))
+                .registerTypeHierarchyAdapter(StyledDocument.class, new BlobAdapter<>(DocumentSerializer::convertDocumentToRtf, DocumentSerializer::convertRtfToDocument))
+                .setExclusionStrategies(new StackContentsExclusionStrategy())
+                .create();
+    }
+
+    /**
+     * Determines if the given file is a stack archive (as opposed to a JSON-serialized stack).
+     *
+     * @param file The file to inspect
+     * @return True if the file begins with the archive's magic number
+     */
+    public static boolean isArchive(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Keep reading
+            }
+
+            return Arrays.equals(magic.array(), MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Takes a snapshot of a stack for archiving to the given file; see {@link Snapshot}. Must be invoked while the
+     * stack is not being modified (the snapshot reflects the stack's state at the time this method returns).
+     *
+     * @param file  The file the snapshot will be written to
+     * @param stack The stack to snapshot
+     * @return The snapshot
+     */
+    public static Snapshot snapshot(File file, StackModel stack) {
+        return new StackArchive(file).new Snapshot(stack);
+    }
+
+    /**
+     * Opens a stack archive. Only the stack and its backgrounds are read; each card is read from the archive the first
+     * time it is accessed.
+     *
+     * @param file The archive to open
+     * @return The stack model
+     * @throws IOException Thrown if the file cannot be read or is not a valid archive
+     */
+    public static StackModel read(File file) throws IOException {
+        return new StackArchive(file).readArchive();
+    }
+
+    /**
+     * Saves a stack to an archive.
+     * <p>
+     * When the stack was opened from (or last saved to) the given archive, only the parts of the stack that have
+     * changed since are written. Otherwise, or when the archive is mostly made up of superseded records, the archive is
+     * written in its entirety to a temporary file which then replaces the given file. In either case, an existing
+     * archive is never left partially written.
+     * <p>
+     * This method does not mark the stack as saved; see {@link StackModel#setSaved(long)}.
+     *
+     * @param file  The file to write
+     * @param stack The stack to archive
+     * @throws IOException Thrown if an error occurs writing the file
+     */
+    public static void write(File file, StackModel stack) throws IOException {
+        StackArchive archive = stack.getArchive();
+
+        if (archive != null && archive.canUpdate(file)) {
+            archive.updateArchive(stack);
+        } else {
+            new StackArchive(file).writeArchive(stack);
+        }
+    }
+
+    private synchronized StackModel readArchive() throws IOException {
+        StackModel stack;
+        Map<Integer, BackgroundModel> backgrounds = new HashMap<>();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            readHeader(channel);
+
+            stack = decodeRecord(readRecord(channel, toc.stack), StackModel.class);
+
+            for (Entry thisBackground : toc.backgrounds) {
+                backgrounds.put(thisBackground.id, decodeRecord(readRecord(channel, thisBackground), BackgroundModel.class));
+            }
+        }
+
+        LazyCardList cards = new LazyCardList();
+        for (Entry thisCard : toc.cards) {
+            cards.addRecord(new ArchivedCard(stack, thisCard));
+        }
+
+        stack.setBackgroundModels(backgrounds);
+        stack.setCardModels(cards);
+        stack.relinkParentPartModel(null);
+        stack.setDirty(false);
+        attach(stack);
+
+        return stack;
+    }
+
+    /**
+     * Reads the archive's header and its current table of contents.
+     */
+    private void readHeader(FileChannel channel) throws IOException {
+        length = channel.size();
+
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Stack is too large to open.");
+        } else if (length < HEADER_LENGTH) {
+            throw new IOException("The stack file is corrupted.");
+        }
+
+        try {
+            ByteBuffer header = readFully(channel, 0, HEADER_LENGTH);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a stack file.");
+            }
+
+            if (header.getInt() > VERSION) {
+                throw new IOException("This stack was saved by a newer version of WyldCard.");
+            }
+
+            // Use whichever intact slot holds the newest generation
+            Slot[] slots = {Slot.read(header), Slot.read(header)};
+            currentSlot = slots[1] != null && (slots[0] == null || slots[1].generation > slots[0].generation) ? 1 : 0;
+            current = slots[currentSlot];
+
+            if (current == null) {
+                throw new IOException("The stack file is corrupted.");
+            }
+
+            if (current.tocOffset + current.tocLength > length) {
+                throw new IOException("The stack file is corrupted.");
+            }
+
+            toc = gson.fromJson(newReader(readFully(channel, current.tocOffset, (int) current.tocLength)), TableOfContents.class);
+        } catch (RuntimeException e) {
+            throw new IOException("The stack file is corrupted.", e);
+        }
+    }
+
+    /**
+     * Determines if a stack can be saved to the given file by updating this archive in place; that is, the file is
+     * this archive, it has not been modified since it was last read or written, and it is not in need of compaction.
+     *
+     * @param file The file the stack is being saved to
+     * @return True if the archive can be updated; false if it must be rewritten
+     */
+    private synchronized boolean canUpdate(File file) {
+        try {
+            if (!path.equals(file.toPath().toAbsolutePath().normalize()) || Files.size(path) != length) {
+                return false;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+
+        long live = HEADER_LENGTH + current.tocLength + toc.stack.length;
+        for (Entry thisBackground : toc.backgrounds) {
+            live += thisBackground.length;
+        }
+        for (Entry thisCard : toc.cards) {
+            live += thisCard.length;
+        }
+
+        return live >= length * MIN_LIVE_FRACTION;
+    }
+
+    private synchronized void updateArchive(StackModel stack) throws IOException {
+        LazyCardList cards = stack.getCardModelList();
+        imageFormat = stack.getImageFormat(null);
+        TableOfContents updated = new TableOfContents();
+        Slot next;
+
+        Map<Integer, Entry> savedBackgrounds = new HashMap<>();
+        for (Entry thisBackground : toc.backgrounds) {
+            savedBackgrounds.put(thisBackground.id, thisBackground);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.position(length);
+
+            // The stack's own record holds only its properties, icons and patterns; it's always rewritten
+            updated.stack = writeRecord(channel, stack, 0, 0);
+
+            for (Map.Entry<Integer, BackgroundModel> thisBackground : stack.getBackgroundModels().entrySet()) {
+                int backgroundId = thisBackground.getKey();
+                Entry saved = savedBackgrounds.get(backgroundId);
+
+                updated.backgrounds.add(saved != null && !thisBackground.getValue().isDirty() ?
+                        saved :
+                        writeRecord(channel, thisBackground.getValue(), backgroundId, backgroundId));
+            }
+
+            for (int index = 0; index < cards.size(); index++) {
+                Entry saved = getSavedEntry(cards.getRecord(index));
+
+                updated.cards.add(saved != null && (!cards.isLoaded(index) || !cards.get(index).isDirty()) ?
+                        saved :
+                        writeRecord(channel, cards.get(index), cards.getCardId(index), cards.getBackgroundId(index)));
+            }
+
+            long tocOffset = channel.position();
+            writeJson(channel, updated);
+            next = new Slot(current.generation + 1, tocOffset, channel.position() - tocOffset);
+
+            // Everything the new header slot refers to must be on disk before the slot is written
+            channel.force(false);
+            next.write(channel, 1 - currentSlot);
+            channel.force(false);
+        }
+
+        toc = updated;
+        current = next;
+        currentSlot = 1 - currentSlot;
+        length = next.tocOffset + next.tocLength;
+
+        for (int index = 0; index < cards.size(); index++) {
+            if (getSavedEntry(cards.getRecord(index)) != toc.cards.get(index)) {
+                cards.setRecord(index, new ArchivedCard(stack, toc.cards.get(index)));
+            }
+        }
+    }
+
+    private synchronized void writeArchive(StackModel stack) throws IOException {
+        LazyCardList cards = stack.getCardModelList();
+        imageFormat = stack.getImageFormat(null);
+        Path temp = createTempFile();
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            TableOfContents written = new TableOfContents();
+            channel.position(HEADER_LENGTH);
+
+            written.stack = writeRecord(channel, stack, 0, 0);
+
+            for (Map.Entry<Integer, BackgroundModel> thisBackground : stack.getBackgroundModels().entrySet()) {
+                int backgroundId = thisBackground.getKey();
+                written.backgrounds.add(writeRecord(channel, thisBackground.getValue(), backgroundId, backgroundId));
+            }
+
+            for (int index = 0; index < cards.size(); index++) {
+                LazyCardList.CardRecord record = cards.getRecord(index);
+
+                // Cards that were never loaded can't have changed; copy them from the archive they were opened from
+                if (!cards.isLoaded(index) && record instanceof ArchivedCard) {
+                    written.cards.add(copyRecord(channel, ((ArchivedCard) record).getBytes(), record.getCardId(), record.getBackgroundId()));
+                } else {
+                    written.cards.add(writeRecord(channel, cards.get(index), cards.getCardId(index), cards.getBackgroundId(index)));
+                }
+            }
+
+            writeTableOfContents(channel, written);
+
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        replace(temp);
+
+        // Subsequent saves update this archive, and cards not yet loaded are read from it
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            readHeader(channel);
+        }
+
+        for (int index = 0; index < cards.size(); index++) {
+            cards.setRecord(index, new ArchivedCard(stack, toc.cards.get(index)));
+        }
+
+        attach(stack);
+    }
+
+    /**
+     * Makes this archive the one the given stack's cards are read from (and that the stack is next saved to).
+     */
+    private void attach(StackModel stack) {
+        this.stack = stack;
+        stack.setArchive(this);
+
+        synchronized (openArchives) {
+            openArchives.add(this);
+        }
+    }
+
+    /**
+     * Deletes an archive file (or any other file) that the cards of an open stack may still be read from; see
+     * {@link #release(Path)}.
+     *
+     * @param file The file to delete
+     * @throws IOException Thrown if the file cannot be deleted
+     */
+    public static void delete(File file) throws IOException {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        release(path);
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Prepares for the file at the given path to be replaced or deleted: each archive that cards are read from that
+     * file copies the records it may yet need (those of its stack's cards that have not been loaded or have not
+     * changed) onto the heap, and thereafter never reads from the file again.
+     *
+     * @param path The file that is about to be replaced or deleted
+     * @throws IOException Thrown if an error occurs reading the records
+     */
+    private static void release(Path path) throws IOException {
+        List<StackArchive> archives = new ArrayList<>();
+        synchronized (openArchives) {
+            for (StackArchive thisArchive : openArchives) {
+                if (thisArchive.path.equals(path)) {
+                    archives.add(thisArchive);
+                }
+            }
+        }
+
+        for (StackArchive thisArchive : archives) {
+            thisArchive.release();
+        }
+    }
+
+    private synchronized void release() throws IOException {
+        if (released) {
+            return;
+        }
+
+        LazyCardList cards = stack.getCardModelList();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (int index = 0; index < cards.size(); index++) {
+                LazyCardList.CardRecord record = cards.getRecord(index);
+
+                if (getSavedEntry(record) != null && (!cards.isLoaded(index) || !cards.get(index).isDirty())) {
+                    ((ArchivedCard) record).copy = readRecord(channel, ((ArchivedCard) record).entry);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing left to copy
+        }
+
+        released = true;
+
+        synchronized (openArchives) {
+            openArchives.remove(this);
+        }
+    }
+
+    /**
+     * Creates the temporary file into which an archive is written before it replaces this archive's file. Unlike
+     * {@link Files#createTempFile(Path, String, String, java.nio.file.attribute.FileAttribute[])} (which creates a file
+     * readable only by its owner), the file is created with the default permissions for a new file, or with the
+     * permissions of the file it will replace.
+     */
+    private Path createTempFile() throws IOException {
+        Path temp;
+        while (true) {
+            temp = path.resolveSibling(path.getFileName() + "." + Long.toHexString(new Random().nextLong()) + ".tmp");
+
+            try {
+                Files.createFile(temp);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // Try another name
+            }
+        }
+
+        try {
+            if (Files.exists(path)) {
+                Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(path));
+            }
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system; permissions are inherited from the directory
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        return temp;
+    }
+
+    /**
+     * Completes a new archive by writing its table of contents (at the channel's current position) and its header,
+     * then forcing it to disk.
+     */
+    private void writeTableOfContents(FileChannel channel, TableOfContents toc) throws IOException {
+        long tocOffset = channel.position();
+        writeJson(channel, toc);
+
+        ByteBuffer header = ByteBuffer.allocate(MAGIC.length + Integer.BYTES);
+        header.put(MAGIC).putInt(VERSION);
+        header.flip();
+
+        channel.position(0);
+        writeFully(channel, header);
+        new Slot(1, tocOffset, channel.size() - tocOffset).write(channel, 0);
+        channel.force(true);
+    }
+
+    /**
+     * Replaces this archive with a newly written one.
+     */
+    private void replace(Path temp) throws IOException {
+        try {
+            release(path);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Gets the location in this archive of the given card record.
+     *
+     * @param record The card's record
+     * @return The location of the record in this archive, or null if the record is not in this archive.
+     */
+    private Entry getSavedEntry(LazyCardList.CardRecord record) {
+        if (record instanceof ArchivedCard && ((ArchivedCard) record).getArchive() == this) {
+            return ((ArchivedCard) record).entry;
+        }
+
+        return null;
+    }
+
+    private Entry writeRecord(FileChannel channel, Object part, int id, int backgroundId) throws IOException {
+        long offset = channel.position();
+
+        // Stream the part's JSON into the archive, then go back and fill in its length
+        channel.position(offset + Integer.BYTES);
+        ByteArrayOutputStream blobs = writeJson(channel, part);
+
+        ByteBuffer jsonLength = ByteBuffer.allocate(Integer.BYTES);
+        jsonLength.putInt((int) (channel.position() - offset - Integer.BYTES));
+        jsonLength.flip();
+
+        while (jsonLength.hasRemaining()) {
+            channel.write(jsonLength, offset + jsonLength.position());
+        }
+
+        blobs.writeTo(Channels.newOutputStream(channel));
+
+        return newEntry(id, backgroundId, offset, channel.position() - offset);
+    }
+
+    private Entry copyRecord(FileChannel channel, ByteBuffer record, int id, int backgroundId) throws IOException {
+        long offset = channel.position();
+        writeFully(channel, record);
+
+        return newEntry(id, backgroundId, offset, channel.position() - offset);
+    }
+
+    /**
+     * Streams an object's JSON into the archive at the channel's current position.
+     *
+     * @return The binary data section of the record whose JSON was written
+     */
+    private ByteArrayOutputStream writeJson(FileChannel channel, Object object) throws IOException {
+        // Not closed; closing the writer would close the channel
+        RecordWriter writer = new RecordWriter(new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8)));
+
+        try {
+            gson.toJson(object, object.getClass(), writer);
+        } catch (JsonIOException e) {
+            throw new IOException("An error occurred writing the stack.", e);
+        }
+
+        writer.flush();
+        return writer.blobs;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private <T> T decodeRecord(ByteBuffer record, Class<T> clazz) {
+        ByteBuffer json = record.duplicate();
+        int jsonLength = json.getInt();
+        json.limit(Integer.BYTES + jsonLength);
+
+        ByteBuffer blobs = record.duplicate();
+        blobs.position(Integer.BYTES + jsonLength);
+
+        return gson.fromJson(new RecordReader(newReader(json), blobs.slice()), clazz);
+    }
+
+    private static Reader newReader(ByteBuffer buffer) {
+        return new BufferedReader(new InputStreamReader(new ByteBufferInputStream(buffer), StandardCharsets.UTF_8));
+    }
+
+    private static ByteBuffer readRecord(FileChannel channel, Entry entry) throws IOException {
+        return readFully(channel, entry.offset, entry.length);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("The stack file is corrupted.");
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    private static Entry newEntry(int id, int backgroundId, long offset, long length) {
+        Entry entry = new Entry();
+        entry.id = id;
+        entry.backgroundId = backgroundId;
+        entry.offset = offset;
+        entry.length = (int) length;
+        return entry;
+    }
+
+    /**
+     * A consistent, point-in-time copy of a stack that can be archived on another thread while the stack continues to
+     * be modified.
+     * <p>
+     * Taking a snapshot copies (but does not encode) the stack, its backgrounds and any card that has changed since it
+     * was last saved; every other card shares the (immutable) record it was saved with, which is copied from the
+     * card's archive when the snapshot is written. Thus, the cost of a snapshot is proportional to the amount of unsaved
+     * change, not to the size of the stack, and the cost of encoding it is borne by the thread that writes it. Writing
+     * the snapshot does not affect the stack, or the archive the stack was opened from.
+     */
+    public class Snapshot {
+        private final StackModel stack;
+        private final Map<Integer, BackgroundModel> backgrounds = new HashMap<>();
+        private final List<Entry> cards = new ArrayList<>();
+        private final List<CardModel> changedCards = new ArrayList<>();     // Null where the card's record is shared
+        private final List<ArchivedCard> savedCards = new ArrayList<>();
+
+        private Snapshot(StackModel stack) {
+            LazyCardList cardList = stack.getCardModelList();
+
+            // Cards and backgrounds are archived as records of their own; see StackContentsExclusionStrategy
+            this.stack = DeepCopier.copyExcluding(stack, "cardModels", "backgroundModels");
+
+            for (Map.Entry<Integer, BackgroundModel> thisBackground : stack.getBackgroundModels().entrySet()) {
+                backgrounds.put(thisBackground.getKey(), DeepCopier.copy(thisBackground.getValue()));
+            }
+
+            for (int index = 0; index < cardList.size(); index++) {
+                LazyCardList.CardRecord record = cardList.getRecord(index);
+                boolean shared = record instanceof ArchivedCard && (!cardList.isLoaded(index) || !cardList.get(index).isDirty());
+
+                cards.add(newEntry(cardList.getCardId(index), cardList.getBackgroundId(index), 0, 0));
+                changedCards.add(shared ? null : DeepCopier.copy(cardList.get(index)));
+                savedCards.add(shared ? (ArchivedCard) record : null);
+            }
+        }
+
+        /**
+         * Writes this snapshot to a temporary file which then (atomically, when supported) replaces the archive file
+         * this snapshot was taken for.
+         *
+         * @throws IOException Thrown if an error occurs writing the file
+         */
+        public void write() throws IOException {
+            synchronized (StackArchive.this) {
+                imageFormat = stack.getImageFormat(null);
+                Path temp = createTempFile();
+
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    TableOfContents written = new TableOfContents();
+                    channel.position(HEADER_LENGTH);
+
+                    written.stack = writeRecord(channel, stack, 0, 0);
+
+                    for (Map.Entry<Integer, BackgroundModel> thisBackground : backgrounds.entrySet()) {
+                        int backgroundId = thisBackground.getKey();
+                        written.backgrounds.add(writeRecord(channel, thisBackground.getValue(), backgroundId, backgroundId));
+                    }
+
+                    for (int index = 0; index < cards.size(); index++) {
+                        Entry card = cards.get(index);
+
+                        written.cards.add(changedCards.get(index) != null ?
+                                writeRecord(channel, changedCards.get(index), card.id, card.backgroundId) :
+                                copyRecord(channel, savedCards.get(index).getBytes(), card.id, card.backgroundId));
+                    }
+
+                    writeTableOfContents(channel, written);
+
+                } catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(temp);
+                    throw e;
+                }
+
+                replace(temp);
+            }
+        }
+    }
+
+    /**
+     * A card saved in this archive.
+     */
+    private class ArchivedCard implements LazyCardList.CardRecord {
+        private final StackModel stack;
+        private final Entry entry;
+
+        // The card's record, once copied from an archive file that has since been replaced or deleted
+        private ByteBuffer copy;
+
+        /**
+         * @param stack The stack the card belongs to
+         * @param entry The location of the card's record in the archive
+         */
+        private ArchivedCard(StackModel stack, Entry entry) {
+            this.stack = stack;
+            this.entry = entry;
+        }
+
+        @Override
+        public int getCardId() {
+            return entry.id;
+        }
+
+        @Override
+        public int getBackgroundId() {
+            return entry.backgroundId;
+        }
+
+        @Override
+        public CardModel load() {
+            CardModel card;
+            try {
+                card = decodeRecord(getBytes(), CardModel.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            card.relinkParentPartModel(stack);
+            return card;
+        }
+
+        private StackArchive getArchive() {
+            return StackArchive.this;
+        }
+
+        /**
+         * @return The card's record, read from the archive
+         * @throws IOException Thrown if the record cannot be read, or is no longer available because the archive file
+         *                     was replaced or deleted after the card was loaded and changed
+         */
+        private ByteBuffer getBytes() throws IOException {
+            synchronized (StackArchive.this) {
+                if (copy != null) {
+                    return copy.duplicate();
+                } else if (released) {
+                    throw new IOException("The stack file has been replaced.");
+                }
+
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    return readRecord(channel, entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a value to the binary data section of the current record, representing it in the record's JSON document
+     * as a reference to that data.
+     */
+    private class BlobAdapter<T> extends TypeAdapter<T> {
+        private final Function<T, byte[]> encoder;
+        private final Function<byte[], T> decoder;
+
+        private BlobAdapter(Function<T, byte[]> encoder, Function<byte[], T> decoder) {
+            this.encoder = encoder;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            if (!(out instanceof RecordWriter)) {
+                throw new IllegalStateException("Bug! Blobs can only be written to an archive record.");
+            }
+
+            ByteArrayOutputStream blobs = ((RecordWriter) out).blobs;
+            byte[] data = encoder.apply(value);
+            out.beginObject().name("blob").value(blobs.size()).name("length").value(data.length).endObject();
+            blobs.write(data, 0, data.length);
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            int offset = 0;
+            int length = 0;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("blob".equals(name)) {
+                    offset = in.nextInt();
+                } else if ("length".equals(name)) {
+                    length = in.nextInt();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+
+            if (!(in instanceof RecordReader)) {
+                throw new IllegalStateException("Bug! Blobs can only be read from an archive record.");
+            }
+
+            byte[] data = new byte[length];
+            ByteBuffer blob = ((RecordReader) in).blobs.duplicate();
+            blob.position(offset);
+            blob.get(data);
+
+            return decoder.apply(data);
+        }
+    }
+
+    /**
+     * Writes a record's JSON document, collecting the record's binary data section as it's written.
+     */
+    private static class RecordWriter extends JsonWriter {
+        private final ByteArrayOutputStream blobs = new ByteArrayOutputStream();
+
+        private RecordWriter(Writer out) {
+            super(out);
+        }
+    }
+
+    /**
+     * Reads a record's JSON document, and knows the record's binary data section.
+     */
+    private static class RecordReader extends JsonReader {
+        private final ByteBuffer blobs;
+
+        private RecordReader(Reader in, ByteBuffer blobs) {
+            super(in);
+            this.blobs = blobs;
+        }
+    }
+
+    /**
+     * Reads the contents of a buffer without copying them.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            } else if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * Cards and backgrounds are archived as records of their own, not as part of the stack's record.
+     */
+    private static class StackContentsExclusionStrategy implements ExclusionStrategy {
+        @Override
+        public boolean shouldSkipField(FieldAttributes f) {
+            return f.getDeclaringClass() == StackModel.class &&
+                    ("cardModels".equals(f.getName()) || "backgroundModels".equals(f.getName()));
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return false;
+        }
+    }
+
+    /**
+     * A header slot; identifies the table of contents of one saved version of the stack.
+     */
+    private static class Slot {
+        private final long generation;
+        private final long tocOffset;
+        private final long tocLength;
+
+        private Slot(long generation, long tocOffset, long tocLength) {
+            this.generation = generation;
+            this.tocOffset = tocOffset;
+            this.tocLength = tocLength;
+        }
+
+        /**
+         * Reads a header slot.
+         *
+         * @param header The archive header, positioned at the slot to read; advanced past the slot.
+         * @return The slot, or null if the slot is empty or was not completely written.
+         */
+        private static Slot read(ByteBuffer header) {
+            byte[] contents = new byte[SLOT_LENGTH - Integer.BYTES];
+            header.get(contents);
+
+            if (header.getInt() != checksum(contents, contents.length)) {
+                return null;
+            }
+
+            ByteBuffer slot = ByteBuffer.wrap(contents);
+            return new Slot(slot.getLong(), slot.getLong(), slot.getInt());
+        }
+
+        private void write(FileChannel channel, int slot) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(SLOT_LENGTH);
+            buffer.putLong(generation).putLong(tocOffset).putInt((int) tocLength);
+            buffer.putInt(checksum(buffer.array(), buffer.position()));
+            buffer.flip();
+
+            long position = MAGIC.length + Integer.BYTES + slot * SLOT_LENGTH;
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        }
+
+        private static int checksum(byte[] bytes, int length) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, length);
+            return (int) crc.getValue();
+        }
+    }
+
+    private static class TableOfContents {
+        private Entry stack;
+        private List<Entry> backgrounds = new ArrayList<>();
+        private List<Entry> cards = new ArrayList<>();
+    }
+
+    private static class Entry {
+        private int id;
+        private int backgroundId;
+        private long offset;
+        private int length;
+    }
+}
@@ -27,9 +27,7 @@ public class BasicSymbolTable implements SymbolTable {
 
     @Override
     public void set(String id, Value v) {
-        Value oldValue = exists(id) ? get(id) : null;
-        table.put(id.toLowerCase(), v);
-
+        Value oldValue = table.put(id.toLowerCase(), v);
         fireObservers(id, oldValue, v);
     }
 
@@ -7,15 +7,21 @@ import java.util.HashSet;
 import java.util.Set;
 
 /**
- * A symbol table that reports a subset of symbols based on a filtering list (useful for reporting only in-scope global
- * variables).
+ * A symbol table that reports a subset of symbols based on a filtering set (useful for reporting only in-scope global
+ * variables). The filter is a live view; symbols added to the set become visible through this table.
  */
 public class FilteredSymbolTable implements SymbolTable {
 
     private final SymbolTable delegate;
-    private final Collection<String> visibleSymbols;
+    private final Set<String> visibleSymbols;
 
-    public FilteredSymbolTable(SymbolTable delegate, Collection<String> visibleSymbols) {
+    /**
+     * Creates a filtered view of a symbol table.
+     *
+     * @param delegate       The symbol table to filter
+     * @param visibleSymbols The lowercase names of the symbols that are visible through this table.
+     */
+    public FilteredSymbolTable(SymbolTable delegate, Set<String> visibleSymbols) {
         this.delegate = delegate;
         this.visibleSymbols = visibleSymbols;
     }
@@ -28,8 +34,9 @@ public class FilteredSymbolTable implements SymbolTable {
 
     @Override
     public void set(String id, Value v) {
-        visibleSymbols.add(id);
-        delegate.set(id, v);
+        if (isSymbolVisible(id)) {
+            delegate.set(id, v);
+        }
     }
 
     @Override
@@ -59,12 +66,6 @@ public class FilteredSymbolTable implements SymbolTable {
     }
 
     private boolean isSymbolVisible(String id) {
-        for (String thisSymbol : visibleSymbols) {
-            if (thisSymbol.equalsIgnoreCase(id)) {
-                return true;
-            }
-        }
-
-        return false;
+        return visibleSymbols.contains(id.toLowerCase());
     }
 }
@@ -0,0 +1,97 @@
+package com.defano.wyldcard.runtime.symbol;
+
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.wyldcard.runtime.ConditionMonitor;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The table of global variables. Each global is stored in a {@link GlobalVariable} cell which, once created, is never
+ * replaced; stack frames may therefore hold onto the cells of the globals in their scope.
+ */
+public class GlobalSymbolTable implements SymbolTable {
+
+    private final Map<String, GlobalVariable> table = new ConcurrentHashMap<>();
+    private final List<SymbolObserver> observers = new ArrayList<>();
+
+    /**
+     * Gets the cell of the given global variable, creating the variable (with an empty value) if it does not exist.
+     *
+     * @param id The case-insensitive name of the global
+     * @return The variable's cell
+     */
+    public GlobalVariable define(String id) {
+        String key = id.toLowerCase();
+        GlobalVariable variable = table.get(key);
+
+        if (variable == null) {
+            GlobalVariable created = new GlobalVariable(key);
+            variable = table.putIfAbsent(key, created);
+
+            if (variable == null) {
+                variable = created;
+                fireObservers(key, null, created.getValue());
+            }
+        }
+
+        return variable;
+    }
+
+    /**
+     * Assigns a value to the given global variable.
+     *
+     * @param variable The cell of the global to assign
+     * @param v        The value to assign
+     */
+    public void set(GlobalVariable variable, Value v) {
+        fireObservers(variable.getName(), variable.setValue(v), v);
+    }
+
+    @Override
+    public Value get(String id) {
+        GlobalVariable variable = table.get(id.toLowerCase());
+        return variable == null ? new Value() : variable.getValue();
+    }
+
+    @Override
+    public void set(String id, Value v) {
+        set(define(id), v);
+    }
+
+    @Override
+    public boolean exists(String id) {
+        return table.containsKey(id.toLowerCase());
+    }
+
+    @Override
+    public Collection<String> getSymbols() {
+        return table.keySet();
+    }
+
+    @Override
+    public void addObserver(SymbolObserver observer) {
+        observers.add(observer);
+    }
+
+    @Override
+    public void removeObserver(SymbolObserver observer) {
+        observers.remove(observer);
+    }
+
+    private void fireObservers(String id, Value oldValue, Value newValue) {
+        ConditionMonitor.getInstance().signalChange();
+
+        if (!observers.isEmpty()) {
+            SwingUtilities.invokeLater(() -> {
+                for (SymbolObserver thisObserver : observers) {
+                    thisObserver.onSymbolChanged(GlobalSymbolTable.this, id, oldValue, newValue);
+                }
+            });
+        }
+    }
+}
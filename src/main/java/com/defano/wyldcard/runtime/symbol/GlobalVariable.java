@@ -0,0 +1,45 @@
+package com.defano.wyldcard.runtime.symbol;
+
+import com.defano.hypertalk.ast.model.Value;
+
+/**
+ * A cell holding the value of a global variable. Stack frames that place a global into scope (via the 'global'
+ * keyword) hold a reference to its cell, so the global can be read and written without a symbol table lookup.
+ * <p>
+ * Cells are owned by a {@link GlobalSymbolTable}; values should be assigned through
+ * {@link GlobalSymbolTable#set(GlobalVariable, Value)} so that observers are notified of the change.
+ */
+public class GlobalVariable {
+
+    private final String name;
+    private volatile Value value;
+
+    GlobalVariable(String name) {
+        this.name = name;
+        this.value = new Value();
+    }
+
+    /**
+     * Gets the (lowercase) name of this global variable.
+     *
+     * @return The variable name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the current value of this global variable.
+     *
+     * @return The variable's value
+     */
+    public Value getValue() {
+        return value;
+    }
+
+    Value setValue(Value value) {
+        Value oldValue = this.value;
+        this.value = value;
+        return oldValue;
+    }
+}
@@ -0,0 +1,129 @@
+package com.defano.wyldcard.runtime.symbol;
+
+import com.defano.hypertalk.ast.model.Value;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A table of local variables in a stack frame. Symbols known when the handler was compiled (parameters and variables
+ * referenced in the handler's script) are stored in an array indexed by the slots of the handler's
+ * {@link SymbolSlots}; any other symbol (for example, one whose name is computed at runtime) is stored in a
+ * case-insensitive map.
+ */
+public class LocalSymbolTable implements SymbolTable {
+
+    private final SymbolSlots slots;
+    private final Value[] values;
+    private final Map<String, Value> table = new ConcurrentHashMap<>();
+    private final List<SymbolObserver> observers = new ArrayList<>();
+
+    /**
+     * Creates a local symbol table without slots; all symbols are stored by name.
+     */
+    public LocalSymbolTable() {
+        this(new SymbolSlots());
+    }
+
+    /**
+     * Creates a local symbol table with the given slot layout.
+     *
+     * @param slots The slot layout of the handler executing in this frame.
+     */
+    public LocalSymbolTable(SymbolSlots slots) {
+        this.slots = slots;
+        this.values = new Value[slots.size()];
+    }
+
+    /**
+     * Gets the slot layout of this table.
+     *
+     * @return The slot layout
+     */
+    public SymbolSlots getSlots() {
+        return slots;
+    }
+
+    /**
+     * Gets the value stored in the given slot.
+     *
+     * @param slot The slot number
+     * @return The value in the slot, or null if the variable has not been assigned.
+     */
+    public Value get(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Sets the value stored in the given slot.
+     *
+     * @param slot The slot number
+     * @param v    The value to assign
+     */
+    public void set(int slot, Value v) {
+        Value oldValue = values[slot];
+        values[slot] = v;
+
+        fireObservers(slots.getName(slot), oldValue, v);
+    }
+
+    @Override
+    public Value get(String id) {
+        int slot = slots.getSlot(id);
+        Value v = slot < 0 ? table.get(id.toLowerCase()) : values[slot];
+
+        return v == null ? new Value() : v;
+    }
+
+    @Override
+    public void set(String id, Value v) {
+        int slot = slots.getSlot(id);
+
+        if (slot < 0) {
+            fireObservers(id, table.put(id.toLowerCase(), v), v);
+        } else {
+            set(slot, v);
+        }
+    }
+
+    @Override
+    public boolean exists(String id) {
+        int slot = slots.getSlot(id);
+        return slot < 0 ? table.containsKey(id.toLowerCase()) : values[slot] != null;
+    }
+
+    @Override
+    public Collection<String> getSymbols() {
+        ArrayList<String> symbols = new ArrayList<>(table.keySet());
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                symbols.add(slots.getName(slot));
+            }
+        }
+        return symbols;
+    }
+
+    @Override
+    public void addObserver(SymbolObserver observer) {
+        observers.add(observer);
+    }
+
+    @Override
+    public void removeObserver(SymbolObserver observer) {
+        observers.remove(observer);
+    }
+
+    private void fireObservers(String id, Value oldValue, Value newValue) {
+        if (!observers.isEmpty()) {
+            SwingUtilities.invokeLater(() -> {
+                for (SymbolObserver thisObserver : observers) {
+                    thisObserver.onSymbolChanged(LocalSymbolTable.this, id, oldValue, newValue);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.defano.wyldcard.runtime.symbol;
+
+/**
+ * A compiled reference to a variable. When the reference appears inside of a handler or function, it is resolved at
+ * compile time to a slot in that handler's {@link SymbolSlots}; references appearing outside of a handler (i.e., in
+ * text evaluated in the message box or via 'do') are unresolved and are looked up by name.
+ */
+public class SymbolReference {
+
+    private final String symbol;
+    private final String key;
+    private final SymbolSlots scope;
+    private final int slot;
+
+    /**
+     * Creates a reference to the given symbol, resolving it in the given scope.
+     *
+     * @param symbol The case-insensitive name of the variable.
+     * @param scope  The slot layout of the handler in which the reference appears, or null if the reference does not
+     *               appear in a handler.
+     */
+    public SymbolReference(String symbol, SymbolSlots scope) {
+        this.symbol = symbol;
+        this.key = symbol.toLowerCase();
+        this.scope = scope;
+        this.slot = scope == null ? -1 : scope.resolve(symbol);
+    }
+
+    /**
+     * Gets the name of the referenced symbol, as it appears in the script.
+     *
+     * @return The symbol name
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Gets the lowercase name of the referenced symbol; symbol tables key their entries by this name.
+     *
+     * @return The lowercase symbol name
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the slot of this symbol in the given layout.
+     *
+     * @param scope The slot layout of the executing handler.
+     * @return The resolved slot, or -1 if this reference was not resolved against the given layout.
+     */
+    public int getSlot(SymbolSlots scope) {
+        return scope != null && scope == this.scope ? slot : -1;
+    }
+
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
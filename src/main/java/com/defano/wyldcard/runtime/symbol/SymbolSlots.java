@@ -0,0 +1,71 @@
+package com.defano.wyldcard.runtime.symbol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The layout of local variables in a handler or function; maps each symbol (parameter or local variable) referenced
+ * in the handler to a numbered slot in the handler's stack frame.
+ * <p>
+ * Slots are assigned when the handler is compiled (see {@link #resolve(String)}) so that variable references can be
+ * read and written by index at runtime without case-folding the symbol name or performing a hash lookup. Once
+ * compilation is complete, the layout is not modified and may be shared by every execution of the handler.
+ */
+public class SymbolSlots {
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Gets the slot assigned to the given symbol, assigning the next available slot if the symbol has not been seen
+     * before. Should only be invoked while compiling the handler.
+     *
+     * @param symbol The case-insensitive symbol (variable) name.
+     * @return The slot assigned to this symbol.
+     */
+    public int resolve(String symbol) {
+        String key = symbol.toLowerCase();
+        Integer slot = slots.get(key);
+
+        if (slot == null) {
+            slot = names.size();
+            slots.put(key, slot);
+            names.add(key);
+        }
+
+        return slot;
+    }
+
+    /**
+     * Gets the slot assigned to the given symbol.
+     *
+     * @param symbol The case-insensitive symbol (variable) name.
+     * @return The slot assigned to the symbol, or -1 if the symbol is not referenced in the handler (for example, a
+     * symbol whose name is computed at runtime).
+     */
+    public int getSlot(String symbol) {
+        Integer slot = slots.get(symbol.toLowerCase());
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Gets the (lowercase) name of the symbol assigned to a given slot.
+     *
+     * @param slot The slot number
+     * @return The name of the symbol in this slot.
+     */
+    public String getName(int slot) {
+        return names.get(slot);
+    }
+
+    /**
+     * Gets the number of slots in this layout; that is, the number of distinct symbols referenced in the handler.
+     *
+     * @return The number of slots
+     */
+    public int size() {
+        return names.size();
+    }
+}
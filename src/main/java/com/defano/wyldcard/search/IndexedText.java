@@ -0,0 +1,116 @@
+package com.defano.wyldcard.search;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The searchable text of a single field document, together with the (lowercase) words that appear in it and the
+ * offsets at which each appears.
+ * <p>
+ * An IndexedText is immutable; when a document changes, {@link SearchIndex} indexes it anew. Thus, the text and the
+ * word offsets of an IndexedText always agree, even when the document is being edited while it is searched.
+ */
+public class IndexedText {
+
+    private final static Pattern words = Pattern.compile("\\w+");
+    private final static int[] NO_OFFSETS = new int[0];
+
+    public final static IndexedText EMPTY = new IndexedText("");
+
+    private final String text;
+    private final String lowerCaseText;
+    private final NavigableMap<String, int[]> wordOffsets;
+
+    /**
+     * @param text The plaintext contents of a document.
+     */
+    IndexedText(String text) {
+        this.text = text;
+        this.lowerCaseText = text.toLowerCase();
+
+        Map<String, List<Integer>> offsets = new HashMap<>();
+        Matcher matcher = words.matcher(text);
+        while (matcher.find()) {
+            offsets.computeIfAbsent(matcher.group().toLowerCase(), w -> new ArrayList<>()).add(matcher.start());
+        }
+
+        NavigableMap<String, int[]> wordOffsets = new TreeMap<>();
+        for (Map.Entry<String, List<Integer>> thisWord : offsets.entrySet()) {
+            wordOffsets.put(thisWord.getKey(), thisWord.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        this.wordOffsets = Collections.unmodifiableNavigableMap(wordOffsets);
+    }
+
+    /**
+     * @return The plaintext contents of the indexed document.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return The distinct (lowercase) words that appear in the indexed text.
+     */
+    public Set<String> getWords() {
+        return wordOffsets.keySet();
+    }
+
+    /**
+     * Gets the offsets in the indexed text at which the given word appears as a whole word.
+     *
+     * @param lowerCaseWord The word to find, in lowercase.
+     * @return The offsets of each appearance of the word, in ascending order; empty if the word does not appear.
+     */
+    public int[] getWordOffsets(String lowerCaseWord) {
+        return wordOffsets.getOrDefault(lowerCaseWord, NO_OFFSETS);
+    }
+
+    /**
+     * Determines if the indexed text contains the given string anywhere (including across word boundaries).
+     *
+     * @param lowerCaseString The string to find, in lowercase.
+     * @return True if the text contains the string.
+     */
+    public boolean contains(String lowerCaseString) {
+        return lowerCaseText.contains(lowerCaseString);
+    }
+
+    /**
+     * Determines if the given word appears in the indexed text.
+     *
+     * @param lowerCaseWord The word to find, in lowercase.
+     * @return True if the text contains the whole word.
+     */
+    public boolean containsWord(String lowerCaseWord) {
+        return wordOffsets.containsKey(lowerCaseWord);
+    }
+
+    /**
+     * Determines if any word in the indexed text starts with the given prefix.
+     *
+     * @param lowerCasePrefix The prefix to find, in lowercase.
+     * @return True if some word in the text begins with the prefix.
+     */
+    public boolean containsWordStartingWith(String lowerCasePrefix) {
+        String candidate = wordOffsets.ceilingKey(lowerCasePrefix);
+        return candidate != null && candidate.startsWith(lowerCasePrefix);
+    }
+
+    /**
+     * Determines if any word in the indexed text contains the given string.
+     *
+     * @param lowerCaseString The string to find, in lowercase.
+     * @return True if some word in the text contains the string.
+     */
+    public boolean containsWordContaining(String lowerCaseString) {
+        for (String thisWord : wordOffsets.keySet()) {
+            if (thisWord.contains(lowerCaseString)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -6,16 +6,13 @@ import com.defano.hypertalk.exception.HtException;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
 
 public class SearchContext implements SearchResultHighlighter, SearchIndexer {
 
     private final static SearchContext instance = new SearchContext();
 
     private SearchQuery lastQuery;
-    private List<SearchResult> results = new ArrayList<>();
-    private int nextResult = 0;
+    private volatile SearchResults results;
 
     private SearchContext() {
     }
@@ -31,35 +28,28 @@ public class SearchContext implements SearchResultHighlighter, SearchIndexer {
      * If the given query is the same as the last query, this method "continues" the previous search, finding and
      * highlighting the next matching string.
      *
+     * Cards are searched in the background; the first match is highlighted as soon as it is found, and the search of
+     * the remaining cards continues (a few batches of cards ahead of the matches reported so far) while the script
+     * runs. Aborting the script (command-period) cancels the search.
      *
      * @param context The execution context.
      * @param query The query to perform
-     * @throws HtException Thrown if the query refers to a bogus field
+     * @throws HtException Thrown if the query refers to a bogus field, or if the script is aborted during the search
      */
     public void find(ExecutionContext context, SearchQuery query) throws HtException {
 
-        // Wrap search results
-        if (nextResult >= results.size()) {
-            nextResult = 0;
-        }
+        SearchResults results = this.results;
 
-        // Continue last query
-        if (isResumingSearch(query)) {
-            processSearchResult(context, results.get(nextResult++));
-        }
+        // Start new query (otherwise, continue the last one)
+        if (!isResumingSearch(query, results)) {
+            cancelSearch();
 
-        // Start new query
-        else {
             lastQuery = query;
             results = indexResults(context, query);
-            nextResult = 0;
-
-            if (results.isEmpty()) {
-                processSearchResult(context, null);
-            } else {
-                processSearchResult(context, results.get(nextResult++));
-            }
+            this.results = results;
         }
+
+        processSearchResult(context, results.next(context));
     }
 
     /**
@@ -68,7 +58,7 @@ public class SearchContext implements SearchResultHighlighter, SearchIndexer {
      */
     public void reset() {
         clearSearchHighlights(new ExecutionContext());
-        results.clear();
+        cancelSearch();
 
         HyperCardProperties.getInstance().defineProperty(HyperCardProperties.PROP_FOUNDTEXT, new Value(), true);
         HyperCardProperties.getInstance().defineProperty(HyperCardProperties.PROP_FOUNDFIELD, new Value(), true);
@@ -90,8 +80,17 @@ public class SearchContext implements SearchResultHighlighter, SearchIndexer {
         }
     }
 
-    private boolean isResumingSearch(SearchQuery query) {
-        return lastQuery != null && lastQuery.equals(query) && results.size() > 0;
+    private void cancelSearch() {
+        SearchResults results = this.results;
+
+        if (results != null) {
+            results.cancel();
+            this.results = null;
+        }
+    }
+
+    private boolean isResumingSearch(SearchQuery query, SearchResults results) {
+        return lastQuery != null && lastQuery.equals(query) && results != null && results.hasResults();
     }
 
 }
@@ -0,0 +1,441 @@
+package com.defano.wyldcard.search;
+
+import com.defano.hypertalk.ast.model.Owner;
+import com.defano.wyldcard.parts.bkgnd.BackgroundModel;
+import com.defano.wyldcard.parts.card.CardModel;
+import com.defano.wyldcard.parts.field.FieldModel;
+import com.defano.wyldcard.parts.model.PropertiesModel;
+import com.defano.wyldcard.parts.stack.StackModel;
+import com.defano.wyldcard.runtime.context.ExecutionContext;
+import com.defano.wyldcard.search.strategy.SearchStrategy;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A full-text index of the field documents in a stack, used to avoid loading, extracting and scanning the text of every
+ * field on every card each time a new 'find' query is issued.
+ * <p>
+ * The index has two parts. The first holds the indexed text of each document, keyed by document, so a background
+ * field whose text is shared across cards is indexed only once. A document's text is indexed when it is first
+ * searched and indexed anew only after the text has been changed (by script or by the user). Documents that are no
+ * longer referenced by the stack are dropped from it automatically.
+ * <p>
+ * The second is an inverted index (the postings) from each word to the places in the stack ({@link TextLocation}s)
+ * where it appears; the offsets of each appearance are held by the {@link IndexedText} at that place. A card is
+ * entered into the postings the first time it is searched. Thereafter, a query that the postings can narrow visits
+ * only the cards that may hold a match, plus any cards not yet indexed (see {@link #getCandidateCards}). Postings are
+ * kept current by the listener on each indexed document, which marks the document changed when its text is edited;
+ * changed documents are re-indexed before each new query. Cards and backgrounds whose fields were added, removed or
+ * replaced since the last query are re-entered into the postings when next searched.
+ */
+public class SearchIndex {
+
+    // Indexed documents; guarded by its own monitor
+    private final Map<Document, IndexedDocument> documents = new WeakHashMap<>();
+
+    // Documents whose text has changed since they were last indexed
+    private final Set<IndexedDocument> changedDocuments = ConcurrentHashMap.newKeySet();
+
+    // The postings and the cards they describe; guarded by this index's monitor
+    private final NavigableMap<String, Set<TextLocation>> postings = new TreeMap<>();
+    private final Map<TextLocation, IndexedDocument> locations = new HashMap<>();
+    private final Map<Integer, List<TextLocation>> cardLocations = new HashMap<>();          // Keyed by card ID
+    private final Map<Integer, Set<TextLocation>> sharedLocations = new HashMap<>();        // Keyed by background ID
+    private final Map<Integer, Integer> indexedCards = new HashMap<>();                     // Card ID to background ID
+
+    // The model change count when cards were last checked for changes
+    private volatile long checkedAt;
+
+    /**
+     * Gets the indexed text of the given field document, indexing (or re-indexing) the document if it has not been
+     * indexed since it last changed.
+     *
+     * @param document The field document
+     * @return The document's indexed text
+     */
+    public IndexedText getIndexedText(Document document) {
+
+        // Don't bother indexing empty documents (fields with unshared text create a new one for each card they're
+        // queried on)
+        if (document.getLength() == 0) {
+            return IndexedText.EMPTY;
+        }
+
+        // Cards may be searched in parallel; documents are indexed outside of the lock on the index itself
+        return getIndexedDocument(document).refresh();
+    }
+
+    /**
+     * Enters the text of each field on the given card into the postings, replacing whatever was entered for the card
+     * before.
+     *
+     * @param context    The execution context
+     * @param card       The card to index
+     * @param cardId     The ID of the card
+     * @param background The card's background
+     */
+    public void indexCard(ExecutionContext context, CardModel card, int cardId, BackgroundModel background) {
+        int backgroundId = card.getBackgroundId();
+        Map<TextLocation, IndexedDocument> cardTexts = new HashMap<>();
+        Map<TextLocation, IndexedDocument> sharedTexts = new HashMap<>();
+
+        for (FieldModel thisField : card.getFieldModels()) {
+            if (thisField.hasText(context, cardId)) {
+                cardTexts.put(new TextLocation(Owner.CARD, thisField.getId(context), cardId, backgroundId),
+                        getRefreshedDocument(thisField.getStyledDocument(context, cardId)));
+            }
+        }
+
+        for (FieldModel thisField : background.getFieldModels()) {
+            if (thisField.hasText(context, cardId)) {
+                boolean shared = thisField.useSharedText(context);
+                TextLocation location = new TextLocation(Owner.BACKGROUND, thisField.getId(context), shared ? TextLocation.SHARED : cardId, backgroundId);
+                (shared ? sharedTexts : cardTexts).put(location, getRefreshedDocument(thisField.getStyledDocument(context, cardId)));
+            }
+        }
+
+        synchronized (this) {
+            removeCard(cardId);
+
+            for (Map.Entry<TextLocation, IndexedDocument> thisText : cardTexts.entrySet()) {
+                post(thisText.getKey(), thisText.getValue());
+            }
+
+            for (Map.Entry<TextLocation, IndexedDocument> thisText : sharedTexts.entrySet()) {
+                post(thisText.getKey(), thisText.getValue());
+                sharedLocations.computeIfAbsent(backgroundId, id -> new HashSet<>()).add(thisText.getKey());
+            }
+
+            cardLocations.put(cardId, new ArrayList<>(cardTexts.keySet()));
+            indexedCards.put(cardId, backgroundId);
+        }
+    }
+
+    /**
+     * Determines which cards of the stack may hold a match for the given query: those that the postings place any
+     * text the query could match on, plus all cards that have not been indexed (or have changed since they were).
+     * When the postings can't narrow the query (see {@link SearchStrategy#getCandidateLocations(SearchIndex, String)}),
+     * every card is a candidate.
+     * <p>
+     * Documents edited since the last query are first re-indexed, and cards and backgrounds that have otherwise
+     * changed (or been deleted) are removed from the postings, so that they are re-indexed when searched. Only cards
+     * that are already loaded can have changed; no card is loaded to determine the candidates.
+     *
+     * @param context   The execution context
+     * @param stack     The stack being searched
+     * @param strategy  The search strategy of the query
+     * @param term      The search term of the query
+     * @param fromIndex The index of the card the search starts from
+     * @return The indices of the candidate cards, in the order they should be searched (from the given card to the end
+     * of the stack, then from the first card up to the given card)
+     */
+    public int[] getCandidateCards(ExecutionContext context, StackModel stack, SearchStrategy strategy, String term, int fromIndex) {
+        update(context, stack);
+
+        Collection<TextLocation> candidates = strategy.getCandidateLocations(this, term);
+        Set<Integer> candidateCards = new HashSet<>();
+        Set<Integer> candidateBackgrounds = new HashSet<>();
+        Set<Integer> indexed;
+
+        synchronized (this) {
+            indexed = new HashSet<>(indexedCards.keySet());
+        }
+
+        if (candidates != null) {
+            for (TextLocation thisLocation : candidates) {
+                if (thisLocation.isShared()) {
+                    candidateBackgrounds.add(thisLocation.backgroundId);
+                } else {
+                    candidateCards.add(thisLocation.cardId);
+                }
+            }
+        }
+
+        int cardCount = stack.getCardCount();
+        int[] cardIndices = new int[cardCount];
+        int candidateCount = 0;
+        Set<Integer> cardIds = new HashSet<>();
+
+        for (int offset = 0; offset < cardCount; offset++) {
+            int thisIndex = (fromIndex + offset) % cardCount;
+            int thisCardId = stack.getCardId(thisIndex);
+            cardIds.add(thisCardId);
+
+            if (candidates == null ||
+                    !indexed.contains(thisCardId) ||
+                    candidateCards.contains(thisCardId) ||
+                    candidateBackgrounds.contains(stack.getCardBackgroundId(thisIndex))) {
+                cardIndices[candidateCount++] = thisIndex;
+            }
+        }
+
+        // Forget cards that have been deleted
+        indexed.removeAll(cardIds);
+        if (!indexed.isEmpty()) {
+            synchronized (this) {
+                indexed.forEach(this::removeCard);
+            }
+        }
+
+        return Arrays.copyOf(cardIndices, candidateCount);
+    }
+
+    /**
+     * Gets the places where the given word appears.
+     *
+     * @param lowerCaseWord The word to find, in lowercase
+     * @return The locations of text that contains the whole word
+     */
+    public synchronized Collection<TextLocation> getLocationsOfWord(String lowerCaseWord) {
+        return new ArrayList<>(postings.getOrDefault(lowerCaseWord, Collections.emptySet()));
+    }
+
+    /**
+     * Gets the places where a word starting with the given prefix appears.
+     *
+     * @param lowerCasePrefix The prefix to find, in lowercase
+     * @return The locations of text that contains a word beginning with the prefix
+     */
+    public synchronized Collection<TextLocation> getLocationsOfWordStartingWith(String lowerCasePrefix) {
+        Set<TextLocation> found = new HashSet<>();
+        for (Map.Entry<String, Set<TextLocation>> thisWord : postings.tailMap(lowerCasePrefix, true).entrySet()) {
+            if (!thisWord.getKey().startsWith(lowerCasePrefix)) {
+                break;
+            }
+            found.addAll(thisWord.getValue());
+        }
+
+        return found;
+    }
+
+    /**
+     * Gets the places where a word containing the given string appears.
+     *
+     * @param lowerCaseString The string to find, in lowercase
+     * @return The locations of text that contains a word containing the string
+     */
+    public synchronized Collection<TextLocation> getLocationsOfWordContaining(String lowerCaseString) {
+        Set<TextLocation> found = new HashSet<>();
+        for (Map.Entry<String, Set<TextLocation>> thisWord : postings.entrySet()) {
+            if (thisWord.getKey().contains(lowerCaseString)) {
+                found.addAll(thisWord.getValue());
+            }
+        }
+
+        return found;
+    }
+
+    private IndexedDocument getIndexedDocument(Document document) {
+        synchronized (documents) {
+            IndexedDocument indexedDocument = documents.get(document);
+
+            if (indexedDocument == null) {
+                indexedDocument = new IndexedDocument(document);
+                document.addDocumentListener(indexedDocument);
+                documents.put(document, indexedDocument);
+            }
+
+            return indexedDocument;
+        }
+    }
+
+    private IndexedDocument getRefreshedDocument(Document document) {
+        IndexedDocument indexedDocument = getIndexedDocument(document);
+        indexedDocument.refresh();
+        return indexedDocument;
+    }
+
+    /**
+     * Re-indexes documents that have been edited, and removes cards and backgrounds that have otherwise changed from
+     * the postings.
+     */
+    private void update(ExecutionContext context, StackModel stack) {
+        for (IndexedDocument thisDocument : new ArrayList<>(changedDocuments)) {
+            changedDocuments.remove(thisDocument);
+            thisDocument.refresh();
+        }
+
+        long changeCount = PropertiesModel.getChangeCount();
+        long checkedAt = this.checkedAt;
+
+        if (changeCount == checkedAt) {
+            return;
+        }
+
+        Map<Integer, BackgroundModel> backgrounds = stack.getBackgroundModels();
+        for (Map.Entry<Integer, BackgroundModel> thisBackground : backgrounds.entrySet()) {
+            if (thisBackground.getValue().hasChangedSince(checkedAt)) {
+                removeBackground(thisBackground.getKey());
+            }
+        }
+
+        // Forget the shared text of backgrounds that have been deleted
+        synchronized (this) {
+            for (Integer thisBackgroundId : new ArrayList<>(sharedLocations.keySet())) {
+                if (!backgrounds.containsKey(thisBackgroundId)) {
+                    removeBackground(thisBackgroundId);
+                }
+            }
+        }
+
+        for (CardModel thisCard : stack.getCardModelList().getLoadedCards()) {
+            if (thisCard.hasChangedSince(checkedAt)) {
+                synchronized (this) {
+                    removeCard(thisCard.getId(context));
+                }
+            }
+        }
+
+        this.checkedAt = changeCount;
+    }
+
+    private synchronized void removeBackground(int backgroundId) {
+        Set<TextLocation> shared = sharedLocations.remove(backgroundId);
+        if (shared != null) {
+            shared.forEach(this::unpost);
+        }
+
+        for (Map.Entry<Integer, Integer> thisCard : new ArrayList<>(indexedCards.entrySet())) {
+            if (thisCard.getValue() == backgroundId) {
+                removeCard(thisCard.getKey());
+            }
+        }
+    }
+
+    private void removeCard(int cardId) {
+        List<TextLocation> removed = cardLocations.remove(cardId);
+        if (removed != null) {
+            removed.forEach(this::unpost);
+        }
+
+        indexedCards.remove(cardId);
+    }
+
+    private void post(TextLocation location, IndexedDocument document) {
+        IndexedDocument posted = locations.get(location);
+        if (posted == document) {
+            return;
+        } else if (posted != null) {
+            unpost(location);
+        }
+
+        locations.put(location, document);
+        document.locations.add(location);
+        addPostings(location, document.postedWords);
+    }
+
+    private void unpost(TextLocation location) {
+        IndexedDocument posted = locations.remove(location);
+        if (posted != null) {
+            posted.locations.remove(location);
+            removePostings(location, posted.postedWords);
+        }
+    }
+
+    /**
+     * Moves each place a document appears from the postings of the words it held to those of the words it now holds.
+     */
+    private synchronized void repost(IndexedDocument document, Set<String> words) {
+        for (TextLocation thisLocation : document.locations) {
+            removePostings(thisLocation, document.postedWords);
+            addPostings(thisLocation, words);
+        }
+
+        document.postedWords = words;
+    }
+
+    private void addPostings(TextLocation location, Set<String> words) {
+        for (String thisWord : words) {
+            postings.computeIfAbsent(thisWord, w -> new HashSet<>()).add(location);
+        }
+    }
+
+    private void removePostings(TextLocation location, Set<String> words) {
+        for (String thisWord : words) {
+            Set<TextLocation> posted = postings.get(thisWord);
+            if (posted != null) {
+                posted.remove(location);
+                if (posted.isEmpty()) {
+                    postings.remove(thisWord);
+                }
+            }
+        }
+    }
+
+    /**
+     * A document that has been indexed, and that listens for changes to its text.
+     * <p>
+     * Any insertion or removal of text marks the document changed, so that it is indexed anew before the next query
+     * (or the next time it is searched, if sooner). Style changes do not affect the index.
+     */
+    private class IndexedDocument implements DocumentListener {
+        private final WeakReference<Document> document;
+        private volatile IndexedText indexedText = IndexedText.EMPTY;
+        private volatile boolean stale = true;
+
+        // The places this document appears, and the words it was last posted with; guarded by the index's monitor
+        private final Set<TextLocation> locations = new HashSet<>();
+        private Set<String> postedWords = Collections.emptySet();
+
+        private IndexedDocument(Document document) {
+            this.document = new WeakReference<>(document);
+        }
+
+        /**
+         * Indexes the document anew if it has changed since it was last indexed, and updates the postings of the
+         * places it appears.
+         *
+         * @return The document's indexed text
+         */
+        private synchronized IndexedText refresh() {
+            Document document = this.document.get();
+            if (!stale || document == null) {
+                return indexedText;
+            }
+
+            // Clear the flag first; an edit made while we're reading will mark the document changed again
+            stale = false;
+
+            // Cards are searched off the dispatch thread; read the document while holding its read lock
+            String[] text = {""};
+            document.render(() -> {
+                try {
+                    text[0] = document.getText(0, document.getLength());
+                } catch (BadLocationException e) {
+                    text[0] = "";
+                }
+            });
+
+            indexedText = new IndexedText(text[0]);
+            repost(this, indexedText.getWords());
+
+            return indexedText;
+        }
+
+        private void changed() {
+            stale = true;
+            changedDocuments.add(this);
+        }
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            changed();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            changed();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            // Style changes do not affect searchable text
+        }
+    }
+}
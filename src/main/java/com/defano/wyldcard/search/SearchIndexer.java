@@ -10,18 +10,19 @@ import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.exception.HtSemanticException;
 import com.defano.hypertalk.utils.Range;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
+import com.defano.wyldcard.search.strategy.SearchStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public interface SearchIndexer {
 
-    default List<SearchResult> indexResults(ExecutionContext context, SearchQuery query) throws HtException {
-        List<SearchResult> results = new ArrayList<>();
+    default SearchResults indexResults(ExecutionContext context, SearchQuery query) throws HtException {
         StackModel thisStack = context.getCurrentStack().getStackModel();
 
         // Indexing a single, user-specified field
         if (query.isSingleFieldSearch()) {
+            List<SearchResult> results = new ArrayList<>();
             PartModel part = context.getPart(query.searchField);
             if (!(part instanceof FieldModel)) {
                 throw new HtSemanticException("Can't search that.");
@@ -37,57 +38,69 @@ public interface SearchIndexer {
             }
 
             if (isCardSearchable(context, query, card)) {
-                indexField(context, query, field, cardIndex, results);
+                indexField(context, query, field, card.getId(context), cardIndex, results);
             }
+
+            return SearchResults.of(results);
         }
 
-        // Indexing all fields on all cards
+        // Indexing all fields on the cards the index says may match, starting with this card (in parallel, as results
+        // are requested)
         else {
-            // Index this card to end of the stack...
-            indexCards(context, query, thisStack.getCurrentCardIndex(), thisStack.getCardCount(), thisStack, results);
-
-            // ... then index first card up to this card
-            indexCards(context, query, 0, thisStack.getCurrentCardIndex(), thisStack, results);
+            SearchStrategy strategy = SearchFactory.searchBy(query.searchType);
+            int[] cardIndices = thisStack.getSearchIndex().getCandidateCards(context, thisStack, strategy, query.searchTerm, thisStack.getCurrentCardIndex());
+            return SearchResults.ofCards(context, query, this, cardIndices);
         }
-
-        return results;
     }
 
-    default void indexCards(ExecutionContext context, SearchQuery query, int fromIndex, int toIndex, StackModel thisStack, List<SearchResult> results) {
-        for (int thisCardIndex = fromIndex; thisCardIndex < toIndex; thisCardIndex++) {
+    default void indexCards(ExecutionContext context, SearchQuery query, int[] cardIndices, StackModel thisStack, List<SearchResult> results) {
+        for (int thisCardIndex : cardIndices) {
+
+            // Cards may have been deleted since the search began
+            if (thisCardIndex >= thisStack.getCardCount()) {
+                continue;
+            }
+
             CardModel thisCard = thisStack.getCardModel(thisCardIndex);
+            int thisCardId = thisCard.getId(context);
             BackgroundModel thisBackground = thisStack.getBackground(thisCard.getBackgroundId());
 
+            // Enter the card into the postings (even if it's not searchable by this query) so later queries can skip it
+            thisStack.getSearchIndex().indexCard(context, thisCard, thisCardId, thisBackground);
+
             if (!isCardSearchable(context, query, thisCard)) {
                 continue;
             }
 
             for (FieldModel thisCardField : thisCard.getFieldModels()) {
-                indexField(context, query, thisCardField, thisCardIndex, results);
+                indexField(context, query, thisCardField, thisCardId, thisCardIndex, results);
             }
 
             for (FieldModel thisBkgndField : thisBackground.getFieldModels()) {
-                indexField(context, query, thisBkgndField, thisCardIndex, results);
+                indexField(context, query, thisBkgndField, thisCardId, thisCardIndex, results);
             }
         }
     }
 
-    default void indexField(ExecutionContext context, SearchQuery query, FieldModel fieldModel, int cardIndex, List<SearchResult> results) {
-        int searchFrom = 0;
-        Range result;
+    default void indexField(ExecutionContext context, SearchQuery query, FieldModel fieldModel, int cardId, int cardIndex, List<SearchResult> results) {
 
-        int cardId = context.getCurrentStack().getStackModel().getCardModel(cardIndex).getId(context);
-        String fieldText = fieldModel.getText(context, cardId);
+        // Empty fields can't contain a match (and most unshared background fields are empty on most cards)
+        if (!fieldModel.hasText(context, cardId)) {
+            return;
+        }
 
-        do {
-            result = SearchFactory.searchBy(query.searchType).search(fieldText, query.searchTerm, searchFrom);
+        StackModel stack = context.getCurrentStack().getStackModel();
+        IndexedText indexedText = stack.getSearchIndex().getIndexedText(fieldModel.getStyledDocument(context, cardId));
+        SearchStrategy strategy = SearchFactory.searchBy(query.searchType);
 
-            if (result != null) {
-                searchFrom = result.end;
-                results.add(new SearchResult(fieldText, result, fieldModel.getOwner(), fieldModel.getId(context), cardIndex));
-            }
+        // Don't bother searching text that the index says can't contain a match
+        if (!strategy.mayMatch(indexedText, query.searchTerm)) {
+            return;
+        }
 
-        } while (result != null);
+        for (Range thisResult : strategy.searchAll(indexedText, query.searchTerm)) {
+            results.add(new SearchResult(indexedText.getText(), thisResult, fieldModel.getOwner(), fieldModel.getId(context), cardIndex));
+        }
     }
 
     default boolean isCardSearchable(ExecutionContext context, SearchQuery query, CardModel cardModel) {
@@ -0,0 +1,179 @@
+package com.defano.wyldcard.search;
+
+import com.defano.hypertalk.exception.HtException;
+import com.defano.hypertalk.exception.HtSemanticException;
+import com.defano.wyldcard.parts.stack.StackModel;
+import com.defano.wyldcard.parts.stack.StackPart;
+import com.defano.wyldcard.runtime.context.ExecutionContext;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * An ordered, lazily-produced sequence of search results.
+ * <p>
+ * Candidate cards (see {@link SearchIndex#getCandidateCards}) are searched in parallel on the common fork-join pool,
+ * in batches; results are delivered in card order (from the current card to the end of the stack, then from the first
+ * card up to the current card) as soon as the batch containing them has been searched. The first batch holds only the
+ * first candidate so that a match on the current card is reported without waiting on the rest of the stack.
+ * <p>
+ * Only a few batches are searched ahead of the results that have been requested; the next batch is submitted as each
+ * searched batch is consumed. Thus, a find that matches near the current card doesn't load (or search) every card in
+ * the stack.
+ * <p>
+ * When every result has been delivered, the sequence wraps back to the first result.
+ */
+public class SearchResults {
+
+    private final static int CARDS_PER_BATCH = 64;
+    private final static int BATCHES_IN_FLIGHT = Math.max(2, ForkJoinPool.getCommonPoolParallelism());
+    private final static int ABORT_POLL_MS = 50;
+
+    private final Deque<int[]> unsubmittedBatches = new ArrayDeque<>();     // Card indices
+    private final Queue<Future<List<SearchResult>>> batches = new ConcurrentLinkedQueue<>();
+    private final List<SearchResult> results = new ArrayList<>();
+    private final StackPart stack;
+    private final SearchQuery query;
+    private final SearchIndexer indexer;
+    private int nextResult = 0;
+    private volatile boolean cancelled;
+
+    private SearchResults(List<SearchResult> results) {
+        this.results.addAll(results);
+        this.stack = null;
+        this.query = null;
+        this.indexer = null;
+    }
+
+    private SearchResults(StackPart stack, SearchQuery query, SearchIndexer indexer) {
+        this.stack = stack;
+        this.query = query;
+        this.indexer = indexer;
+    }
+
+    /**
+     * Creates a sequence of results that have already been found.
+     *
+     * @param results The search results
+     * @return The results as a SearchResults sequence
+     */
+    public static SearchResults of(List<SearchResult> results) {
+        return new SearchResults(results);
+    }
+
+    /**
+     * Begins searching the given cards, in the order given.
+     *
+     * @param context     The execution context
+     * @param query       The query to perform
+     * @param indexer     The indexer used to search each batch of cards
+     * @param cardIndices The indices of the cards to search
+     * @return A sequence of results that is produced as the search progresses
+     */
+    public static SearchResults ofCards(ExecutionContext context, SearchQuery query, SearchIndexer indexer, int[] cardIndices) {
+        SearchResults searchResults = new SearchResults(context.getCurrentStack(), query, indexer);
+
+        // Search the first card by itself, then the rest in batches
+        if (cardIndices.length > 0) {
+            searchResults.unsubmittedBatches.add(Arrays.copyOf(cardIndices, 1));
+        }
+
+        for (int batchStart = 1; batchStart < cardIndices.length; batchStart += CARDS_PER_BATCH) {
+            searchResults.unsubmittedBatches.add(Arrays.copyOfRange(cardIndices, batchStart, Math.min(batchStart + CARDS_PER_BATCH, cardIndices.length)));
+        }
+
+        for (int count = 0; count < BATCHES_IN_FLIGHT; count++) {
+            searchResults.submitNextBatch();
+        }
+
+        return searchResults;
+    }
+
+    /**
+     * Gets the next search result, waiting for the search to reach it, if required.
+     *
+     * @param context The execution context
+     * @return The next result, or null if the search found nothing.
+     * @throws HtException Thrown if the user aborts the script while waiting on the search.
+     */
+    public SearchResult next(ExecutionContext context) throws HtException {
+        while (nextResult >= results.size() && !batches.isEmpty()) {
+            results.addAll(await(context, batches.remove()));
+            submitNextBatch();
+        }
+
+        if (results.isEmpty()) {
+            return null;
+        }
+
+        // Wrap search results
+        if (nextResult >= results.size()) {
+            nextResult = 0;
+        }
+
+        return results.get(nextResult++);
+    }
+
+    /**
+     * Determines if this sequence can produce another result; that is, it has not been cancelled and the search has
+     * either found something or is still in progress.
+     *
+     * @return True if {@link #next(ExecutionContext)} may return a result.
+     */
+    public boolean hasResults() {
+        return !cancelled && (!results.isEmpty() || !batches.isEmpty());
+    }
+
+    /**
+     * Stops searching; batches that have not yet started are abandoned.
+     */
+    public void cancel() {
+        cancelled = true;
+
+        for (Future<List<SearchResult>> thisBatch : batches) {
+            thisBatch.cancel(false);
+        }
+    }
+
+    private void submitNextBatch() {
+        int[] batch = unsubmittedBatches.poll();
+        if (batch == null || cancelled) {
+            return;
+        }
+
+        ExecutionContext batchContext = new ExecutionContext().bind(stack);
+
+        batches.add(ForkJoinPool.commonPool().submit(() -> {
+            List<SearchResult> batchResults = new ArrayList<>();
+
+            if (!cancelled) {
+                StackModel stackModel = batchContext.getCurrentStack().getStackModel();
+                indexer.indexCards(batchContext, query, batch, stackModel, batchResults);
+            }
+
+            return batchResults;
+        }));
+    }
+
+    private List<SearchResult> await(ExecutionContext context, Future<List<SearchResult>> batch) throws HtException {
+        while (true) {
+            if (context.didAbort()) {
+                cancel();
+                throw new HtSemanticException("Script aborted.");
+            }
+
+            try {
+                return batch.get(ABORT_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Keep waiting
+            } catch (CancellationException e) {
+                return Collections.emptyList();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new HtSemanticException("Script aborted.");
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Bug! An error occurred searching cards.", e.getCause());
+            }
+        }
+    }
+}
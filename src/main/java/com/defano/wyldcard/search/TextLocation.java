@@ -0,0 +1,70 @@
+package com.defano.wyldcard.search;
+
+import com.defano.hypertalk.ast.model.Owner;
+
+/**
+ * Where some field text appears in a stack: the text of a card field, the unshared text of a background field on one
+ * card, or the shared text of a background field (which appears on every card in the background).
+ */
+public class TextLocation {
+
+    // The card ID of shared background field text
+    public final static int SHARED = -1;
+
+    public final Owner owner;
+    public final int fieldId;
+    public final int cardId;
+    public final int backgroundId;
+
+    /**
+     * @param owner        The layer of the field (card or background)
+     * @param fieldId      The ID of the field
+     * @param cardId       The ID of the card the text appears on, or {@link #SHARED} for shared background text
+     * @param backgroundId The ID of the background of the card (or cards) the text appears on
+     */
+    public TextLocation(Owner owner, int fieldId, int cardId, int backgroundId) {
+        this.owner = owner;
+        this.fieldId = fieldId;
+        this.cardId = cardId;
+        this.backgroundId = backgroundId;
+    }
+
+    /**
+     * @return True if this is the shared text of a background field, which appears on every card in the background.
+     */
+    public boolean isShared() {
+        return cardId == SHARED;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        TextLocation that = (TextLocation) o;
+
+        if (fieldId != that.fieldId) return false;
+        if (cardId != that.cardId) return false;
+        if (backgroundId != that.backgroundId) return false;
+        return owner == that.owner;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = owner != null ? owner.hashCode() : 0;
+        result = 31 * result + fieldId;
+        result = 31 * result + cardId;
+        result = 31 * result + backgroundId;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TextLocation{" +
+                "owner=" + owner +
+                ", fieldId=" + fieldId +
+                ", cardId=" + cardId +
+                ", backgroundId=" + backgroundId +
+                '}';
+    }
+}
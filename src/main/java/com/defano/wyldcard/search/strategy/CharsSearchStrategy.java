@@ -1,6 +1,7 @@
 package com.defano.wyldcard.search.strategy;
 
 import com.defano.hypertalk.utils.Range;
+import com.defano.wyldcard.search.IndexedText;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -30,4 +31,10 @@ public class CharsSearchStrategy implements SearchStrategy {
 
         return null;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean mayMatch(IndexedText text, String term) {
+        return text.containsWordContaining(term.trim().toLowerCase());
+    }
 }
\ No newline at end of file
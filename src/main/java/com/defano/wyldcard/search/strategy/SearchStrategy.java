@@ -1,6 +1,13 @@
 package com.defano.wyldcard.search.strategy;
 
 import com.defano.hypertalk.utils.Range;
+import com.defano.wyldcard.search.IndexedText;
+import com.defano.wyldcard.search.SearchIndex;
+import com.defano.wyldcard.search.TextLocation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 public interface SearchStrategy {
 
@@ -14,4 +21,55 @@ public interface SearchStrategy {
      * in the text the search term was found.
      */
     Range search(String text, String term, int searchFrom);
+
+    /**
+     * Consults the index of a field's text to determine if the text could possibly contain a match for the given
+     * search term. Text that cannot match is not searched.
+     * <p>
+     * Implementations may return true for text that does not, in fact, contain a match, but must never return false
+     * for text that does.
+     *
+     * @param text The indexed text of a field
+     * @param term The term to find
+     * @return False if {@link #search(String, String, int)} would not find the term in the text; true otherwise.
+     */
+    default boolean mayMatch(IndexedText text, String term) {
+        return true;
+    }
+
+    /**
+     * Consults the postings of a stack's search index to determine where in the stack the given search term could
+     * possibly be found. Only the cards holding one of these locations (and cards that have not been indexed) are
+     * searched.
+     * <p>
+     * Like {@link #mayMatch(IndexedText, String)}, implementations may return locations that do not contain a match,
+     * but must never omit a location that does.
+     *
+     * @param index The search index of the stack being searched
+     * @param term  The term to find
+     * @return The locations of text that may contain the term, or null if the index cannot narrow the search (in
+     * which case every card is searched).
+     */
+    default Collection<TextLocation> getCandidateLocations(SearchIndex index, String term) {
+        return null;
+    }
+
+    /**
+     * Finds every occurrence of the given search term in the indexed text of a field.
+     *
+     * @param text The indexed text of a field
+     * @param term The term to find
+     * @return The range of each occurrence, in order.
+     */
+    default List<Range> searchAll(IndexedText text, String term) {
+        List<Range> results = new ArrayList<>();
+        Range result = search(text.getText(), term, 0);
+
+        while (result != null) {
+            results.add(result);
+            result = search(text.getText(), term, result.end);
+        }
+
+        return results;
+    }
 }
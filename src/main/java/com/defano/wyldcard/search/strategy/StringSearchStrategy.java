@@ -1,6 +1,13 @@
 package com.defano.wyldcard.search.strategy;
 
 import com.defano.hypertalk.utils.Range;
+import com.defano.wyldcard.search.IndexedText;
+import com.defano.wyldcard.search.SearchIndex;
+import com.defano.wyldcard.search.TextLocation;
+
+import java.util.Collection;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Finds a substring occurring anywhere in the searchable text. Search term may including whitespace, and found text may
@@ -8,6 +15,8 @@ import com.defano.hypertalk.utils.Range;
  */
 public class StringSearchStrategy implements SearchStrategy {
 
+    private final static Pattern words = Pattern.compile("\\w+");
+
     /** {@inheritDoc} */
     @Override
     public Range search(String text, String term, int searchFrom) {
@@ -19,4 +28,27 @@ public class StringSearchStrategy implements SearchStrategy {
             return new Range(searchFrom + start, searchFrom + start + term.length());
         }
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean mayMatch(IndexedText text, String term) {
+        return text.contains(term.toLowerCase());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Collection<TextLocation> getCandidateLocations(SearchIndex index, String term) {
+        Matcher matcher = words.matcher(term.toLowerCase());
+        String longestWord = null;
+
+        // Wherever the term is found, each word in it falls within some word of the text; the longest is the most
+        // selective
+        while (matcher.find()) {
+            if (longestWord == null || matcher.group().length() > longestWord.length()) {
+                longestWord = matcher.group();
+            }
+        }
+
+        return longestWord == null ? null : index.getLocationsOfWordContaining(longestWord);
+    }
 }
\ No newline at end of file
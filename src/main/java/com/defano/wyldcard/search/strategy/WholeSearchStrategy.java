@@ -1,7 +1,11 @@
 package com.defano.wyldcard.search.strategy;
 
 import com.defano.hypertalk.utils.Range;
+import com.defano.wyldcard.search.IndexedText;
+import com.defano.wyldcard.search.SearchIndex;
+import com.defano.wyldcard.search.TextLocation;
 
+import java.util.Collection;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,4 +34,29 @@ public class WholeSearchStrategy implements SearchStrategy {
 
         return null;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean mayMatch(IndexedText text, String term) {
+        Matcher matcher = words.matcher(term.toLowerCase());
+
+        // Matches always start at a word; the first word of the term must begin a word in the text
+        if (matcher.lookingAt()) {
+            return text.containsWordStartingWith(matcher.group());
+        }
+
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Collection<TextLocation> getCandidateLocations(SearchIndex index, String term) {
+        Matcher matcher = words.matcher(term.toLowerCase());
+
+        if (matcher.lookingAt()) {
+            return index.getLocationsOfWordStartingWith(matcher.group());
+        }
+
+        return null;
+    }
 }
\ No newline at end of file
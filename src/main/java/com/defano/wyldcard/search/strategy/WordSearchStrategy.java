@@ -1,7 +1,14 @@
 package com.defano.wyldcard.search.strategy;
 
 import com.defano.hypertalk.utils.Range;
+import com.defano.wyldcard.search.IndexedText;
+import com.defano.wyldcard.search.SearchIndex;
+import com.defano.wyldcard.search.TextLocation;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,4 +35,37 @@ public class WordSearchStrategy implements SearchStrategy {
 
         return null;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean mayMatch(IndexedText text, String term) {
+        return text.containsWord(term.toLowerCase());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Collection<TextLocation> getCandidateLocations(SearchIndex index, String term) {
+
+        // A term that isn't a single word can't match a whole word
+        if (!words.matcher(term).matches()) {
+            return Collections.emptyList();
+        }
+
+        return index.getLocationsOfWord(term.toLowerCase());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Occurrences of a whole word are read from the index rather than found by scanning the text.
+     */
+    @Override
+    public List<Range> searchAll(IndexedText text, String term) {
+        List<Range> results = new ArrayList<>();
+        for (int offset : text.getWordOffsets(term.toLowerCase())) {
+            results.add(new Range(offset, offset + term.length()));
+        }
+
+        return results;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.defano.wyldcard.sound;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A sound sample decoded to mono PCM, held as floating point samples in the range -1..1 at the sample's native rate.
+ * <p>
+ * Each sound sample is read and decoded from its resource the first time it's played; thereafter, the decoded samples
+ * are shared by every note (and every voice) that plays it.
+ */
+class PcmSample {
+
+    private final static Map<SoundSample, PcmSample> cache = new ConcurrentHashMap<>();
+
+    private final float[] samples;
+    private final float sampleRate;
+
+    private PcmSample(float[] samples, float sampleRate) {
+        this.samples = samples;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Gets the decoded PCM data of the given sound sample, decoding it if it has not already been decoded.
+     *
+     * @param soundSample The sound sample
+     * @return The sample's PCM data
+     * @throws IOException Thrown if an error occurs reading the sound sample.
+     * @throws UnsupportedAudioFileException Thrown if the sound sample is in an unplayable format.
+     */
+    static PcmSample of(SoundSample soundSample) throws IOException, UnsupportedAudioFileException {
+        PcmSample pcm = cache.get(soundSample);
+
+        // Decoding is idempotent; concurrent first plays of the same sample may both decode it, harmlessly
+        if (pcm == null) {
+            pcm = decode(soundSample);
+            cache.put(soundSample, pcm);
+        }
+
+        return pcm;
+    }
+
+    /**
+     * @return The number of frames in the sample
+     */
+    int getLength() {
+        return samples.length;
+    }
+
+    /**
+     * @return The sample's native rate, in frames per second
+     */
+    float getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @param frame The index of a frame
+     * @return The value of the frame, or zero (silence) if the index lies outside of the sample
+     */
+    float getSample(int frame) {
+        return frame >= 0 && frame < samples.length ? samples[frame] : 0f;
+    }
+
+    private static PcmSample decode(SoundSample soundSample) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(soundSample.getResource())) {
+            AudioFormat inFormat = in.getFormat();
+            AudioFormat pcmFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, inFormat.getSampleRate(), 16,
+                    inFormat.getChannels(), inFormat.getChannels() * 2, inFormat.getSampleRate(), false);
+
+            try (AudioInputStream pcm = AudioSystem.getAudioInputStream(pcmFormat, in)) {
+                byte[] bytes = readFully(pcm);
+                int channels = pcmFormat.getChannels();
+                float[] samples = new float[bytes.length / pcmFormat.getFrameSize()];
+
+                // Mix channels down to mono
+                for (int frame = 0; frame < samples.length; frame++) {
+                    float sum = 0;
+                    for (int channel = 0; channel < channels; channel++) {
+                        int offset = (frame * channels + channel) * 2;
+                        sum += (short) ((bytes[offset] & 0xff) | (bytes[offset + 1] << 8)) / 32768f;
+                    }
+                    samples[frame] = sum / channels;
+                }
+
+                return new PcmSample(samples, pcmFormat.getSampleRate());
+            }
+        }
+    }
+
+    private static byte[] readFully(AudioInputStream stream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        int count;
+        while ((count = stream.read(buffer)) != -1) {
+            bytes.write(buffer, 0, count);
+        }
+
+        return bytes.toByteArray();
+    }
+}
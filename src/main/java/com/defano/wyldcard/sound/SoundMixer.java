@@ -0,0 +1,256 @@
+package com.defano.wyldcard.sound;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The sound engine: renders every playing {@link Voice} into a single audio output stream.
+ * <p>
+ * A single mixer thread sums a fixed number of channels, a small block of frames at a time, into one
+ * {@link SourceDataLine} that is opened once and kept open for the life of the application. Script threads never
+ * block or take a lock to play a sound; they post the voice to a lock-free queue, from which the mixer thread assigns
+ * it a channel before rendering its next block. When every channel is in use, the new voice takes the channel of the
+ * lowest priority (and, among equals, the oldest) voice playing, which is cut off; a voice of lower priority than every
+ * voice playing is not played at all.
+ */
+public class SoundMixer implements Runnable {
+
+    public final static AudioFormat FORMAT = new AudioFormat(44100f, 16, 1, true, false);
+    public final static int CHANNELS = 8;
+
+    private final static int BLOCK_FRAMES = 512;           // Frames rendered per pass (about 12ms)
+    private final static int LINE_BUFFER_BLOCKS = 4;       // Output latency, in blocks
+
+    private final static SoundMixer instance = new SoundMixer();
+
+    private final Queue<Voice> pendingVoices = new ConcurrentLinkedQueue<>();
+    private volatile Thread mixerThread;
+
+    // Most recently played voice, and the most recently played voice still assigned a channel
+    private volatile Voice lastVoice;
+    private volatile Voice newestPlayingVoice;
+
+    // Accessed only by the mixer thread
+    private final Voice[] channels = new Voice[CHANNELS];
+    private SourceDataLine line;
+    private boolean idle = true;
+
+    private SoundMixer() {}
+
+    public static SoundMixer getInstance() {
+        return instance;
+    }
+
+    public synchronized void start() {
+        if (mixerThread == null) {
+            mixerThread = new ThreadFactoryBuilder()
+                    .setNameFormat("sound-mixer-%d")
+                    .setPriority(Thread.MAX_PRIORITY)
+                    .setDaemon(true)
+                    .build()
+                    .newThread(this);
+            mixerThread.start();
+        }
+    }
+
+    /**
+     * Begins playing the given voice, mixed with any other voices already playing. Returns immediately.
+     *
+     * @param voice The voice to play
+     */
+    void play(Voice voice) {
+        if (mixerThread == null) {
+            start();
+        }
+
+        lastVoice = voice;
+        pendingVoices.offer(voice);
+        LockSupport.unpark(mixerThread);
+    }
+
+    /**
+     * Plays the given voice, blocking the current thread until it has finished.
+     *
+     * @param voice The voice to play
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting for the voice to finish
+     */
+    void playAndWait(Voice voice) throws InterruptedException {
+        play(voice);
+        voice.awaitFinish();
+    }
+
+    /**
+     * Gets the name of the sound playing; when multiple sounds are playing, the name of the sound played most
+     * recently.
+     *
+     * @return The name of the sound, or null if no sound is playing
+     */
+    public String getPlayingSound() {
+        Voice voice = lastVoice;
+
+        // Last voice may still be waiting to be assigned a channel
+        if (voice == null || voice.isFinished()) {
+            voice = newestPlayingVoice;
+        }
+
+        return voice == null ? null : voice.getName();
+    }
+
+    @Override
+    public void run() {
+        float[] mix = new float[BLOCK_FRAMES];
+        byte[] block = new byte[BLOCK_FRAMES * FORMAT.getFrameSize()];
+
+        while (true) {
+            acceptPendingVoices();
+
+            if (!isPlaying()) {
+                awaitPendingVoices();
+                continue;
+            }
+
+            if (idle) {
+                idle = false;
+                startLine();
+            }
+
+            Arrays.fill(mix, 0f);
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                if (channels[channel] != null && !channels[channel].render(mix, BLOCK_FRAMES)) {
+                    release(channel);
+                }
+            }
+
+            if (line != null) {
+                toPcm(mix, block);
+                line.write(block, 0, block.length);
+            } else {
+                // No audio device; voices are still paced in real time (but not heard) so they finish on time
+                LockSupport.parkNanos((long) (BLOCK_FRAMES * 1e9 / FORMAT.getSampleRate()));
+            }
+
+            newestPlayingVoice = getNewestVoice();
+        }
+    }
+
+    /**
+     * Assigns each voice posted since the last block a channel, stealing one when none are free.
+     */
+    private void acceptPendingVoices() {
+        Voice voice;
+        while ((voice = pendingVoices.poll()) != null) {
+            int channel = getFreeChannel();
+
+            if (channel < 0) {
+                channel = getStealableChannel(voice);
+            }
+
+            if (channel < 0) {
+                voice.finish();
+            } else {
+                if (channels[channel] != null) {
+                    release(channel);
+                }
+                channels[channel] = voice;
+            }
+        }
+
+        newestPlayingVoice = getNewestVoice();
+    }
+
+    /**
+     * Stops the output line, then parks the mixer thread until a voice is posted.
+     */
+    private void awaitPendingVoices() {
+        if (!idle) {
+            idle = true;
+
+            // Let the line play out what's been written to it before stopping it
+            if (line != null) {
+                line.drain();
+                line.stop();
+            }
+        }
+
+        while (pendingVoices.isEmpty()) {
+            LockSupport.park(this);
+        }
+    }
+
+    private int getFreeChannel() {
+        for (int channel = 0; channel < CHANNELS; channel++) {
+            if (channels[channel] == null) {
+                return channel;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The channel of the lowest priority, oldest voice playing, or -1 if every voice playing has a higher
+     * priority than the given voice.
+     */
+    private int getStealableChannel(Voice voice) {
+        int victim = 0;
+        for (int channel = 1; channel < CHANNELS; channel++) {
+            if (channels[channel].compareTo(channels[victim]) < 0) {
+                victim = channel;
+            }
+        }
+
+        return channels[victim].getPriority() <= voice.getPriority() ? victim : -1;
+    }
+
+    private Voice getNewestVoice() {
+        Voice newest = null;
+        for (Voice thisVoice : channels) {
+            if (thisVoice != null && (newest == null || thisVoice.getSequence() > newest.getSequence())) {
+                newest = thisVoice;
+            }
+        }
+        return newest;
+    }
+
+    private boolean isPlaying() {
+        for (Voice thisVoice : channels) {
+            if (thisVoice != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void release(int channel) {
+        channels[channel].finish();
+        channels[channel] = null;
+    }
+
+    private void startLine() {
+        try {
+            if (line == null) {
+                line = AudioSystem.getSourceDataLine(FORMAT);
+                line.open(FORMAT, BLOCK_FRAMES * LINE_BUFFER_BLOCKS * FORMAT.getFrameSize());
+            }
+            line.start();
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            e.printStackTrace();
+            line = null;
+        }
+    }
+
+    private static void toPcm(float[] mix, byte[] block) {
+        for (int frame = 0; frame < mix.length; frame++) {
+            int value = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(mix[frame] * Short.MAX_VALUE)));
+            block[frame * 2] = (byte) value;
+            block[frame * 2 + 1] = (byte) (value >> 8);
+        }
+    }
+}
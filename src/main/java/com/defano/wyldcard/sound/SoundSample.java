@@ -49,6 +49,10 @@ public enum SoundSample {
         return loopEnd;
     }
 
+    public String getName() {
+        return resource;
+    }
+
     public URL getResource() {
         return SoundSample.class.getResource("/sounds/" + resource + ".wav");
     }
@@ -4,38 +4,71 @@ import com.defano.hypertalk.ast.model.SpeakingVoice;
 import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.exception.HtSemanticException;
+import com.defano.wyldcard.runtime.ConditionMonitor;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import marytts.LocalMaryInterface;
 import marytts.exceptions.MaryConfigurationException;
 import marytts.exceptions.SynthesisException;
 
 import javax.sound.sampled.*;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-
+import java.text.BreakIterator;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Speaks text, one utterance at a time, using the MaryTTS synthesizer.
+ * <p>
+ * The synthesizer (and its voices) take several seconds to load; loading begins on a background thread at startup
+ * (see {@link #start()}) so that neither the first speak command nor "the speech" waits on it. Each utterance is
+ * synthesized a sentence at a time, ahead of playback, so that speaking begins as soon as the first sentence has been
+ * synthesized. Synthesized sentences are cached (by voice and text), so repeated phrases are not re-synthesized.
+ */
 public class SpeechPlaybackExecutor extends ThreadPoolExecutor {
 
+    private final static int CACHE_SIZE_BYTES = 8 * 1024 * 1024;   // About four minutes of speech
+
     private final static SpeechPlaybackExecutor instance = new SpeechPlaybackExecutor();
-    private LocalMaryInterface mary;
-    private String theSpeech = "done";
 
-    private SpeechPlaybackExecutor() {
-        super(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    // Loads the synthesizer; and then synthesizes sentences, one at a time, in the order they're spoken
+    private final ExecutorService synthesisExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("speech-synthesizer-%d")
+            .setDaemon(true)
+            .build());
 
+    private final FutureTask<LocalMaryInterface> maryLoader = new FutureTask<>(() -> {
         try {
-            this.mary = new LocalMaryInterface();
+            return new LocalMaryInterface();
         } catch (MaryConfigurationException e) {
-            this.mary = null;
+            return null;
         }
+    });
+
+    // Accessed only by the synthesis thread
+    private final AudioCache audioCache = new AudioCache();
+
+    // Written by the playback thread, read by scripts
+    private volatile String theSpeech = "done";
+
+    private SpeechPlaybackExecutor() {
+        super(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
     }
 
     public static SpeechPlaybackExecutor getInstance() {
         return instance;
     }
 
+    /**
+     * Begins loading the speech synthesizer in the background.
+     */
+    public void start() {
+        synthesisExecutor.execute(maryLoader);
+    }
+
     public Value getTheSpeech() {
+        ConditionMonitor.getInstance().markTimeDependent();
+
         if (getActiveCount() == 0 && getQueue().size() == 0) {
             return new Value("done");
         }
@@ -44,35 +77,164 @@ public class SpeechPlaybackExecutor extends ThreadPoolExecutor {
     }
 
     public void speak(String text, SpeakingVoice voice) throws HtException {
+        LocalMaryInterface mary = getMary();
+
         if (mary == null) {
             throw new HtSemanticException("Sorry, speaking is not supported on this system.");
         }
 
         submit(() -> {
-            try {
-                CountDownLatch latch = new CountDownLatch(1);
-                theSpeech = text;
+            theSpeech = text;
 
-                mary.setVoice(voice.getVoiceId());
-                mary.setStreamingAudio(true);
-
-                AudioInputStream audio = mary.generateAudio(text);
+            // Sentences are synthesized ahead of playback; each is played as soon as it has been synthesized
+            List<Future<SynthesizedAudio>> sentences = new ArrayList<>();
+            for (String thisSentence : getSentences(text)) {
+                sentences.add(synthesisExecutor.submit(() -> synthesize(mary, voice, thisSentence)));
+            }
 
-                Clip clip = (Clip) AudioSystem.getLine(new Line.Info(Clip.class));
-                clip.addLineListener(event -> {
-                    if (event.getType() == LineEvent.Type.STOP) {
-                        latch.countDown();
+            SourceDataLine line = null;
+            try {
+                for (Future<SynthesizedAudio> thisSentence : sentences) {
+                    SynthesizedAudio audio = thisSentence.get();
+
+                    if (line == null || !line.getFormat().matches(audio.format)) {
+                        if (line != null) {
+                            line.drain();
+                            line.close();
+                        }
+
+                        line = AudioSystem.getSourceDataLine(audio.format);
+                        line.open(audio.format);
+                        line.start();
                     }
-                });
-                clip.open(audio);
-                clip.start();
 
-                latch.await();
+                    line.write(audio.data, 0, audio.data.length);
+                }
+
+                if (line != null) {
+                    line.drain();
+                }
 
-            } catch (SynthesisException | IOException | LineUnavailableException | InterruptedException e) {
+            } catch (ExecutionException | LineUnavailableException | IllegalArgumentException | InterruptedException e) {
                 // Nothing useful to do
                 e.printStackTrace();
+            } finally {
+                if (line != null) {
+                    line.close();
+                }
             }
         });
     }
+
+    /**
+     * Gets the speech synthesizer, loading it on the current thread if loading has not already begun (or waiting for
+     * it to finish loading if it has).
+     *
+     * @return The synthesizer, or null if it could not be loaded
+     */
+    private LocalMaryInterface getMary() {
+        maryLoader.run();
+
+        try {
+            return maryLoader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Synthesizes a sentence, or gets it from the cache if the same voice has already spoken it. Invoked only by the
+     * synthesis thread.
+     */
+    private SynthesizedAudio synthesize(LocalMaryInterface mary, SpeakingVoice voice, String sentence) throws SynthesisException, IOException {
+        // Voice IDs never contain a newline
+        String key = voice.getVoiceId() + "\n" + sentence;
+
+        SynthesizedAudio audio = audioCache.get(key);
+        if (audio == null) {
+            mary.setVoice(voice.getVoiceId());
+
+            try (AudioInputStream stream = mary.generateAudio(sentence)) {
+                audio = new SynthesizedAudio(stream.getFormat(), readFully(stream));
+            }
+
+            audioCache.put(key, audio);
+        }
+
+        return audio;
+    }
+
+    /**
+     * Splits text into sentences; text without any sentence break is a single sentence.
+     */
+    private static List<String> getSentences(String text) {
+        List<String> sentences = new ArrayList<>();
+        BreakIterator iterator = BreakIterator.getSentenceInstance(Locale.US);
+        iterator.setText(text);
+
+        for (int start = iterator.first(), end = iterator.next(); end != BreakIterator.DONE; start = end, end = iterator.next()) {
+            String sentence = text.substring(start, end).trim();
+            if (!sentence.isEmpty()) {
+                sentences.add(sentence);
+            }
+        }
+
+        return sentences;
+    }
+
+    private static byte[] readFully(AudioInputStream stream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        int count;
+        while ((count = stream.read(buffer)) != -1) {
+            bytes.write(buffer, 0, count);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static class SynthesizedAudio {
+        private final AudioFormat format;
+        private final byte[] data;
+
+        private SynthesizedAudio(AudioFormat format, byte[] data) {
+            this.format = format;
+            this.data = data;
+        }
+    }
+
+    /**
+     * A cache of synthesized sentences, bounded by the total size of their audio; the least recently spoken sentences
+     * are evicted first.
+     */
+    private static class AudioCache extends LinkedHashMap<String, SynthesizedAudio> {
+        private long sizeBytes = 0;
+
+        private AudioCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        public SynthesizedAudio put(String key, SynthesizedAudio value) {
+            sizeBytes += value.data.length;
+            SynthesizedAudio previous = super.put(key, value);
+            if (previous != null) {
+                sizeBytes -= previous.data.length;
+            }
+
+            // Evict least recently used entries (but always keep the newest)
+            Iterator<SynthesizedAudio> eldest = values().iterator();
+            while (sizeBytes > CACHE_SIZE_BYTES && size() > 1) {
+                sizeBytes -= eldest.next().data.length;
+                eldest.remove();
+            }
+
+            return previous;
+        }
+    }
 }
@@ -0,0 +1,241 @@
+package com.defano.wyldcard.sound;
+
+import com.defano.wyldcard.awt.KeyboardManager;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A sequence of notes played by a single sound sample, rendered by the {@link SoundMixer}.
+ * <p>
+ * Each note is rendered directly from the sample's cached PCM data (see {@link PcmSample}): the sample is resampled to
+ * produce the note's pitch and its duration is adjusted "as best as possible." When shortening a sample, it is clipped
+ * to the note's duration. When lengthening a sample that is "stretchable" (meaning the sample has defined loop points),
+ * the loopable section of the sample is repeated as many times as needed; a sample that is not stretchable is followed
+ * by silence.
+ * <p>
+ * Voices are ordered by priority, then by the order in which they were created; the mixer cuts off the least voice
+ * when it runs out of channels.
+ */
+class Voice implements Comparable<Voice> {
+
+    // Sequences of notes (the play command) may be cut off to make room for samples a script is waiting on (dial)
+    final static int PRIORITY_NOTES = 0;
+    final static int PRIORITY_SAMPLE = 1;
+
+    private final static AtomicLong voiceSequence = new AtomicLong();
+
+    private final String name;
+    private final int priority;
+    private final long sequence = voiceSequence.getAndIncrement();
+    private final List<Segment> segments;
+    private final long startTime = System.currentTimeMillis();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    // Position of playback; accessed only by the mixer thread
+    private int segmentIndex = 0;
+    private int segmentFrame = 0;
+
+    private Voice(String name, int priority, List<Segment> segments) {
+        this.name = name;
+        this.priority = priority;
+        this.segments = segments;
+    }
+
+    /**
+     * Creates a voice that plays the given sample without adjustment to its pitch or duration.
+     *
+     * @param soundSample The sound sample to play
+     * @return The voice
+     * @throws IOException Thrown if an error occurs reading the sound sample.
+     * @throws UnsupportedAudioFileException Thrown if the sound sample is in an unplayable format.
+     */
+    static Voice ofSample(SoundSample soundSample) throws IOException, UnsupportedAudioFileException {
+        PcmSample pcm = PcmSample.of(soundSample);
+        double step = pcm.getSampleRate() / SoundMixer.FORMAT.getSampleRate();
+        int frames = (int) Math.ceil(pcm.getLength() / step);
+
+        List<Segment> segments = new ArrayList<>();
+        segments.add(new Segment(soundSample, pcm, step, frames, pcm.getLength()));
+        return new Voice(soundSample.getName(), PRIORITY_SAMPLE, segments);
+    }
+
+    /**
+     * Creates a voice that plays a sequence of notes using the given sample.
+     *
+     * @param soundSample The sound sample used to play each note
+     * @param notes The notes to play
+     * @param tempoBpm The playback tempo, in beats per minute
+     * @return The voice
+     * @throws IOException Thrown if an error occurs reading the sound sample.
+     * @throws UnsupportedAudioFileException Thrown if the sound sample is in an unplayable format.
+     */
+    static Voice ofNotes(SoundSample soundSample, List<MusicalNote> notes, int tempoBpm) throws IOException, UnsupportedAudioFileException {
+        PcmSample pcm = PcmSample.of(soundSample);
+        float outputRate = SoundMixer.FORMAT.getSampleRate();
+
+        List<Segment> segments = new ArrayList<>();
+        for (MusicalNote thisNote : notes) {
+            double durationMs = thisNote.getDuration().getDurationMs(tempoBpm);
+            int frames = (int) Math.round(outputRate * durationMs / 1000.0);
+
+            if (thisNote.getFrequency() == MusicalPitch.REST) {
+                segments.add(new Segment(soundSample, null, 0, frames, 0));
+            } else {
+                // Raising the pitch plays the sample faster; the note consumes more of the sample in the same time
+                double sourceRate = pcm.getSampleRate() * thisNote.getFrequency().getFrequencyAdjustment(soundSample.getDominantFrequency());
+                segments.add(new Segment(soundSample, pcm, sourceRate / outputRate, frames, (long) (sourceRate * durationMs / 1000.0)));
+            }
+        }
+
+        return new Voice(soundSample.getName(), PRIORITY_NOTES, segments);
+    }
+
+    /**
+     * Mixes the next frames of this voice into the given buffer (adding them to its existing contents). Invoked only
+     * by the mixer thread.
+     *
+     * @param buffer The buffer into which frames are mixed
+     * @param frames The number of frames to render
+     * @return True if the voice has more frames to render; false if it has finished (or was interrupted by the user).
+     */
+    boolean render(float[] buffer, int frames) {
+        int frame = 0;
+
+        while (frame < frames && segmentIndex < segments.size()) {
+
+            // Stop playing if user typed cmd-. since the voice began; checked as each note begins
+            if (segmentFrame == 0 && isBroken()) {
+                segmentIndex = segments.size();
+                break;
+            }
+
+            Segment segment = segments.get(segmentIndex);
+            int count = Math.min(frames - frame, segment.frames - segmentFrame);
+
+            segment.render(buffer, frame, segmentFrame, count);
+            frame += count;
+            segmentFrame += count;
+
+            if (segmentFrame >= segment.frames) {
+                segmentIndex++;
+                segmentFrame = 0;
+            }
+        }
+
+        return segmentIndex < segments.size();
+    }
+
+    /**
+     * Marks this voice as finished (or cut off), releasing any thread waiting for it.
+     */
+    void finish() {
+        finished.countDown();
+    }
+
+    /**
+     * Blocks the current thread until this voice has finished playing.
+     *
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting
+     */
+    void awaitFinish() throws InterruptedException {
+        finished.await();
+    }
+
+    /**
+     * @return True if this voice has finished playing, or was cut off or never played for want of a channel.
+     */
+    boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+
+    /**
+     * @return The name of the sound this voice plays
+     */
+    String getName() {
+        return name;
+    }
+
+    int getPriority() {
+        return priority;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public int compareTo(Voice o) {
+        return priority != o.priority ? Integer.compare(priority, o.priority) : Long.compare(sequence, o.sequence);
+    }
+
+    private boolean isBroken() {
+        Long breakTime = KeyboardManager.getInstance().getBreakTime();
+        return breakTime != null && breakTime > startTime;
+    }
+
+    /**
+     * A single note (or rest), rendered by stepping through the sample's frames at a fixed rate and interpolating
+     * between them.
+     */
+    private static class Segment {
+        private final PcmSample pcm;            // Null for a rest
+        private final double step;              // Source frames per output frame
+        private final int frames;               // Length of the note, in output frames
+        private final long length;              // Length of the note, in source frames
+        private final boolean looped;
+        private final int loopStart;            // Index in sample where loop starts
+        private final int loopLength;
+        private final int outroIndex;           // Index in sample where release begins
+        private final int outroLength;
+
+        private Segment(SoundSample soundSample, PcmSample pcm, double step, int frames, long length) {
+            this.pcm = pcm;
+            this.step = step;
+            this.frames = frames;
+            this.length = length;
+            this.looped = pcm != null && soundSample.isStretchable() && length > pcm.getLength();
+            this.loopStart = looped ? soundSample.getLoopStart() : 0;
+            this.loopLength = looped ? soundSample.getLoopEnd() - soundSample.getLoopStart() + 1 : 0;
+            this.outroIndex = looped ? soundSample.getLoopEnd() + 1 : 0;
+            this.outroLength = looped ? pcm.getLength() - outroIndex : 0;
+        }
+
+        private void render(float[] buffer, int offset, int fromFrame, int count) {
+            if (pcm == null) {
+                return;
+            }
+
+            for (int index = 0; index < count; index++) {
+                double position = (fromFrame + index) * step;
+                long frame = (long) position;
+                float fraction = (float) (position - frame);
+
+                float thisSample = pcm.getSample(getSourceFrame(frame));
+                float nextSample = pcm.getSample(getSourceFrame(frame + 1));
+                buffer[offset + index] += thisSample + (nextSample - thisSample) * fraction;
+            }
+        }
+
+        /**
+         * Maps a frame of the (clipped or stretched) note to the frame of the sample that's played there.
+         *
+         * @return The index of the frame in the sample; an index outside of the sample is silence.
+         */
+        private int getSourceFrame(long frame) {
+            if (frame >= length) {
+                return -1;
+            } else if (!looped || frame < loopStart) {
+                return (int) Math.min(frame, Integer.MAX_VALUE);
+            } else if (frame >= length - outroLength) {
+                return outroIndex + (int) (frame - (length - outroLength));
+            } else {
+                return loopStart + (int) ((frame - loopStart) % loopLength);
+            }
+        }
+    }
+}
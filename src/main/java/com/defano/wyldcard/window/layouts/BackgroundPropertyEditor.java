@@ -78,7 +78,7 @@ public class BackgroundPropertyEditor extends WyldCardDialog<CardPart> {
             backgroundName.setText(backgroundModel.getKnownProperty(context, BackgroundModel.PROP_NAME).stringValue());
         }
 
-        long cardCount = this.cardPart.getCardModel().getStackModel().getCardsInBackground(backgroundId).size();
+        long cardCount = this.cardPart.getCardModel().getStackModel().getCardCountInBackground(backgroundId);
         long fieldCount = this.cardPart.getCardModel().getPartCount(context, PartType.FIELD, Owner.BACKGROUND);
         long buttonCount = this.cardPart.getCardModel().getPartCount(context, PartType.BUTTON, Owner.BACKGROUND);
 
@@ -67,7 +67,8 @@ public class StackPropertyEditor extends WyldCardDialog<StackModel> {
         cardCountLabel.setText(StringUtils.pluralize(model.getCardCount(), "Stack contains %d card.", "Stack contains %d cards."));
         backgroundCountLabel.setText(StringUtils.pluralize(model.getBackgroundCount(), "Stack contains %d background.", "Stack contains %d backgrounds."));
         locationLabel.setText(stackFile.map(File::getAbsolutePath).orElse("(Not saved)"));
-        sizeLabel.setText(StringUtils.humanReadableFileSize(Serializer.serialize(model).length()));
+        // Measuring an unsaved stack requires serializing it; a saved stack is measured by its file
+        sizeLabel.setText(StringUtils.humanReadableFileSize(stackFile.map(File::length).orElseGet(() -> (long) Serializer.serialize(model).length())));
         resizableCheckBox.setSelected(model.getKnownProperty(new ExecutionContext(), StackModel.PROP_RESIZABLE).booleanValue());
     }
 
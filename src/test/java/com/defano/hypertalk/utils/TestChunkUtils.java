@@ -7,6 +7,12 @@ import com.defano.hypertalk.exception.HtSemanticException;
 import com.defano.wyldcard.runtime.context.ExecutionContext;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import static org.junit.Assert.assertEquals;
 
 public class TestChunkUtils {
@@ -278,4 +284,75 @@ public class TestChunkUtils {
 
     }
 
+    @Test
+    public void testCountChunks() {
+        assertEquals(0, ChunkUtils.getCount(context, ChunkType.LINE, ""));
+        assertEquals(1, ChunkUtils.getCount(context, ChunkType.LINE, "\n"));
+        assertEquals(1, ChunkUtils.getCount(context, ChunkType.LINE, "L1\n"));
+        assertEquals(2, ChunkUtils.getCount(context, ChunkType.LINE, "L1\r\nL2"));
+        assertEquals(2, ChunkUtils.getCount(context, ChunkType.LINE, "L1\rL2"));
+        assertEquals(3, ChunkUtils.getCount(context, ChunkType.LINE, "L1\n\nL3\n"));
+
+        assertEquals(0, ChunkUtils.getCount(context, ChunkType.WORD, "  "));
+        assertEquals(2, ChunkUtils.getCount(context, ChunkType.WORD, "W1\tW2"));
+        assertEquals(2, ChunkUtils.getCount(context, ChunkType.WORD, "W1\n\nW2 "));
+
+        assertEquals(0, ChunkUtils.getCount(context, ChunkType.CHAR, ""));
+        assertEquals(2, ChunkUtils.getCount(context, ChunkType.CHAR, "\uD83D\uDE00a"));
+
+        assertEquals(2, ChunkUtils.getCount(context, ChunkType.ITEM, ","));
+        assertEquals(2, ChunkUtils.getCount(context, ChunkType.ITEM, "1,\n"));
+        assertEquals(3, ChunkUtils.getCount(context, ChunkType.ITEM, ",,"));
+        assertEquals(3, ChunkUtils.getCount(context, ChunkType.ITEM, "1,,2"));
+
+        assertEquals("L2", ChunkUtils.getChunk(context, ChunkType.LINE, "L1\r\nL2", 2, 0));
+        assertEquals("", ChunkUtils.getChunk(context, ChunkType.ITEM, "1,,2", 2, 0));
+    }
+
+    @Test
+    public void testScannerMatchesRegexBoundaries() {
+        // Short strings of delimiters, whitespace, line terminators and surrogate pairs, mixed with ordinary characters
+        char[] alphabet = {'a', 'b', ',', ';', '|', '.', ' ', '\t', '\n', '\r', '\u000B', '\f', '\u0085', '\u2028', '\u00A0', '\uD83D', '\uDE00'};
+        String[] itemDelimiters = {",", ";", "|", ".", " ", "\n", "\r", "ab"};
+        Random random = new Random(1);
+
+        for (int iteration = 0; iteration < 5000; iteration++) {
+            StringBuilder builder = new StringBuilder();
+            for (int length = random.nextInt(9); length > 0; length--) {
+                builder.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String value = builder.toString();
+
+            for (ChunkType type : new ChunkType[]{ChunkType.CHAR, ChunkType.WORD, ChunkType.LINE}) {
+                assertEquals(type + " boundaries of '" + value + "'",
+                        getRegexBoundaries(ChunkUtils.getRegexForChunkType(context, type), value),
+                        getScannerBoundaries(value, type, null));
+            }
+
+            for (String delimiter : itemDelimiters) {
+                assertEquals("Item boundaries delimited by '" + delimiter + "' of '" + value + "'",
+                        getRegexBoundaries(ChunkUtils.getItemRegex(delimiter), value),
+                        getScannerBoundaries(value, ChunkType.ITEM, delimiter));
+            }
+        }
+    }
+
+    private List<String> getRegexBoundaries(Pattern pattern, String value) {
+        List<String> boundaries = new ArrayList<>();
+        Matcher matcher = pattern.matcher(value);
+        while (matcher.find()) {
+            boundaries.add(matcher.start() + "-" + matcher.end());
+        }
+        return boundaries;
+    }
+
+    private List<String> getScannerBoundaries(String value, ChunkType type, String itemDelimiter) {
+        List<String> boundaries = new ArrayList<>();
+        ChunkScanner scanner = new ChunkScanner(value, type, itemDelimiter);
+        while (scanner.next()) {
+            boundaries.add(scanner.start() + "-" + scanner.end());
+        }
+        return boundaries;
+    }
+
 }
@@ -0,0 +1,200 @@
+package com.defano.wyldcard.runtime.serializer;
+
+import com.defano.hypertalk.ast.model.Owner;
+import com.defano.wyldcard.parts.card.CardModel;
+import com.defano.wyldcard.parts.field.FieldModel;
+import com.defano.wyldcard.parts.stack.StackModel;
+import org.junit.Test;
+
+import javax.swing.text.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestDeepCopier {
+
+    private final static Dimension DIMENSION = new Dimension(64, 48);
+
+    @Test
+    public void testCopyCard() throws Exception {
+        CardModel card = newCard();
+        FieldModel field = card.getFieldModels().iterator().next();
+
+        CardModel copy = DeepCopier.copy(card);
+        FieldModel copiedField = copy.getFieldModels().iterator().next();
+
+        // The copy is the same as the original, as far as serialization can tell...
+        assertEquals(Serializer.serialize(card), Serializer.serialize(copy));
+
+        // ... but shares none of its mutable state
+        assertNotSame(field, copiedField);
+        assertNotSame(card.getCardImage(DIMENSION), copy.getCardImage(DIMENSION));
+        assertNotSame(field.getStyledDocument(null), copiedField.getStyledDocument(null));
+        assertArrayEquals(getPixels(card.getCardImage(DIMENSION)), getPixels(copy.getCardImage(DIMENSION)));
+
+        copy.getCardImage(DIMENSION).setRGB(0, 0, 0xff00ff00);
+        assertEquals(0xff0000ff, card.getCardImage(DIMENSION).getRGB(0, 0));
+    }
+
+    @Test
+    public void testCopyDocument() throws Exception {
+        StyledDocument document = newDocument();
+        StyledDocument copy = DeepCopier.copy(document);
+
+        assertNotSame(document, copy);
+        assertEquals(document.getText(0, document.getLength()), copy.getText(0, copy.getLength()));
+
+        // Each character has the same character and paragraph attributes as in the original
+        for (int offset = 0; offset < document.getLength(); offset++) {
+            AttributeSet attributes = document.getCharacterElement(offset).getAttributes();
+            AttributeSet copiedAttributes = copy.getCharacterElement(offset).getAttributes();
+
+            assertEquals(StyleConstants.isBold(attributes), StyleConstants.isBold(copiedAttributes));
+            assertEquals(StyleConstants.getForeground(attributes), StyleConstants.getForeground(copiedAttributes));
+            assertEquals(StyleConstants.getFontSize(attributes), StyleConstants.getFontSize(copiedAttributes));
+            assertEquals(StyleConstants.getAlignment(document.getParagraphElement(offset).getAttributes()),
+                    StyleConstants.getAlignment(copy.getParagraphElement(offset).getAttributes()));
+        }
+
+        copy.insertString(0, "copy ", null);
+        assertEquals("plain ", document.getText(0, 6));
+    }
+
+    @Test
+    public void testPostConstruct() throws Exception {
+        CardModel copy = DeepCopier.copy(newCard());
+        FieldModel copiedField = copy.getFieldModels().iterator().next();
+
+        // Copies are clean; a change to the copied field's document is observed by the copied field
+        assertFalse(copiedField.isDirty());
+        copiedField.getStyledDocument(null).insertString(0, "edited ", null);
+        assertTrue(copiedField.isDirty());
+        assertTrue(copy.isDirty());
+    }
+
+    @Test
+    public void testCollections() {
+        CollectionHolder original = new CollectionHolder();
+        CollectionHolder copy = DeepCopier.copy(original);
+
+        assertTrue(copy.enumMap instanceof EnumMap);
+        assertEquals(original.enumMap.keySet(), copy.enumMap.keySet());
+        assertNotSame(original.enumMap.get(Suit.CLUBS), copy.enumMap.get(Suit.CLUBS));
+        assertEquals("clubs", copy.enumMap.get(Suit.CLUBS).get(0).name);
+
+        assertEquals(original.enumSet, copy.enumSet);
+        assertNotSame(original.enumSet, copy.enumSet);
+
+        assertEquals("unmodifiable", copy.unmodifiableList.get(0).name);
+        assertNotSame(original.unmodifiableList.get(0), copy.unmodifiableList.get(0));
+        assertUnsupported(() -> copy.unmodifiableList.add(new Part("added")));
+
+        assertEquals("unmodifiable", copy.unmodifiableMap.get("key").name);
+        assertUnsupported(() -> copy.unmodifiableMap.put("added", new Part("added")));
+
+        assertSame(original.fixedSizeList.getClass(), copy.fixedSizeList.getClass());
+        assertEquals("second", copy.fixedSizeList.get(1).name);
+        assertNotSame(original.fixedSizeList.get(1), copy.fixedSizeList.get(1));
+        assertUnsupported(() -> copy.fixedSizeList.add(new Part("added")));
+
+        assertTrue(copy.emptyList.isEmpty());
+        assertUnsupported(() -> copy.emptyList.add(new Part("added")));
+
+        // A copied list that contains itself contains its copy
+        assertSame(copy.cyclicList, copy.cyclicList.get(0));
+        assertNotSame(original.cyclicList, copy.cyclicList);
+    }
+
+    private static CardModel newCard() throws BadLocationException {
+        StackModel stack = StackModel.newStackModel("test");
+        CardModel card = stack.getCardModel(0);
+
+        BufferedImage image = new BufferedImage(DIMENSION.width, DIMENSION.height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, 0xff0000ff);
+        image.setRGB(5, 7, 0x80ff0000);
+        card.setCardImage(image);
+
+        FieldModel field = FieldModel.newFieldModel(null, 1, new Rectangle(10, 10, 200, 100), Owner.CARD, card);
+        card.addPartModel(field);
+        field.setStyledDocument(null, newDocument());
+
+        return card;
+    }
+
+    /**
+     * Creates a document of two paragraphs holding runs of plain, bold and colored text, the first of which is
+     * centered.
+     */
+    private static StyledDocument newDocument() throws BadLocationException {
+        DefaultStyledDocument document = new DefaultStyledDocument();
+
+        SimpleAttributeSet bold = new SimpleAttributeSet();
+        StyleConstants.setBold(bold, true);
+
+        SimpleAttributeSet colored = new SimpleAttributeSet();
+        StyleConstants.setForeground(colored, Color.RED);
+        StyleConstants.setFontSize(colored, 18);
+
+        document.insertString(document.getLength(), "plain ", null);
+        document.insertString(document.getLength(), "bold ", bold);
+        document.insertString(document.getLength(), "red\nsecond paragraph", colored);
+
+        SimpleAttributeSet centered = new SimpleAttributeSet();
+        StyleConstants.setAlignment(centered, StyleConstants.ALIGN_CENTER);
+        document.setParagraphAttributes(0, 1, centered, false);
+
+        return document;
+    }
+
+    private static int[] getPixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static void assertUnsupported(Runnable modification) {
+        try {
+            modification.run();
+            fail("Expected the copy to be unmodifiable.");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
+    private enum Suit {
+        CLUBS, HEARTS
+    }
+
+    private static class Part {
+        private String name;
+
+        private Part() {
+        }
+
+        private Part(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class CollectionHolder {
+        private final EnumMap<Suit, List<Part>> enumMap = new EnumMap<>(Suit.class);
+        private final EnumSet<Suit> enumSet = EnumSet.of(Suit.HEARTS);
+        private final List<Part> unmodifiableList = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(new Part("unmodifiable"))));
+        private final Map<String, Part> unmodifiableMap = Collections.unmodifiableMap(new HashMap<>(Collections.singletonMap("key", new Part("unmodifiable"))));
+        private final List<Part> fixedSizeList = Arrays.asList(new Part("first"), new Part("second"));
+        private final List<Part> emptyList = Collections.emptyList();
+        private final List<Object> cyclicList = new ArrayList<>();
+
+        private CollectionHolder() {
+            enumMap.put(Suit.CLUBS, new ArrayList<>(Arrays.asList(new Part("clubs"))));
+            cyclicList.add(cyclicList);
+        }
+    }
+}
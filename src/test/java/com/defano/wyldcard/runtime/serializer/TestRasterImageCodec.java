@@ -0,0 +1,119 @@
+package com.defano.wyldcard.runtime.serializer;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestRasterImageCodec {
+
+    // Offset of the bits-per-pixel byte: magic, version, width and height precede it
+    private final static int BITS_PER_PIXEL_OFFSET = 4 + 1 + 4 + 4;
+
+    // Widths chosen so that rows of packed indices rarely end on a byte boundary
+    private final static int[] WIDTHS = {1, 3, 7, 13, 17, 64};
+
+    @Test
+    public void testSingleColor() {
+        for (int thisWidth : WIDTHS) {
+            BufferedImage image = newImage(thisWidth, 5, 1);
+            byte[] encoded = RasterImageCodec.encode(image);
+
+            assertEquals(0, encoded[BITS_PER_PIXEL_OFFSET]);
+            assertRoundTrip(image);
+        }
+    }
+
+    @Test
+    public void testTransparentImage() {
+        assertRoundTrip(new BufferedImage(11, 9, BufferedImage.TYPE_INT_ARGB));
+    }
+
+    @Test
+    public void testPalettes() {
+        int[][] bitsPerColors = {{2, 1}, {3, 2}, {4, 2}, {5, 4}, {16, 4}, {17, 8}, {256, 8}};
+
+        for (int[] thisCase : bitsPerColors) {
+            for (int thisWidth : WIDTHS) {
+                BufferedImage image = newImage(thisWidth, 300 / thisWidth + 1, thisCase[0]);
+                byte[] encoded = RasterImageCodec.encode(image);
+
+                assertEquals(thisCase[1], encoded[BITS_PER_PIXEL_OFFSET]);
+                assertRoundTrip(image);
+            }
+        }
+    }
+
+    @Test
+    public void testMoreColorsThanPalette() {
+        for (int thisWidth : WIDTHS) {
+            BufferedImage image = newImage(thisWidth, 600 / thisWidth + 1, 257);
+            byte[] encoded = RasterImageCodec.encode(image);
+
+            assertEquals(32, encoded[BITS_PER_PIXEL_OFFSET]);
+            assertRoundTrip(image);
+        }
+    }
+
+    @Test
+    public void testOtherImageTypes() {
+        BufferedImage rgb = new BufferedImage(13, 7, BufferedImage.TYPE_INT_RGB);
+        BufferedImage binary = new BufferedImage(13, 7, BufferedImage.TYPE_BYTE_BINARY);
+
+        for (int x = 0; x < 13; x++) {
+            for (int y = 0; y < 7; y++) {
+                rgb.setRGB(x, y, (x + y) % 3 == 0 ? 0xff102030 : 0xffffffff);
+                binary.setRGB(x, y, (x * y) % 2 == 0 ? 0xff000000 : 0xffffffff);
+            }
+        }
+
+        assertRoundTrip(rgb);
+        assertRoundTrip(binary);
+    }
+
+    @Test
+    public void testIsRasterImage() {
+        assertTrue(RasterImageCodec.isRasterImage(RasterImageCodec.encode(newImage(3, 3, 2))));
+        assertFalse(RasterImageCodec.isRasterImage(new byte[]{'W', 'C', 'I', 'M'}));
+        assertFalse(RasterImageCodec.isRasterImage(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0d, 0x0a}));
+    }
+
+    private static void assertRoundTrip(BufferedImage image) {
+        BufferedImage decoded = RasterImageCodec.decode(RasterImageCodec.encode(image));
+
+        assertEquals(image.getWidth(), decoded.getWidth());
+        assertEquals(image.getHeight(), decoded.getHeight());
+        assertArrayEquals(getPixels(image), getPixels(decoded));
+    }
+
+    private static int[] getPixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    /**
+     * Creates an image in which each of the given number of distinct colors (including fully- and partly-transparent
+     * ones) appears at least once, when the image has at least that many pixels.
+     */
+    private static BufferedImage newImage(int width, int height, int colors) {
+        Random random = new Random(colors * 31 + width);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        int[] palette = new int[colors];
+        for (int index = 0; index < colors; index++) {
+            int alpha = index == 0 ? 0 : index % 2 == 0 ? 0xff : 0x80;
+            palette[index] = alpha << 24 | index * 0x010203 & 0xffffff;
+        }
+
+        for (int index = 0; index < width * height; index++) {
+            int color = index < colors ? palette[index] : palette[random.nextInt(colors)];
+            image.setRGB(index % width, index / width, color);
+        }
+
+        return image;
+    }
+}
@@ -0,0 +1,234 @@
+package com.defano.wyldcard.runtime.serializer;
+
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.wyldcard.parts.card.CardModel;
+import com.defano.wyldcard.parts.model.PropertiesModel;
+import com.defano.wyldcard.parts.stack.LazyCardList;
+import com.defano.wyldcard.parts.stack.StackModel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestStackArchive {
+
+    private final static int CARD_COUNT = 20;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        File file = new File(folder.getRoot(), "test.stack");
+        StackModel stack = newStack();
+
+        StackArchive.write(file, stack);
+        assertTrue(StackArchive.isArchive(file));
+
+        StackModel read = StackArchive.read(file);
+        LazyCardList cards = read.getCardModelList();
+
+        assertEquals(CARD_COUNT, read.getCardCount());
+        assertEquals(1, read.getBackgroundCount());
+        assertFalse(read.isDirty());
+
+        // Card IDs and backgrounds are known without loading cards
+        for (int index = 0; index < CARD_COUNT; index++) {
+            assertEquals(stack.getCardId(index), read.getCardId(index));
+            assertEquals(stack.getCardBackgroundId(index), read.getCardBackgroundId(index));
+            assertFalse(cards.isLoaded(index));
+        }
+
+        assertCardNames(read, "card");
+        assertEquals(0xff0000ff, read.getCardModel(0).getCardImage(new Dimension(640, 480)).getRGB(3, 4));
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        File file = new File(folder.getRoot(), "test.stack");
+        StackArchive.write(file, newStack());
+
+        StackModel stack = StackArchive.read(file);
+        LazyCardList cards = stack.getCardModelList();
+        boolean compacted = false;
+
+        // Repeatedly change (and thereby load) the first half of the cards; the second half are never loaded
+        for (int save = 0; save < 10 && !compacted; save++) {
+            for (int index = 0; index < CARD_COUNT / 2; index++) {
+                setName(stack.getCardModel(index), "save " + save + " card " + index);
+            }
+
+            long length = file.length();
+            StackArchive.write(file, stack);
+            stack.setDirty(false);
+
+            compacted = file.length() < length;
+        }
+
+        assertTrue(compacted);
+        assertFalse(cards.isLoaded(CARD_COUNT - 1));
+
+        // Cards that were never loaded are still read from the (replaced) file
+        StackModel read = StackArchive.read(file);
+        for (int index = CARD_COUNT / 2; index < CARD_COUNT; index++) {
+            assertEquals("card " + index, getName(stack.getCardModel(index)));
+            assertEquals("card " + index, getName(read.getCardModel(index)));
+        }
+
+        for (int index = 0; index < CARD_COUNT / 2; index++) {
+            assertEquals(getName(stack.getCardModel(index)), getName(read.getCardModel(index)));
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws Exception {
+        File file = new File(folder.getRoot(), "test.stack");
+        StackArchive.write(file, newStack());
+
+        StackModel stack = StackArchive.read(file);
+        LazyCardList cards = stack.getCardModelList();
+
+        // Change one card, delete another (without loading it) and add a new one
+        setName(stack.getCardModel(3), "changed");
+        int removedId = stack.getCardId(7);
+        cards.remove(7);
+
+        CardModel added = CardModel.emptyCardModel(stack.getNextCardId(), stack.getCardBackgroundId(0), stack);
+        setName(added, "added");
+        cards.add(added);
+
+        long length = file.length();
+        StackArchive.write(file, stack);
+        stack.setDirty(false);
+
+        // Only what changed was appended; cards that weren't loaded still aren't
+        assertTrue(file.length() > length);
+        assertTrue(file.length() - length < length);
+        assertFalse(cards.isLoaded(4));
+
+        StackModel read = StackArchive.read(file);
+        assertEquals(CARD_COUNT, read.getCardCount());
+        assertEquals("changed", getName(read.getCardModel(3)));
+        assertEquals("card 8", getName(read.getCardModel(7)));
+        assertEquals("added", getName(read.getCardModel(CARD_COUNT - 1)));
+        assertNull(read.getIndexOfCardId(removedId));
+
+        // The open stack reads its remaining cards from the updated archive, and can be updated again
+        assertEquals("card 4", getName(stack.getCardModel(4)));
+        setName(stack.getCardModel(CARD_COUNT - 1), "added again");
+        StackArchive.write(file, stack);
+
+        read = StackArchive.read(file);
+        assertEquals("added again", getName(read.getCardModel(CARD_COUNT - 1)));
+        assertEquals("card 5", getName(read.getCardModel(5)));
+    }
+
+    @Test
+    public void testChangeDuringSave() throws Exception {
+        File file = new File(folder.getRoot(), "test.stack");
+        StackArchive.write(file, newStack());
+
+        StackModel stack = StackArchive.read(file);
+        setName(stack.getCardModel(2), "before save");
+
+        long changeCount = PropertiesModel.getChangeCount();
+        StackArchive.write(file, stack);
+
+        // A script changes a card that was just written, and one that wasn't, before the save is marked complete
+        setName(stack.getCardModel(2), "during save");
+        setName(stack.getCardModel(5), "during save");
+        stack.setSaved(changeCount);
+
+        assertTrue(stack.getCardModel(2).isDirty());
+        assertTrue(stack.getCardModel(5).isDirty());
+        assertFalse(stack.getCardModel(3).isDirty());
+
+        // The next save writes both changes
+        changeCount = PropertiesModel.getChangeCount();
+        StackArchive.write(file, stack);
+        stack.setSaved(changeCount);
+
+        assertFalse(stack.getCardModel(2).isDirty());
+        assertFalse(stack.getCardModel(5).isDirty());
+
+        StackModel read = StackArchive.read(file);
+        assertEquals("during save", getName(read.getCardModel(2)));
+        assertEquals("during save", getName(read.getCardModel(5)));
+    }
+
+    @Test
+    public void testConcurrentChangesDuringSave() throws Exception {
+        File file = new File(folder.getRoot(), "test.stack");
+        StackArchive.write(file, newStack());
+
+        StackModel stack = StackArchive.read(file);
+        AtomicBoolean done = new AtomicBoolean();
+
+        Thread script = new Thread(() -> {
+            for (int change = 0; !done.get(); change++) {
+                setName(stack.getCardModel(change % CARD_COUNT), "change " + change);
+            }
+        });
+
+        script.start();
+        try {
+            for (int save = 0; save < 50; save++) {
+                long changeCount = PropertiesModel.getChangeCount();
+                StackArchive.write(file, stack);
+                stack.setSaved(changeCount);
+            }
+        } finally {
+            done.set(true);
+            script.join();
+        }
+
+        // Every change has either been written, or its card is still marked as changed
+        StackModel read = StackArchive.read(file);
+        for (int index = 0; index < CARD_COUNT; index++) {
+            CardModel card = stack.getCardModel(index);
+            assertTrue(card.isDirty() || getName(card).equals(getName(read.getCardModel(index))));
+        }
+    }
+
+    private static StackModel newStack() {
+        StackModel stack = StackModel.newStackModel("test");
+        int backgroundId = stack.getCardBackgroundId(0);
+
+        for (int index = 1; index < CARD_COUNT; index++) {
+            stack.getCardModelList().add(CardModel.emptyCardModel(stack.getNextCardId(), backgroundId, stack));
+        }
+
+        for (int index = 0; index < CARD_COUNT; index++) {
+            setName(stack.getCardModel(index), "card " + index);
+        }
+
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(3, 4, 0xff0000ff);
+        stack.getCardModel(0).setCardImage(image);
+
+        return stack;
+    }
+
+    private static void assertCardNames(StackModel stack, String prefix) {
+        for (int index = 0; index < stack.getCardCount(); index++) {
+            assertEquals(prefix + " " + index, getName(stack.getCardModel(index)));
+        }
+    }
+
+    private static void setName(CardModel card, String name) {
+        card.setKnownProperty(null, CardModel.PROP_NAME, new Value(name));
+    }
+
+    private static String getName(CardModel card) {
+        return card.getKnownProperty(null, CardModel.PROP_NAME).toString();
+    }
+}